@@ -0,0 +1,4 @@
+-- (created_at, id) index backing the keyset /cursor inspection log list.
+-- sys_op_log and sys_file already have a created_at index; InnoDB secondary
+-- indexes carry the primary key, so they serve (created_at, id) ordering as is.
+ALTER TABLE `road_inspection_record` ADD KEY `idx_created_at_id` (`created_at`, `id`);
@@ -0,0 +1,24 @@
+-- Department closure table, maintained by DeptServiceImpl next to sys_dept.path.
+-- Subtree queries and moves go through the (ancestor_id, descendant_id) primary key
+-- instead of LIKE prefix scans over path.
+CREATE TABLE IF NOT EXISTS `sys_dept_closure` (
+  `ancestor_id` bigint unsigned NOT NULL COMMENT '祖先部门 ID',
+  `descendant_id` bigint unsigned NOT NULL COMMENT '后代部门 ID（含自身）',
+  `depth` int NOT NULL COMMENT '层级距离，自身为 0',
+  PRIMARY KEY (`ancestor_id`,`descendant_id`),
+  KEY `idx_sys_dept_closure_descendant` (`descendant_id`,`ancestor_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='部门闭包表：每对（祖先, 后代）一行';
+
+-- Backfill by walking parent_id upwards from every active department (self row at depth 0).
+-- Logically deleted departments get no rows: DeptServiceImpl drops them on delete, so
+-- data-scope subqueries can read the closure table without joining back to sys_dept.
+INSERT IGNORE INTO `sys_dept_closure` (`ancestor_id`, `descendant_id`, `depth`)
+WITH RECURSIVE c (ancestor_id, descendant_id, depth) AS (
+  SELECT id, id, 0 FROM sys_dept WHERE del_flag = 0
+  UNION ALL
+  SELECT p.parent_id, c.descendant_id, c.depth + 1
+  FROM c
+  JOIN sys_dept p ON p.id = c.ancestor_id
+  WHERE p.parent_id <> 0
+)
+SELECT ancestor_id, descendant_id, depth FROM c;
@@ -0,0 +1,11 @@
+-- ngram full-text indexes for user list search. SysUserMapper narrows username/nickname
+-- contains-searches of 2+ characters with MATCH ... AGAINST (phrase, boolean mode), then
+-- re-checks with LIKE. Single-character searches keep the plain LIKE.
+--
+-- Stopwords are disabled for this session so that bigrams containing English stopwords
+-- (e.g. "is", "an") are still indexed; otherwise MATCH would miss such substrings.
+SET SESSION innodb_ft_enable_stopword = OFF;
+
+-- InnoDB adds one FULLTEXT index per ALTER TABLE.
+ALTER TABLE `sys_user` ADD FULLTEXT KEY `ft_sys_user_username` (`username`) WITH PARSER ngram;
+ALTER TABLE `sys_user` ADD FULLTEXT KEY `ft_sys_user_nickname` (`nickname`) WITH PARSER ngram;
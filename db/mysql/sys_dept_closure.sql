@@ -0,0 +1,7 @@
+CREATE TABLE `sys_dept_closure` (
+  `ancestor_id` bigint unsigned NOT NULL COMMENT '祖先部门 ID',
+  `descendant_id` bigint unsigned NOT NULL COMMENT '后代部门 ID（含自身）',
+  `depth` int NOT NULL COMMENT '层级距离，自身为 0',
+  PRIMARY KEY (`ancestor_id`,`descendant_id`),
+  KEY `idx_sys_dept_closure_descendant` (`descendant_id`,`ancestor_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci COMMENT='部门闭包表：每对（祖先, 后代）一行';
@@ -16,5 +16,7 @@ CREATE TABLE `sys_user` (
   PRIMARY KEY (`id`),
   UNIQUE KEY `username` (`username`),
   KEY `idx_sys_user_dept_id` (`dept_id`),
-  KEY `nickname` (`nickname`) USING BTREE
+  KEY `nickname` (`nickname`) USING BTREE,
+  FULLTEXT KEY `ft_sys_user_username` (`username`) WITH PARSER ngram,
+  FULLTEXT KEY `ft_sys_user_nickname` (`nickname`) WITH PARSER ngram
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
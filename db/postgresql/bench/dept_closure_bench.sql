@@ -0,0 +1,104 @@
+-- Department hierarchy benchmark: materialized path (LIKE prefix) vs closure table.
+-- Builds 50,000 departments (8-way tree, ~6 levels) in a scratch schema.
+-- Then compares the subtree query and subtree move statements that
+-- SysDeptMapper issues, using EXPLAIN ANALYZE. Every write runs inside a
+-- rolled-back transaction, so each case starts from the same data.
+--
+--   psql -d xrcgs_admin -f db/postgresql/bench/dept_closure_bench.sql
+--
+-- Compare "Execution Time" and "Buffers" of each pair. The scratch schema is
+-- dropped at the end.
+
+DROP SCHEMA IF EXISTS dept_bench CASCADE;
+CREATE SCHEMA dept_bench;
+SET search_path TO dept_bench;
+
+CREATE TABLE sys_dept (
+  id        int8 PRIMARY KEY,
+  parent_id int8 NOT NULL DEFAULT 0,
+  path      varchar(512) NOT NULL,
+  del_flag  int2 NOT NULL DEFAULT 0,
+  update_time timestamp(6) NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_sys_dept_path_prefix ON sys_dept (path varchar_pattern_ops, del_flag);
+
+CREATE TABLE sys_dept_closure (
+  ancestor_id   int8 NOT NULL,
+  descendant_id int8 NOT NULL,
+  depth         int4 NOT NULL,
+  PRIMARY KEY (ancestor_id, descendant_id)
+);
+CREATE INDEX idx_sys_dept_closure_descendant ON sys_dept_closure (descendant_id, ancestor_id);
+
+-- 50k nodes: node n (n > 1) hangs under (n - 2) / 8 + 1
+WITH RECURSIVE t(id, parent_id, path) AS (
+  SELECT 1::int8, 0::int8, '/1/'::varchar
+  UNION ALL
+  SELECT c.id, t.id, (t.path || c.id || '/')::varchar
+  FROM t
+  JOIN LATERAL (SELECT g::int8 AS id
+                FROM generate_series((t.id - 1) * 8 + 2, LEAST(t.id * 8 + 1, 50000)) g) c ON true
+)
+INSERT INTO sys_dept (id, parent_id, path)
+SELECT id, parent_id, path FROM t;
+
+INSERT INTO sys_dept_closure (ancestor_id, descendant_id, depth)
+WITH RECURSIVE c(ancestor_id, descendant_id, depth) AS (
+  SELECT id, id, 0 FROM sys_dept
+  UNION ALL
+  SELECT p.parent_id, c.descendant_id, c.depth + 1
+  FROM c
+  JOIN sys_dept p ON p.id = c.ancestor_id
+  WHERE p.parent_id <> 0
+)
+SELECT ancestor_id, descendant_id, depth FROM c;
+
+ANALYZE sys_dept;
+ANALYZE sys_dept_closure;
+
+SELECT COUNT(*) AS depts FROM sys_dept;
+SELECT COUNT(*) AS closure_rows FROM sys_dept_closure;
+
+-- Node 3 is a second-level department whose subtree has several thousand rows; node 20, one level down, has several hundred.
+
+\echo '== subtree ids: path LIKE prefix (node 3)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id FROM sys_dept WHERE path LIKE '/1/3/' || '%' AND del_flag = 0;
+
+\echo '== subtree ids: closure table (node 3)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT c.descendant_id
+FROM sys_dept_closure c
+JOIN sys_dept d ON d.id = c.descendant_id
+WHERE c.ancestor_id = 3 AND d.del_flag = 0;
+
+\echo '== move node 20 under node 4: path LIKE rewrite'
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS)
+UPDATE sys_dept
+SET path = CONCAT('/1/4/20/', SUBSTRING(path FROM CHAR_LENGTH('/1/3/20/') + 1)), update_time = NOW()
+WHERE path LIKE CONCAT('/1/3/20/', '%');
+ROLLBACK;
+
+\echo '== move node 20 under node 4: closure-located path rewrite + relink'
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS)
+UPDATE sys_dept
+SET path = CONCAT('/1/4/20/', SUBSTRING(path FROM CHAR_LENGTH('/1/3/20/') + 1)), update_time = NOW()
+WHERE id IN (SELECT descendant_id FROM sys_dept_closure WHERE ancestor_id = 20);
+EXPLAIN (ANALYZE, BUFFERS)
+DELETE FROM sys_dept_closure
+WHERE descendant_id IN (SELECT descendant_id FROM (
+        SELECT descendant_id FROM sys_dept_closure WHERE ancestor_id = 20) sub)
+  AND ancestor_id IN (SELECT ancestor_id FROM (
+        SELECT ancestor_id FROM sys_dept_closure WHERE descendant_id = 20 AND ancestor_id <> 20) sup);
+EXPLAIN (ANALYZE, BUFFERS)
+INSERT INTO sys_dept_closure (ancestor_id, descendant_id, depth)
+SELECT sup.ancestor_id, sub.descendant_id, sup.depth + sub.depth + 1
+FROM sys_dept_closure sup
+CROSS JOIN sys_dept_closure sub
+WHERE sup.descendant_id = 4 AND sub.ancestor_id = 20;
+ROLLBACK;
+
+RESET search_path;
+DROP SCHEMA dept_bench CASCADE;
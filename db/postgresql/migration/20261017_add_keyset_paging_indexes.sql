@@ -0,0 +1,9 @@
+-- (created_at, id) indexes backing the keyset /cursor list endpoints.
+-- The list queries order by created_at DESC, id DESC and seek past the last row
+-- of the previous page, so each page is an index range scan regardless of depth.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS "idx_sys_op_log_createdat_id"
+  ON "public"."sys_op_log" ("createdat" DESC, "id" DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS "idx_sys_file_created_at_id"
+  ON "public"."sys_file" ("created_at" DESC, "id" DESC);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS "idx_road_inspection_record_created_at_id"
+  ON "public"."road_inspection_record" ("created_at" DESC, "id" DESC);
@@ -0,0 +1,23 @@
+-- Department closure table, maintained by DeptServiceImpl next to sys_dept.path.
+CREATE TABLE IF NOT EXISTS "public"."sys_dept_closure" (
+  "ancestor_id" int8 NOT NULL,
+  "descendant_id" int8 NOT NULL,
+  "depth" int4 NOT NULL,
+  CONSTRAINT "sys_dept_closure_pkey" PRIMARY KEY ("ancestor_id", "descendant_id")
+);
+CREATE INDEX IF NOT EXISTS "idx_sys_dept_closure_descendant"
+  ON "public"."sys_dept_closure" ("descendant_id", "ancestor_id");
+
+-- Backfill by walking parent_id upwards from every active department (self row at depth 0).
+-- Logically deleted departments get no rows (DeptServiceImpl drops them on delete).
+INSERT INTO "public"."sys_dept_closure" ("ancestor_id", "descendant_id", "depth")
+WITH RECURSIVE c(ancestor_id, descendant_id, depth) AS (
+  SELECT id, id, 0 FROM "public"."sys_dept" WHERE del_flag = 0
+  UNION ALL
+  SELECT p.parent_id, c.descendant_id, c.depth + 1
+  FROM c
+  JOIN "public"."sys_dept" p ON p.id = c.ancestor_id
+  WHERE p.parent_id <> 0
+)
+SELECT ancestor_id, descendant_id, depth FROM c
+ON CONFLICT DO NOTHING;
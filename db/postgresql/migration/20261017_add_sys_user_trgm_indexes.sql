@@ -0,0 +1,8 @@
+-- Trigram indexes for user list search (username/nickname LIKE '%x%') and nickname prefix lookup.
+-- SysUserMapper binds the LIKE pattern as a parameter so the planner can use these indexes.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS "idx_sys_user_username_trgm"
+  ON "public"."sys_user" USING gin ("username" gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS "idx_sys_user_nickname_trgm"
+  ON "public"."sys_user" USING gin ("nickname" gin_trgm_ops);
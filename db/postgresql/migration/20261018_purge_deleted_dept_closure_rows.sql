@@ -0,0 +1,6 @@
+-- Drop closure rows of logically deleted departments left by the original backfill.
+-- The closure table now holds active departments only, so the data-scope subtree
+-- subquery (DataScopeUtil.subtreeSql) no longer joins sys_dept to check del_flag.
+DELETE FROM "public"."sys_dept_closure"
+WHERE "descendant_id" IN (SELECT "id" FROM "public"."sys_dept" WHERE "del_flag" <> 0)
+   OR "ancestor_id" IN (SELECT "id" FROM "public"."sys_dept" WHERE "del_flag" <> 0);
@@ -40,6 +40,17 @@ CREATE TABLE "public"."sys_dept" (
 )
 ;
 
+-- ----------------------------
+-- Table structure for sys_dept_closure
+-- ----------------------------
+DROP TABLE IF EXISTS "public"."sys_dept_closure";
+CREATE TABLE "public"."sys_dept_closure" (
+  "ancestor_id" int8 NOT NULL,
+  "descendant_id" int8 NOT NULL,
+  "depth" int4 NOT NULL
+)
+;
+
 -- ----------------------------
 -- Table structure for sys_dict_item
 -- ----------------------------
@@ -246,6 +257,27 @@ ALTER TABLE "public"."sys_dept" ADD CONSTRAINT "chk_sys_dept_path_format" CHECK
 -- ----------------------------
 ALTER TABLE "public"."sys_dept" ADD CONSTRAINT "sys_dept_pkey" PRIMARY KEY ("id");
 
+-- ----------------------------
+-- Indexes structure for table sys_dept
+-- ----------------------------
+CREATE INDEX "idx_sys_dept_path_prefix" ON "public"."sys_dept" USING btree (
+  "path" COLLATE "pg_catalog"."default" "pg_catalog"."varchar_pattern_ops" ASC NULLS LAST,
+  "del_flag" "pg_catalog"."int2_ops" ASC NULLS LAST
+);
+
+-- ----------------------------
+-- Primary Key structure for table sys_dept_closure
+-- ----------------------------
+ALTER TABLE "public"."sys_dept_closure" ADD CONSTRAINT "sys_dept_closure_pkey" PRIMARY KEY ("ancestor_id", "descendant_id");
+
+-- ----------------------------
+-- Indexes structure for table sys_dept_closure
+-- ----------------------------
+CREATE INDEX "idx_sys_dept_closure_descendant" ON "public"."sys_dept_closure" USING btree (
+  "descendant_id" "pg_catalog"."int8_ops" ASC NULLS LAST,
+  "ancestor_id" "pg_catalog"."int8_ops" ASC NULLS LAST
+);
+
 -- ----------------------------
 -- Primary Key structure for table sys_dict_item
 -- ----------------------------
@@ -266,6 +298,14 @@ ALTER TABLE "public"."sys_dict_type" ADD CONSTRAINT "sys_dict_type_pkey" PRIMARY
 -- ----------------------------
 ALTER TABLE "public"."sys_file" ADD CONSTRAINT "sys_file_pkey" PRIMARY KEY ("id");
 
+-- ----------------------------
+-- Indexes structure for table sys_file
+-- ----------------------------
+CREATE INDEX "idx_sys_file_created_at_id" ON "public"."sys_file" USING btree (
+  "created_at" "pg_catalog"."timestamp_ops" DESC NULLS FIRST,
+  "id" "pg_catalog"."int8_ops" DESC NULLS FIRST
+);
+
 -- ----------------------------
 -- Primary Key structure for table sys_menu
 -- ----------------------------
@@ -276,6 +316,14 @@ ALTER TABLE "public"."sys_menu" ADD CONSTRAINT "sys_menu_pkey" PRIMARY KEY ("id"
 -- ----------------------------
 ALTER TABLE "public"."sys_op_log" ADD CONSTRAINT "sys_op_log_pkey" PRIMARY KEY ("id");
 
+-- ----------------------------
+-- Indexes structure for table sys_op_log
+-- ----------------------------
+CREATE INDEX "idx_sys_op_log_createdat_id" ON "public"."sys_op_log" USING btree (
+  "createdat" "pg_catalog"."timestamp_ops" DESC NULLS FIRST,
+  "id" "pg_catalog"."int8_ops" DESC NULLS FIRST
+);
+
 -- ----------------------------
 -- Primary Key structure for table sys_permission
 -- ----------------------------
@@ -312,6 +360,17 @@ ALTER TABLE "public"."sys_user" ADD CONSTRAINT "chk_sys_user_gender" CHECK (gend
 -- ----------------------------
 ALTER TABLE "public"."sys_user" ADD CONSTRAINT "sys_user_pkey" PRIMARY KEY ("id");
 
+-- ----------------------------
+-- Indexes structure for table sys_user
+-- ----------------------------
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX "idx_sys_user_username_trgm" ON "public"."sys_user" USING gin (
+  "username" gin_trgm_ops
+);
+CREATE INDEX "idx_sys_user_nickname_trgm" ON "public"."sys_user" USING gin (
+  "nickname" gin_trgm_ops
+);
+
 -- ----------------------------
 -- Primary Key structure for table sys_user_role
 -- ----------------------------
@@ -161,6 +161,14 @@ COMMENT ON INDEX "public"."uk_record_date_squad_code" IS '日期和中队唯一
 -- ----------------------------
 ALTER TABLE "public"."road_inspection_record" ADD CONSTRAINT "road_inspection_record_pkey" PRIMARY KEY ("id");
 
+-- ----------------------------
+-- Indexes structure for table road_inspection_record
+-- ----------------------------
+CREATE INDEX "idx_road_inspection_record_created_at_id" ON "public"."road_inspection_record" USING btree (
+  "created_at" "pg_catalog"."timestamp_ops" DESC NULLS FIRST,
+  "id" "pg_catalog"."int8_ops" DESC NULLS FIRST
+);
+
 -- ----------------------------
 -- Foreign Keys structure for table road_inspection_handling_detail
 -- ----------------------------
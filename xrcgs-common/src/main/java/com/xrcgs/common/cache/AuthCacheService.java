@@ -2,6 +2,8 @@ package com.xrcgs.common.cache;
 
 import com.xrcgs.iam.datascope.EffectiveDataScope;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 public interface AuthCacheService {
@@ -9,6 +11,26 @@ public interface AuthCacheService {
     Set<String> getCachedUserPerms(Long userId);
     void evictUserPerms(Long userId);
 
+    /** 批量读取用户权限（一次往返）；未缓存的用户不出现在结果中 */
+    Map<Long, Set<String>> multiGetUserPerms(Collection<Long> userIds);
+
+    /** 批量失效用户权限与数据范围缓存（角色变更时使用，一次往返） */
+    void evictUserAuth(Collection<Long> userIds);
+
+    /** 批量写入用户权限与数据范围（后台重建使用，pipeline 一次往返）；空权限集合不写入，与单个写入一致 */
+    void cacheUserAuth(Map<Long, Set<String>> permsByUser, Map<Long, EffectiveDataScope> scopesByUser);
+
+    /** 批量读取角色权限集合（一次往返）；未缓存的角色不出现在结果中，已缓存的空集合返回空 Set */
+    Map<Long, Set<String>> multiGetRolePerms(Collection<Long> roleIds);
+    /** 批量写入角色权限集合（一次往返），空集合也会缓存 */
+    void cacheRolePerms(Map<Long, Set<String>> permsByRole);
+    /** 角色菜单/权限授权变更时失效 */
+    void evictRolePerms(Collection<Long> roleIds);
+
+    /** 按内容哈希缓存权限集合（同一集合的多个用户/令牌共享一份） */
+    void cachePermSet(String hash, Set<String> perms);
+    Set<String> getCachedPermSet(String hash);
+
     void cacheUserDataScope(Long userId, EffectiveDataScope scope);
     EffectiveDataScope getCachedUserDataScope(Long userId);
     void evictUserDataScope(Long userId);
@@ -17,7 +39,33 @@ public interface AuthCacheService {
     String getCachedMenuTreeByRole(Long roleId);
     void evictMenuTreeByRole(Long roleId);
 
+    /**
+     * 字典负缓存标记：类型不存在或已停用时以此值写入同一键（全局键或 {type}:{version} 范围键），
+     * 实现按短 TTL 保存，避免对无效类型的重复请求每次都回源；类型写入时的覆盖/删除与版本递增会使其立即失效
+     */
+    String DICT_ABSENT = "{}";
+
     void cacheDict(String typeCode, String json);
     String getCachedDict(String typeCode);
     void evictDict(String typeCode); // 移除缓存
+
+    /** 批量写入字典（typeCode -> json，可含 {@link #DICT_ABSENT}），一次往返 */
+    void cacheDicts(Map<String, String> jsonByType);
+    /** 批量读取字典；未缓存的类型不出现在结果中 */
+    Map<String, String> multiGetDicts(Collection<String> typeCodes);
+    void evictDicts(Collection<String> typeCodes);
+
+    /** 批量读取字典版本号（一次往返）；从未变更过的类型为 0 */
+    Map<String, Long> multiGetDictVersions(Collection<String> typeCodes);
+    /** 递增字典版本号：旧版本下按数据范围缓存的结果随之失效 */
+    void bumpDictVersions(Collection<String> typeCodes);
+    /** 批量读取按数据范围缓存的字典（key 为 typeCode + 版本 + 范围指纹）；未缓存的类型不出现在结果中 */
+    Map<String, String> multiGetScopedDicts(Map<String, Long> versions, String fingerprint);
+    /** 批量写入按数据范围缓存的字典（一次往返）；versions 需为回源前读取的版本 */
+    void cacheScopedDicts(Map<String, Long> versions, String fingerprint, Map<String, String> jsonByType);
+
+    /** 进程内一级缓存各区域统计（命中率等）；无本地缓存的实现返回空 */
+    default Map<String, Map<String, Object>> localCacheStats() {
+        return Map.of();
+    }
 }
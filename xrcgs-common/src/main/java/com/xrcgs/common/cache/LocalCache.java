@@ -0,0 +1,153 @@
+package com.xrcgs.common.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 进程内有界 TTL 缓存（作为 Redis 之上的一级缓存）
+ * - 每个条目写入时记录过期时间，读取时过期即剔除
+ * - 条目数超过 maxSize 时先清理过期条目，再淘汰最早写入的一批（约 1/4）
+ * - 只缓存非 null 值；null 视为未命中，由调用方回源 Redis
+ * - 统计命中/未命中/淘汰次数，便于按区域观察命中率
+ */
+public class LocalCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final Map<K, Entry<V>> map = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private record Entry<V>(V value, long expiresAt, long writtenAt) {
+    }
+
+    /**
+     * @param maxSize   最大条目数，&lt;= 0 表示禁用（所有读取均未命中）
+     * @param ttlMillis 条目存活毫秒数，&lt;= 0 表示不过期（依赖主动失效）
+     */
+    public LocalCache(String name, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public V get(K key) {
+        if (!isEnabled() || key == null) {
+            return null;
+        }
+        Entry<V> e = map.get(key);
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        if (e.expiresAt() <= System.currentTimeMillis()) {
+            map.remove(key, e);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.value();
+    }
+
+    /** 本地未命中时调用 loader（通常为 Redis 读取），非 null 结果写入本地 */
+    public V get(K key, Function<K, V> loader) {
+        V v = get(key);
+        if (v != null || key == null) {
+            return v;
+        }
+        v = loader.apply(key);
+        put(key, v);
+        return v;
+    }
+
+    public void put(K key, V value) {
+        if (!isEnabled() || key == null || value == null) {
+            return;
+        }
+        if (map.size() >= maxSize) {
+            shrink();
+        }
+        long now = System.currentTimeMillis();
+        long expiresAt = ttlMillis > 0 ? now + ttlMillis : Long.MAX_VALUE;
+        map.put(key, new Entry<>(value, expiresAt, System.nanoTime()));
+    }
+
+    public void invalidate(K key) {
+        if (key != null) {
+            map.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        map.clear();
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", map.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlMs", ttlMillis);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRatio", h + m == 0 ? 0d : (double) h / (h + m));
+        return stats;
+    }
+
+    private synchronized void shrink() {
+        if (map.size() < maxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().expiresAt() <= now) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+        if (map.size() < maxSize) {
+            return;
+        }
+        int toRemove = Math.max(1, map.size() - maxSize + maxSize / 4);
+        map.entrySet().stream()
+                .sorted((a, b) -> Long.compare(a.getValue().writtenAt(), b.getValue().writtenAt()))
+                .limit(toRemove)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(k -> {
+                    if (map.remove(k) != null) {
+                        evictions.increment();
+                    }
+                });
+    }
+}
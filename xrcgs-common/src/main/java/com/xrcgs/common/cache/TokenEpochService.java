@@ -0,0 +1,22 @@
+package com.xrcgs.common.cache;
+
+import java.util.Collection;
+
+/**
+ * 用户令牌纪元
+ * 签发令牌时写入当前纪元，校验时低于最新纪元的令牌视为已吊销。
+ * 禁用用户、变更角色/权限时只需把纪元 +1，即可 O(1) 吊销其全部在途令牌，无需逐个 jti 拉黑。
+ */
+public interface TokenEpochService {
+
+    /** 当前纪元，从未吊销过的用户为 0 */
+    long currentEpoch(Long userId);
+
+    /** 绕过本地缓存直接读取最新纪元（签发令牌时使用，避免盖上过期纪元） */
+    long loadEpoch(Long userId);
+
+    /** 吊销用户在此之前签发的全部令牌 */
+    void revoke(Long userId);
+
+    void revokeAll(Collection<Long> userIds);
+}
@@ -9,14 +9,45 @@ public interface IamCacheKeys {
     String AUTH_PERM_USER = "auth:perm:"; // + {userId}
     String AUTH_SCOPE_USER = "auth:scope:"; // + {userId}
 
+    // 角色权限集合（菜单 perms + 独立权限码），用户权限为其角色集合的并集
+    String AUTH_PERM_ROLE = "auth:perm:role:"; // + {roleId}
+
+    // 权限集合内容寻址缓存（令牌只携带集合哈希时使用）
+    String AUTH_PERM_SET = "auth:permset:"; // + {hash}
+
+    // 用户令牌纪元（递增计数），低于当前纪元签发的令牌一律失效
+    String AUTH_TOKEN_EPOCH = "auth:epoch:"; // + {userId}
+    // 令牌纪元变更广播频道，消息体 "{userId}:{epoch}"，批量时逗号拼接
+    String AUTH_TOKEN_EPOCH_CHANNEL = "auth:epoch:channel";
+
+    // 本地一级缓存失效广播频道，消息体 "{nodeId}|{region}|{key}"，批量时 key 逗号拼接
+    String AUTH_CACHE_INVALIDATE_CHANNEL = "auth:cache:invalidate";
+
+    // 缓存回源跨节点互斥锁（single-flight），+ {业务 key}
+    String CACHE_LOAD_LOCK = "lock:load:";
+
     // 菜单树缓存（可按角色维度缓存）
     String MENU_TREE_ROLE = "menu:tree:"; // + {roleId} or "ALL"
 
     // 字典缓存：按 typeCode
     String DICT_TYPE = "dict:"; // + {typeCode}
+    // 字典版本号（Hash：field 为 typeCode），类型或其字典项变更时递增
+    String DICT_VERSION = "dict-scoped:version";
+    // 按数据范围缓存的字典结果，+ {typeCode}:{version}:{scopeFingerprint}；内容随版本不可变，靠 TTL 回收
+    String DICT_SCOPED = "dict-scoped:";
 
     // 部门树版本号，用于通知前端刷新组织架构缓存
     String DEPT_TREE_VERSION = "iam:dept:treeVersion";
+    // 部门树版本变更广播频道，消息体为新版本号；各节点据此更新本地版本水位
+    String DEPT_TREE_VERSION_CHANNEL = "iam:dept:treeVersion:channel";
+
+    // 角色数据范围描述符失效广播频道，消息体为 roleId；各节点据此清理本地注册表
+    String ROLE_SCOPE_INVALIDATE_CHANNEL = "iam:role:scope:channel";
+
+    // 后台重建开关（集群共享），值为 1/0；缺省时各节点使用配置文件中的初始值
+    String REMATERIALIZE_ENABLED = "iam:rematerialize:enabled";
+    // 后台重建开关广播频道，消息体为 1/0；各节点据此同步本地开关
+    String REMATERIALIZE_SWITCH_CHANNEL = "iam:rematerialize:switch:channel";
 
     // 部门数据范围缓存前缀，+ {deptId}
     String DEPT_SCOPE = "iam:dept:scope:";
@@ -0,0 +1,68 @@
+package com.xrcgs.common.core;
+
+import lombok.Data;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果
+ * 结构：{ "records": [...], "nextCursor": "...", "hasMore": true, "total": 1234 }
+ * - 每页多取一行判断 hasMore，不执行 COUNT
+ * - total 仅在首页且调用方显式请求时统计一次，翻页期间数据变化不再重算（近似值），未请求时为 null
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_SIZE = 10;
+    public static final int MAX_SIZE = 200;
+
+    private List<T> records;
+    /** 下一页游标；没有更多数据时为 null */
+    private String nextCursor;
+    private boolean hasMore;
+    private Long total;
+
+    /**
+     * @param rows     按排序取出的至多 size + 1 行（多出的一行只用于判断 hasMore）
+     * @param cursorOf 由本页最后一行生成游标，通常为 {@link KeysetCursor#encode(Object, long)}
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<? super T, String> cursorOf) {
+        CursorPage<T> page = new CursorPage<>();
+        List<T> list = rows == null ? List.of() : rows;
+        boolean hasMore = list.size() > size;
+        List<T> records = hasMore ? new ArrayList<>(list.subList(0, size)) : new ArrayList<>(list);
+        page.setRecords(records);
+        page.setHasMore(hasMore);
+        page.setNextCursor(hasMore && !records.isEmpty() ? cursorOf.apply(records.get(records.size() - 1)) : null);
+        return page;
+    }
+
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        CursorPage<R> page = new CursorPage<>();
+        List<R> mapped = new ArrayList<>(records == null ? 0 : records.size());
+        if (records != null) {
+            for (T record : records) {
+                mapped.add(mapper.apply(record));
+            }
+        }
+        page.setRecords(mapped);
+        page.setNextCursor(nextCursor);
+        page.setHasMore(hasMore);
+        page.setTotal(total);
+        return page;
+    }
+
+    /** 每页条数归一到 [1, MAX_SIZE] */
+    public static int normalizeSize(long size) {
+        if (size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return (int) Math.min(size, MAX_SIZE);
+    }
+}
@@ -0,0 +1,53 @@
+package com.xrcgs.common.core;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集分页游标：（排序键, id）编码为不透明的 Base64URL 串
+ * - 排序键取上一页最后一行的排序列值（时间列用 ISO-8601 文本），id 作为同值时的决胜列
+ * - 排序列为 null 时编码为空排序键，调用方据 {@link #hasSortKey()} 改为只按 id 续翻排序列为空的行
+ * - 客户端只回传，不解析；格式不合法时抛 IllegalArgumentException
+ */
+public record KeysetCursor(String sortKey, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static String encode(Object sortKey, long id) {
+        String raw = (sortKey == null ? "" : sortKey.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** 空串视为首页，返回 null */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int idx = raw.lastIndexOf(SEPARATOR);
+            if (idx < 0) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            return new KeysetCursor(raw.substring(0, idx), Long.parseLong(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException 与 Base64 解码错误均为 IllegalArgumentException
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    /** 上一页最后一行的排序列是否非空 */
+    public boolean hasSortKey() {
+        return sortKey != null && !sortKey.isEmpty();
+    }
+
+    public LocalDateTime sortKeyAsDateTime() {
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
@@ -4,9 +4,20 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import java.io.Serializable;
 
+/**
+ * 已认证用户主体：除 id/用户名外携带签发令牌时的部门与数据范围指纹，
+ * 请求路径上需要“当前用户部门”时直接读取，无需回查 sys_user。
+ * scopeFingerprint 为空表示令牌未携带这些信息（旧令牌），调用方应回源。
+ */
 @Data
 @AllArgsConstructor
 public class UserPrincipal implements Serializable {
     private Long userId;
     private String username;
+    private Long deptId;
+    private String scopeFingerprint;
+
+    public UserPrincipal(Long userId, String username) {
+        this(userId, username, null, null);
+    }
 }
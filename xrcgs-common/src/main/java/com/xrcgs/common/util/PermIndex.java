@@ -0,0 +1,144 @@
+package com.xrcgs.common.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预编译的权限索引（不可变），语义与 {@link PermMatcher} 完全一致：
+ *   - 权限码按 module:resource:action 三段切分，缺省段视为 *
+ *   - 段比较忽略大小写，用户侧的 * 匹配任意值
+ * 结构：三层 trie，每段字符串映射为索引内唯一的 int ID（* 固定为 0），段字典随索引存放、随索引回收，
+ * 不做全局驻留；子节点以有序 int[] + 二分查找存储。目标权限码切分为小写三段后缓存（有上限），
+ * matches 按索引自身的段字典换成 ID，索引中不存在的段直接记为不匹配。
+ * 构建一次后 matches 只做至多 3 次字典查找与 8 次二分查找，不分配对象。
+ */
+public final class PermIndex {
+
+    private static final int WILDCARD = 0;
+    /** 索引中不存在的段：不等于任何子节点键，只能被用户侧的 * 匹配 */
+    private static final int UNKNOWN = -1;
+    /** 目标权限码多来自注解常量，数量有限；超过上限后不再缓存，避免被任意字符串撑爆 */
+    private static final int MAX_COMPILED_TARGETS = 10_000;
+    private static final Map<String, String[]> COMPILED_TARGETS = new ConcurrentHashMap<>();
+
+    private static final PermIndex EMPTY = new PermIndex(new Node(new int[0], new Node[0]), Map.of(), 0);
+
+    private final Node root;
+    private final Map<String, Integer> segmentIds;
+    private final int size;
+
+    private PermIndex(Node root, Map<String, Integer> segmentIds, int size) {
+        this.root = root;
+        this.segmentIds = segmentIds;
+        this.size = size;
+    }
+
+    public static PermIndex empty() {
+        return EMPTY;
+    }
+
+    public static PermIndex of(Collection<String> perms) {
+        if (perms == null || perms.isEmpty()) {
+            return EMPTY;
+        }
+        Builder root = new Builder();
+        Map<String, Integer> ids = new HashMap<>();
+        ids.put("*", WILDCARD);
+        int count = 0;
+        for (String p : perms) {
+            if (p == null) continue;
+            String[] seg = split(p);
+            Builder node = root;
+            for (String s : seg) {
+                node = node.child(ids.computeIfAbsent(s, k -> ids.size()));
+            }
+            count++;
+        }
+        return count == 0 ? EMPTY : new PermIndex(root.build(), ids, count);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** 编译后的权限码条数（含重复） */
+    public int size() {
+        return size;
+    }
+
+    public boolean matches(String targetPerm) {
+        if (targetPerm == null || size == 0) return false;
+        String[] t = COMPILED_TARGETS.get(targetPerm);
+        if (t == null) {
+            t = split(targetPerm);
+            if (COMPILED_TARGETS.size() < MAX_COMPILED_TARGETS) {
+                COMPILED_TARGETS.putIfAbsent(targetPerm, t);
+            }
+        }
+        return match(root, t, 0);
+    }
+
+    private boolean match(Node node, String[] t, int level) {
+        if (level == 3) return true;
+        Integer found = segmentIds.get(t[level]);
+        int id = found == null ? UNKNOWN : found;
+        Node exact = node.get(id);
+        if (exact != null && match(exact, t, level + 1)) return true;
+        if (id != WILDCARD) {
+            Node any = node.get(WILDCARD);
+            return any != null && match(any, t, level + 1);
+        }
+        return false;
+    }
+
+    /** 切分为小写三段，缺省段补 * */
+    private static String[] split(String perm) {
+        String[] arr = perm.toLowerCase(Locale.ROOT).split(":", 3);
+        return new String[]{
+                arr.length > 0 ? arr[0] : "*",
+                arr.length > 1 ? arr[1] : "*",
+                arr.length > 2 ? arr[2] : "*"
+        };
+    }
+
+    private static final class Node {
+        private final int[] keys;
+        private final Node[] children;
+
+        Node(int[] keys, Node[] children) {
+            this.keys = keys;
+            this.children = children;
+        }
+
+        Node get(int key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i >= 0 ? children[i] : null;
+        }
+    }
+
+    /** 构建期可变节点，build 时冻结为有序数组 */
+    private static final class Builder {
+        private final TreeMap<Integer, Builder> children = new TreeMap<>();
+
+        Builder child(int id) {
+            return children.computeIfAbsent(id, k -> new Builder());
+        }
+
+        Node build() {
+            int[] keys = new int[children.size()];
+            Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Builder> e : children.entrySet()) {
+                keys[i] = e.getKey();
+                nodes[i] = e.getValue().build();
+                i++;
+            }
+            return new Node(keys, nodes);
+        }
+    }
+}
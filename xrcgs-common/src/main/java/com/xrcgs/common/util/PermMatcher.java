@@ -8,6 +8,7 @@ import java.util.Set;
  *   - iam:*           -> 匹配 iam 模块下全部
  *   - iam:user:*      -> 匹配 iam:user 的所有 action
  *   - *:*:*           -> 超级通配（谨慎使用）
+ * 线性扫描的参考实现；热路径请使用预编译的 {@link PermIndex}
  */
 public final class PermMatcher {
     private PermMatcher(){}
@@ -0,0 +1,176 @@
+package com.xrcgs.iam.datascope;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * EffectiveDataScope 紧凑编码（用于 Redis 缓存，替代 Jackson JSON）
+ * 格式：PREFIX + Base64(
+ *   flags(1B: bit0=all, bit1=self, bit2=有 deptTreeVersion)
+ *   [zigzag varlong deptTreeVersion]
+ *   deptIds / subtreeRoots / directDeptIds 三段，每段：varint 个数 + 有序 ID 的差值游程编码
+ * )
+ * 差值游程编码：首个 ID 记 zigzag 值，其后每组记 varlong(gap &lt;&lt; 1 | 有连续段)，有连续段时再记 varint(连续个数)；
+ * 部门 ID 多为自增且同一子树相邻，大范围通常只需几百字节，解码不装箱。
+ * 非 PREFIX 开头的内容视为旧版 JSON，由调用方按原方式解析（灰度期间兼容）。
+ */
+public final class DataScopeCodec {
+
+    public static final String PREFIX = "ds1:";
+
+    private static final int FLAG_ALL = 1;
+    private static final int FLAG_SELF = 1 << 1;
+    private static final int FLAG_VERSION = 1 << 2;
+
+    private DataScopeCodec() {
+    }
+
+    public static boolean isCompact(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    public static String encode(EffectiveDataScope scope) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        Long version = scope.getDeptTreeVersion();
+        int flags = (scope.isAll() ? FLAG_ALL : 0) | (scope.isSelf() ? FLAG_SELF : 0)
+                | (version != null ? FLAG_VERSION : 0);
+        out.write(flags);
+        if (version != null) {
+            writeVarLong(out, zigzag(version));
+        }
+        writeIds(out, scope.sortedDeptIds());
+        writeIds(out, toSortedArray(scope.getSubtreeRoots()));
+        writeIds(out, toSortedArray(scope.getDirectDeptIds()));
+        return PREFIX + Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /**
+     * @throws IllegalArgumentException 内容不是合法的紧凑编码
+     */
+    public static EffectiveDataScope decode(String value) {
+        if (!isCompact(value)) {
+            throw new IllegalArgumentException("not a compact data scope");
+        }
+        Reader in = new Reader(Base64.getDecoder().decode(value.substring(PREFIX.length())));
+        int flags = in.readByte();
+        Long version = (flags & FLAG_VERSION) != 0 ? unzigzag(in.readVarLong()) : null;
+        long[] deptIds = readIds(in);
+        long[] roots = readIds(in);
+        long[] direct = readIds(in);
+        EffectiveDataScope scope = EffectiveDataScope.ofSortedDeptIds(
+                (flags & FLAG_ALL) != 0, (flags & FLAG_SELF) != 0, deptIds);
+        scope.setDeptTreeVersion(version);
+        if (roots.length > 0) {
+            scope.setSubtreeRoots(Arrays.stream(roots).boxed().toList());
+        }
+        if (direct.length > 0) {
+            scope.setDirectDeptIds(Arrays.stream(direct).boxed().toList());
+        }
+        return scope;
+    }
+
+    private static long[] toSortedArray(Set<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static void writeIds(ByteArrayOutputStream out, long[] sorted) {
+        writeVarLong(out, sorted.length);
+        if (sorted.length == 0) {
+            return;
+        }
+        writeVarLong(out, zigzag(sorted[0]));
+        int i = 0;
+        while (i < sorted.length) {
+            // 当前组起点 sorted[i]，向后吞并连续 ID
+            int j = i;
+            while (j + 1 < sorted.length && sorted[j + 1] == sorted[j] + 1) {
+                j++;
+            }
+            int run = j - i;
+            if (i > 0) {
+                long gap = sorted[i] - sorted[i - 1];
+                writeVarLong(out, (gap << 1) | (run > 0 ? 1 : 0));
+            } else {
+                writeVarLong(out, run > 0 ? 1 : 0);
+            }
+            if (run > 0) {
+                writeVarLong(out, run);
+            }
+            i = j + 1;
+        }
+    }
+
+    private static long[] readIds(Reader in) {
+        int count = Math.toIntExact(in.readVarLong());
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+        long prev = unzigzag(in.readVarLong());
+        int n = 0;
+        boolean first = true;
+        while (n < count) {
+            long head = in.readVarLong();
+            long current = first ? prev : prev + (head >>> 1);
+            first = false;
+            ids[n++] = current;
+            if ((head & 1) != 0) {
+                long run = in.readVarLong();
+                if (run > count - n) {
+                    throw new IllegalArgumentException("corrupt data scope run");
+                }
+                for (long k = 0; k < run; k++) {
+                    ids[n++] = ++current;
+                }
+            }
+            prev = current;
+        }
+        return ids;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int readByte() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("truncated data scope");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("malformed varint");
+        }
+    }
+}
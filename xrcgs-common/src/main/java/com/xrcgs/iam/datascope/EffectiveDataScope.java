@@ -1,7 +1,9 @@
 package com.xrcgs.iam.datascope;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
@@ -11,12 +13,22 @@ import java.util.Set;
 /**
  * 描述用户有效数据范围的结果对象
  * combining role/user level rules.
+ * deptIds 为完整展开结果；subtreeRoots + directDeptIds 为其未展开形式（子树根 + 单独部门），
+ * 用于生成基于 sys_dept_closure 的 SQL 子查询条件，避免超长 IN 列表。
+ * 从紧凑编码（{@link DataScopeCodec}）解码时 deptIds 以有序 long[] 保存，
+ * 首次调用 getDeptIds() 才装箱成 Set；containsDept 直接在数组上二分查找。
  */
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class EffectiveDataScope {
 
     private boolean all;
     private boolean self;
+    /** 完整展开的部门；为 null 表示尚未从 sortedDeptIds 物化 */
     private Set<Long> deptIds = new LinkedHashSet<>();
+    /** deptIds 的有序去重数组（不可变，可在副本间共享）；为 null 表示尚未计算 */
+    private long[] sortedDeptIds;
+    private Set<Long> subtreeRoots = new LinkedHashSet<>();
+    private Set<Long> directDeptIds = new LinkedHashSet<>();
     private Long deptTreeVersion;
 
     public EffectiveDataScope() {
@@ -61,24 +73,103 @@ public class EffectiveDataScope {
     }
 
     public Set<Long> getDeptIds() {
-        return Collections.unmodifiableSet(deptIds);
+        return Collections.unmodifiableSet(deptIdSet());
     }
 
     public void setDeptIds(Collection<Long> deptIds) {
-        this.deptIds.clear();
+        Set<Long> ids = new LinkedHashSet<>();
+        replace(ids, deptIds);
+        this.deptIds = ids;
+        this.sortedDeptIds = null;
+    }
+
+    /** 部门是否在展开范围内（不含 all / self 判断） */
+    public boolean containsDept(Long deptId) {
+        if (deptId == null) {
+            return false;
+        }
         if (deptIds == null) {
+            return Arrays.binarySearch(sortedDeptIds, deptId) >= 0;
+        }
+        return deptIds.contains(deptId);
+    }
+
+    /** 展开后的部门数，不会触发物化 */
+    public int deptCount() {
+        return deptIds == null ? sortedDeptIds.length : deptIds.size();
+    }
+
+    /** 有序去重的部门数组，供编码使用；调用方不得修改 */
+    long[] sortedDeptIds() {
+        long[] sorted = sortedDeptIds;
+        if (sorted == null) {
+            sorted = deptIds.stream().mapToLong(Long::longValue).sorted().toArray();
+            sortedDeptIds = sorted;
+        }
+        return sorted;
+    }
+
+    /** 由有序去重数组构建（不复制、不装箱） */
+    static EffectiveDataScope ofSortedDeptIds(boolean all, boolean self, long[] sortedDeptIds) {
+        EffectiveDataScope scope = new EffectiveDataScope();
+        scope.all = all;
+        scope.self = self;
+        scope.deptIds = null;
+        scope.sortedDeptIds = sortedDeptIds;
+        return scope;
+    }
+
+    private Set<Long> deptIdSet() {
+        Set<Long> ids = deptIds;
+        if (ids == null) {
+            ids = new LinkedHashSet<>(sortedDeptIds.length * 4 / 3 + 1);
+            for (long id : sortedDeptIds) {
+                ids.add(id);
+            }
+            deptIds = ids;
+        }
+        return ids;
+    }
+
+    /** 含下级的部门（DEPT_AND_CHILD 的基准部门） */
+    public Set<Long> getSubtreeRoots() {
+        return Collections.unmodifiableSet(subtreeRoots);
+    }
+
+    public void setSubtreeRoots(Collection<Long> subtreeRoots) {
+        replace(this.subtreeRoots, subtreeRoots);
+    }
+
+    /** 不含下级、单独授权的部门（DEPT / CUSTOM） */
+    public Set<Long> getDirectDeptIds() {
+        return Collections.unmodifiableSet(directDeptIds);
+    }
+
+    public void setDirectDeptIds(Collection<Long> directDeptIds) {
+        replace(this.directDeptIds, directDeptIds);
+    }
+
+    /** 是否可用"子树根 + 单独部门"代替完整展开（旧缓存数据没有该信息） */
+    @JsonIgnore
+    public boolean hasSubtreeRoots() {
+        return !subtreeRoots.isEmpty();
+    }
+
+    private static void replace(Set<Long> target, Collection<Long> source) {
+        target.clear();
+        if (source == null) {
             return;
         }
-        for (Long id : deptIds) {
+        for (Long id : source) {
             if (id != null) {
-                this.deptIds.add(id);
+                target.add(id);
             }
         }
     }
 
     @JsonIgnore
     public boolean hasDepartments() {
-        return !deptIds.isEmpty();
+        return deptCount() > 0;
     }
 
     public Long getDeptTreeVersion() {
@@ -90,7 +181,12 @@ public class EffectiveDataScope {
     }
 
     public EffectiveDataScope copy() {
-        EffectiveDataScope scope = new EffectiveDataScope(all, self, deptIds);
+        EffectiveDataScope scope = deptIds == null
+                ? ofSortedDeptIds(all, self, sortedDeptIds)
+                : new EffectiveDataScope(all, self, deptIds);
+        scope.sortedDeptIds = sortedDeptIds;
+        scope.setSubtreeRoots(subtreeRoots);
+        scope.setDirectDeptIds(directDeptIds);
         scope.setDeptTreeVersion(deptTreeVersion);
         return scope;
     }
@@ -100,7 +196,9 @@ public class EffectiveDataScope {
         return "EffectiveDataScope{" +
                 "all=" + all +
                 ", self=" + self +
-                ", deptIds=" + deptIds +
+                ", deptIds=" + deptIdSet() +
+                ", subtreeRoots=" + subtreeRoots +
+                ", directDeptIds=" + directDeptIds +
                 ", deptTreeVersion=" + deptTreeVersion +
                 '}';
     }
@@ -109,12 +207,15 @@ public class EffectiveDataScope {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof EffectiveDataScope that)) return false;
-        return all == that.all && self == that.self && Objects.equals(deptIds, that.deptIds)
+        return all == that.all && self == that.self && Arrays.equals(sortedDeptIds(), that.sortedDeptIds())
+                && Objects.equals(subtreeRoots, that.subtreeRoots)
+                && Objects.equals(directDeptIds, that.directDeptIds)
                 && Objects.equals(deptTreeVersion, that.deptTreeVersion);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(all, self, deptIds, deptTreeVersion);
+        return 31 * Objects.hash(all, self, subtreeRoots, directDeptIds, deptTreeVersion)
+                + Arrays.hashCode(sortedDeptIds());
     }
 }
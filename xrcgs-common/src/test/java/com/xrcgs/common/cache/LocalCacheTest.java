@@ -0,0 +1,73 @@
+package com.xrcgs.common.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalCacheTest {
+
+    @Test
+    void shouldCountHitsAndMisses() {
+        LocalCache<Long, String> cache = new LocalCache<>("dict", 10, 60_000);
+
+        assertNull(cache.get(1L));
+        cache.put(1L, "a");
+        assertEquals("a", cache.get(1L));
+
+        assertEquals(1L, cache.hitCount());
+        assertEquals(1L, cache.missCount());
+        assertEquals(0.5d, (double) cache.stats().get("hitRatio"));
+    }
+
+    @Test
+    void shouldExpireEntries() throws InterruptedException {
+        LocalCache<Long, String> cache = new LocalCache<>("perms", 10, 20);
+        cache.put(1L, "a");
+        Thread.sleep(40);
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldEvictOldestWhenFull() {
+        LocalCache<Integer, Integer> cache = new LocalCache<>("scope", 8, 60_000);
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, i);
+        }
+        assertTrue(cache.size() <= 8);
+        assertEquals(19, cache.get(19));
+        assertNull(cache.get(0));
+    }
+
+    @Test
+    void shouldLoadOnMissAndSkipNulls() {
+        LocalCache<String, String> cache = new LocalCache<>("menu", 10, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get("x", k -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals("v", cache.get("y", k -> {
+            loads.incrementAndGet();
+            return "v";
+        }));
+        assertEquals("v", cache.get("y", k -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void disabledCacheShouldNeverHit() {
+        LocalCache<Long, String> cache = new LocalCache<>("off", 0, 60_000);
+        cache.put(1L, "a");
+        assertNull(cache.get(1L));
+        cache.put(2L, "b");
+        cache.invalidate(2L);
+        assertEquals(0, cache.size());
+    }
+}
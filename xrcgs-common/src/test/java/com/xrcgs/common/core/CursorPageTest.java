@@ -0,0 +1,47 @@
+package com.xrcgs.common.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPageTest {
+
+    @Test
+    void nullSortKeyShouldDecodeToIdOnlyCursor() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode(null, 7L));
+
+        assertFalse(cursor.hasSortKey());
+        assertEquals(7L, cursor.id());
+        assertTrue(KeysetCursor.decode(KeysetCursor.encode(LocalDateTime.now(), 7L)).hasSortKey());
+    }
+
+    @Test
+    void cursorShouldRoundTripSortKeyAndId() {
+        LocalDateTime at = LocalDateTime.of(2026, 3, 1, 8, 30, 15, 123_000_000);
+
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode(at, 42L));
+
+        assertEquals(at, cursor.sortKeyAsDateTime());
+        assertEquals(42L, cursor.id());
+        assertNull(KeysetCursor.decode(" "));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not*base64"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(KeysetCursor.encode("x", 1L).substring(1)));
+    }
+
+    @Test
+    void extraRowShouldOnlySignalHasMore() {
+        CursorPage<Long> page = CursorPage.of(List.of(9L, 8L, 7L), 2, id -> KeysetCursor.encode(id, id));
+
+        assertEquals(List.of(9L, 8L), page.getRecords());
+        assertTrue(page.isHasMore());
+        assertEquals(8L, KeysetCursor.decode(page.getNextCursor()).id());
+
+        CursorPage<String> last = CursorPage.of(List.of(1L), 2, id -> KeysetCursor.encode(id, id)).map(String::valueOf);
+        assertEquals(List.of("1"), last.getRecords());
+        assertFalse(last.isHasMore());
+        assertNull(last.getNextCursor());
+    }
+}
@@ -0,0 +1,48 @@
+package com.xrcgs.common.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * PermMatcher 线性扫描 vs PermIndex 预编译索引 的简易对比（手动运行 main）
+ * 模拟管理员级别的 600 条权限码，目标权限分别为命中/未命中两种情况。
+ */
+public class PermIndexBenchmark {
+
+    /** 线性扫描单次即为数十微秒，轮数按实现区分，避免跑数分钟 */
+    private static final int SLOW_ROUNDS = 5_000;
+    private static final int FAST_ROUNDS = 2_000_000;
+
+    public static void main(String[] args) {
+        Set<String> perms = new HashSet<>();
+        for (int m = 0; m < 10; m++) {
+            for (int r = 0; r < 15; r++) {
+                for (String a : new String[]{"list", "create", "update", "delete"}) {
+                    perms.add("mod" + m + ":res" + r + ":" + a);
+                }
+            }
+        }
+        String[] targets = {"mod9:res14:delete", "mod3:res7:export"};
+
+        // 现有实现：每次调用前从 authorities 重建 HashSet，再线性匹配
+        bench("PermMatcher(rebuild set)", SLOW_ROUNDS, targets, t -> PermMatcher.match(new HashSet<>(perms), t));
+        bench("PermMatcher", SLOW_ROUNDS, targets, t -> PermMatcher.match(perms, t));
+
+        PermIndex index = PermIndex.of(perms);
+        bench("PermIndex", FAST_ROUNDS, targets, index::matches);
+    }
+
+    private static void bench(String name, int rounds, String[] targets,
+                              java.util.function.Predicate<String> check) {
+        boolean sink = false;
+        for (int i = 0; i < rounds / 5; i++) {
+            sink ^= check.test(targets[i & 1]);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink ^= check.test(targets[i & 1]);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-26s %10.1f ns/op (sink=%s)%n", name, (double) elapsed / rounds, sink);
+    }
+}
@@ -0,0 +1,73 @@
+package com.xrcgs.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermIndexTest {
+
+    @Test
+    void shouldMatchExactAndWildcardPerms() {
+        PermIndex index = PermIndex.of(Set.of("iam:user:list", "iam:role:*", "file:*"));
+
+        assertTrue(index.matches("iam:user:list"));
+        assertTrue(index.matches("IAM:User:LIST"));
+        assertTrue(index.matches("iam:role:delete"));
+        assertTrue(index.matches("file:upload:any"));
+        assertFalse(index.matches("iam:user:delete"));
+        assertFalse(index.matches("syslog:op:list"));
+        assertFalse(index.matches(null));
+    }
+
+    @Test
+    void emptyIndexShouldMatchNothing() {
+        assertTrue(PermIndex.of(null).isEmpty());
+        assertFalse(PermIndex.of(Set.of()).matches("iam:user:list"));
+    }
+
+    @Test
+    void segmentsUnknownToIndexShouldOnlyMatchWildcards() {
+        PermIndex scoped = PermIndex.of(Set.of("iam:user:list"));
+        PermIndex wildcard = PermIndex.of(Set.of("iam:*"));
+
+        // 其它索引里出现过的段不会影响本索引
+        PermIndex.of(Set.of("report:export:pdf"));
+        assertFalse(scoped.matches("report:export:pdf"));
+        assertFalse(scoped.matches("iam:user:never-seen"));
+        assertTrue(wildcard.matches("iam:never-seen:x"));
+    }
+
+    @Test
+    void shouldAgreeWithPermMatcher() {
+        String[] segs = {"iam", "user", "role", "list", "*", "Dept", "file", "x:y", ""};
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            Set<String> perms = new HashSet<>();
+            int n = random.nextInt(6);
+            for (int i = 0; i < n; i++) {
+                perms.add(randomPerm(random, segs));
+            }
+            PermIndex index = PermIndex.of(perms);
+            for (int i = 0; i < 20; i++) {
+                String target = randomPerm(random, segs);
+                assertEquals(PermMatcher.match(perms, target), index.matches(target),
+                        () -> perms + " vs " + target);
+            }
+        }
+    }
+
+    private static String randomPerm(Random random, String[] segs) {
+        int parts = 1 + random.nextInt(3);
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < parts; i++) {
+            list.add(segs[random.nextInt(segs.length)]);
+        }
+        return String.join(":", list);
+    }
+}
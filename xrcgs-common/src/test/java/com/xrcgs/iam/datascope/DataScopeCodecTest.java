@@ -0,0 +1,99 @@
+package com.xrcgs.iam.datascope;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataScopeCodecTest {
+
+    @Test
+    void shouldRoundTripAllFields() {
+        EffectiveDataScope scope = EffectiveDataScope.ofDepartments(List.of(30L, 10L, 11L, 12L, 20L), true);
+        scope.setSubtreeRoots(Set.of(10L));
+        scope.setDirectDeptIds(Set.of(20L, 30L));
+        scope.setDeptTreeVersion(42L);
+
+        String encoded = DataScopeCodec.encode(scope);
+        EffectiveDataScope decoded = DataScopeCodec.decode(encoded);
+
+        assertTrue(DataScopeCodec.isCompact(encoded));
+        assertEquals(scope, decoded);
+        assertEquals(scope.hashCode(), decoded.hashCode());
+        assertEquals(Set.of(10L, 11L, 12L, 20L, 30L), decoded.getDeptIds());
+        assertEquals(Set.of(10L), decoded.getSubtreeRoots());
+        assertEquals(Set.of(20L, 30L), decoded.getDirectDeptIds());
+        assertEquals(42L, decoded.getDeptTreeVersion());
+        assertTrue(decoded.isSelf());
+        assertFalse(decoded.isAll());
+    }
+
+    @Test
+    void shouldRoundTripSpecialScopes() {
+        assertEquals(EffectiveDataScope.all(), DataScopeCodec.decode(DataScopeCodec.encode(EffectiveDataScope.all())));
+        assertEquals(EffectiveDataScope.selfOnly(),
+                DataScopeCodec.decode(DataScopeCodec.encode(EffectiveDataScope.selfOnly())));
+        EffectiveDataScope noVersion = EffectiveDataScope.ofDepartments(Set.of(-5L, 0L, Long.MAX_VALUE), false);
+        EffectiveDataScope decoded = DataScopeCodec.decode(DataScopeCodec.encode(noVersion));
+        assertNull(decoded.getDeptTreeVersion());
+        assertEquals(noVersion.getDeptIds(), decoded.getDeptIds());
+    }
+
+    @Test
+    void shouldRoundTripRandomSets() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            Set<Long> ids = new LinkedHashSet<>();
+            int size = random.nextInt(2_000);
+            for (int i = 0; i < size; i++) {
+                ids.add((long) random.nextInt(5_000));
+            }
+            EffectiveDataScope scope = EffectiveDataScope.ofDepartments(ids, random.nextBoolean());
+            assertEquals(scope, DataScopeCodec.decode(DataScopeCodec.encode(scope)));
+        }
+    }
+
+    @Test
+    void largeContiguousScopeShouldStayCompact() {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (long id = 1_000; id < 11_000; id++) {
+            if (id % 97 != 0) {
+                ids.add(id);
+            }
+        }
+        EffectiveDataScope scope = EffectiveDataScope.ofDepartments(ids, false);
+        scope.setDeptTreeVersion(3L);
+
+        String encoded = DataScopeCodec.encode(scope);
+
+        assertTrue(encoded.length() < 600, "encoded length " + encoded.length());
+        EffectiveDataScope decoded = DataScopeCodec.decode(encoded);
+        assertTrue(decoded.containsDept(1_001L));
+        assertFalse(decoded.containsDept(1_067L));
+        assertFalse(decoded.containsDept(null));
+        assertEquals(ids.size(), decoded.deptCount());
+    }
+
+    @Test
+    void copyOfDecodedScopeShouldBeIndependent() {
+        EffectiveDataScope decoded = DataScopeCodec.decode(
+                DataScopeCodec.encode(EffectiveDataScope.ofDepartments(Set.of(1L, 2L), false)));
+        EffectiveDataScope copy = decoded.copy();
+        copy.setDeptIds(Set.of(9L));
+
+        assertEquals(Set.of(1L, 2L), decoded.getDeptIds());
+        assertTrue(copy.containsDept(9L));
+        assertFalse(copy.containsDept(1L));
+    }
+
+    @Test
+    void shouldRejectMalformedInput() {
+        assertFalse(DataScopeCodec.isCompact("{\"all\":false}"));
+        assertThrows(IllegalArgumentException.class, () -> DataScopeCodec.decode("{\"all\":false}"));
+        assertThrows(IllegalArgumentException.class, () -> DataScopeCodec.decode(DataScopeCodec.PREFIX + "AA"));
+    }
+}
@@ -12,14 +12,15 @@ import org.springframework.stereotype.Component;
  *   1) principal instanceof UserIdAware -> getId()
  *   2) principal instanceof UserDetails -> 尝试把 username 解析成 Long
  *   3) auth.getName() -> 尝试解析成 Long
+ * 部门与数据范围指纹只从 UserPrincipal / UserIdAware 读取（由令牌签发时写入）。
  */
 @Component
 public class SecurityOnlyUserIdProvider implements UserIdProvider {
 
     @Override
     public Long getCurrentUserId() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated()) {
+        Authentication auth = currentAuthentication();
+        if (auth == null) {
             return null;
         }
 
@@ -45,6 +46,40 @@ public class SecurityOnlyUserIdProvider implements UserIdProvider {
         return tryParseLong(auth.getName());
     }
 
+    @Override
+    public Long getCurrentDeptId() {
+        Object principal = currentPrincipal();
+        if (principal instanceof UserPrincipal up) {
+            return up.getDeptId();
+        }
+        if (principal instanceof UserIdAware aware) {
+            return aware.getDeptId();
+        }
+        return null;
+    }
+
+    @Override
+    public String getCurrentScopeFingerprint() {
+        Object principal = currentPrincipal();
+        if (principal instanceof UserPrincipal up) {
+            return up.getScopeFingerprint();
+        }
+        if (principal instanceof UserIdAware aware) {
+            return aware.getScopeFingerprint();
+        }
+        return null;
+    }
+
+    private Authentication currentAuthentication() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null || !auth.isAuthenticated() ? null : auth;
+    }
+
+    private Object currentPrincipal() {
+        Authentication auth = currentAuthentication();
+        return auth == null ? null : auth.getPrincipal();
+    }
+
     private Long tryParseLong(String s) {
         if (s == null || s.isBlank()) return null;
         try { return Long.parseLong(s.trim()); } catch (Exception ignore) { return null; }
@@ -3,4 +3,14 @@ package com.xrcgs.infrastructure.audit;
 /** 让你的登录用户对象实现该接口，方便跨模块直接拿 Long ID */
 public interface UserIdAware {
     Long getId();
+
+    /** 所属部门，可选实现 */
+    default Long getDeptId() {
+        return null;
+    }
+
+    /** 数据范围指纹，可选实现；非空时 {@link #getDeptId()} 视为可信（即使为 null） */
+    default String getScopeFingerprint() {
+        return null;
+    }
 }
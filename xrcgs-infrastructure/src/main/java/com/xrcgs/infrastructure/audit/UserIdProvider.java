@@ -3,4 +3,14 @@ package com.xrcgs.infrastructure.audit;
 /** 获取当前登录用户ID的统一入口（Long） */
 public interface UserIdProvider {
     Long getCurrentUserId();
+
+    /** 当前用户所属部门（来自令牌）；未知时返回 null，调用方需结合 {@link #getCurrentScopeFingerprint()} 判断是否回源 */
+    default Long getCurrentDeptId() {
+        return null;
+    }
+
+    /** 当前用户的数据范围指纹（部门 + 角色）；令牌未携带时返回 null */
+    default String getCurrentScopeFingerprint() {
+        return null;
+    }
 }
@@ -0,0 +1,50 @@
+package com.xrcgs.infrastructure.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 认证相关缓存的进程内一级缓存（L1）配置，Redis 仍为二级缓存（L2）
+ * 各区域独立配置容量与 TTL；跨节点失效依赖 pub/sub 广播，TTL 仅作兜底
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.cache.local")
+public class AuthCacheProperties {
+    /** 关闭后所有读写直接走 Redis */
+    private boolean enabled = true;
+
+    /** 用户权限集合 */
+    private Region perms = new Region(10000, 60_000);
+    /** 角色权限集合（用户权限由其角色集合并集得到） */
+    private Region rolePerms = new Region(1000, 60_000);
+    /** 权限集合内容寻址缓存（内容不可变，可长期保留） */
+    private Region permSet = new Region(4096, 600_000);
+    /** 用户数据范围 */
+    private Region dataScope = new Region(10000, 60_000);
+    /** 角色菜单树 */
+    private Region menuTree = new Region(1000, 60_000);
+    /** 字典 */
+    private Region dict = new Region(2000, 300_000);
+    /** 字典版本号 */
+    private Region dictVersion = new Region(2000, 300_000);
+    /** 按数据范围缓存的字典（内容随版本不可变） */
+    private Region dictScoped = new Region(4000, 300_000);
+
+    @Data
+    public static class Region {
+        /** 最大条目数，0 表示该区域不启用本地缓存 */
+        private int maxSize;
+        /** 本地条目存活毫秒数 */
+        private long ttlMs;
+
+        public Region() {
+        }
+
+        public Region(int maxSize, long ttlMs) {
+            this.maxSize = maxSize;
+            this.ttlMs = ttlMs;
+        }
+    }
+}
@@ -2,28 +2,61 @@ package com.xrcgs.infrastructure.cache;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.common.cache.LocalCache;
 import com.xrcgs.common.constants.IamCacheKeys;
+import com.xrcgs.iam.datascope.DataScopeCodec;
 import com.xrcgs.iam.datascope.EffectiveDataScope;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import org.apache.ibatis.jdbc.Null;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 
 
 /**
  * 角色权限调用缓存
  * 权限集合改为 Redis Set 存储，避免拼接分隔符导致的边界问题；支持天然去重。
  * 菜单树/字典仍用 String（JSON）存储，前后端都直观。
+ * 受数据范围限制的字典按 (typeCode, 字典版本, 范围指纹) 缓存：版本递增即整体失效，条目本身不可变。
  *
+ * 两级缓存：Redis 之前加一层进程内 LocalCache（按区域配置容量/TTL，见 auth.cache.local.*）
+ * - 读：先本地，未命中读 Redis 并回填本地
+ * - 写/删：先写 Redis，再更新本地，并通过 pub/sub 广播让其它节点丢弃本地副本
+ * - 本地副本对调用方只读：集合返回不可变副本，数据范围返回 copy()
+ *
+ * 批量接口：多 key 读写走 pipeline / MGET / MSET，失效广播与删除同一次往返发出；
+ * 权限集合整体替换用 Lua 脚本（DEL + SADD + PEXPIRE 原子执行，一次往返）
  */
 @Service
 public class AuthCacheServiceImpl implements AuthCacheService {
 
     @Resource
     private StringRedisTemplate stringRedisTemplate;
+    @Resource
+    private RedisMessageListenerContainer listenerContainer;
+    @Resource
+    private AuthCacheProperties props;
 
     // 建议与 JWT 过期时间对齐（示例：8小时）
     private static final Duration PERM_TTL = Duration.ofHours(8);
@@ -35,32 +68,360 @@ public class AuthCacheServiceImpl implements AuthCacheService {
      * 字典缓存采用常驻策略（不再设置过期时间）。
      */
     private static final Duration DICT_TTL      = null;
+    /** 按数据范围缓存的字典以版本寻址，旧版本条目无人再读，靠 TTL 回收 */
+    private static final Duration DICT_SCOPED_TTL = Duration.ofMinutes(30);
+    /** 不存在/停用类型的负缓存：只挡住重复回源，过期后重新确认 */
+    private static final Duration DICT_ABSENT_TTL = Duration.ofMinutes(1);
     private static final Duration DATA_SCOPE_TTL = Duration.ofHours(8);
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    /** 单条 DEL 携带的最大 key 数，避免超大命令阻塞 Redis */
+    private static final int DEL_CHUNK = 500;
+
+    /** KEYS[1]=集合 key，ARGV[1]=过期毫秒，ARGV[2..]=成员；分段 SADD 规避 unpack 参数上限 */
+    private static final DefaultRedisScript<Long> REPLACE_SET_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) "
+                    + "for i = 2, #ARGV, 1000 do "
+                    + "redis.call('SADD', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV))) "
+                    + "end "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[1]) "
+                    + "return #ARGV - 1",
+            Long.class);
+
+    static final String REGION_PERMS = "perms";
+    static final String REGION_ROLE_PERMS = "rolePerms";
+    static final String REGION_PERM_SET = "permSet";
+    static final String REGION_DATA_SCOPE = "dataScope";
+    static final String REGION_MENU_TREE = "menuTree";
+    static final String REGION_DICT = "dict";
+    static final String REGION_DICT_VERSION = "dictVersion";
+    static final String REGION_DICT_SCOPED = "dictScoped";
+
+    /** 本节点标识：忽略自己发出的失效广播，避免刚写入的本地条目被清掉 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private LocalCache<Long, Set<String>> permsL1;
+    private LocalCache<Long, Set<String>> rolePermsL1;
+    private LocalCache<String, Set<String>> permSetL1;
+    private LocalCache<Long, EffectiveDataScope> dataScopeL1;
+    private LocalCache<Long, String> menuTreeL1;
+    private LocalCache<String, String> dictL1;
+    private LocalCache<String, Long> dictVersionL1;
+    private LocalCache<String, String> dictScopedL1;
+
+    @PostConstruct
+    void init() {
+        boolean on = props.isEnabled();
+        permsL1 = region(REGION_PERMS, props.getPerms(), on);
+        rolePermsL1 = region(REGION_ROLE_PERMS, props.getRolePerms(), on);
+        permSetL1 = region(REGION_PERM_SET, props.getPermSet(), on);
+        dataScopeL1 = region(REGION_DATA_SCOPE, props.getDataScope(), on);
+        menuTreeL1 = region(REGION_MENU_TREE, props.getMenuTree(), on);
+        dictL1 = region(REGION_DICT, props.getDict(), on);
+        dictVersionL1 = region(REGION_DICT_VERSION, props.getDictVersion(), on);
+        dictScopedL1 = region(REGION_DICT_SCOPED, props.getDictScoped(), on);
+        if (on) {
+            listenerContainer.addMessageListener(this::onMessage,
+                    new ChannelTopic(IamCacheKeys.AUTH_CACHE_INVALIDATE_CHANNEL));
+        }
+    }
+
+    private static <K, V> LocalCache<K, V> region(String name, AuthCacheProperties.Region cfg, boolean enabled) {
+        return new LocalCache<>(name, enabled ? cfg.getMaxSize() : 0, cfg.getTtlMs());
+    }
+
 
     @Override
     public void cacheUserPerms(Long userId, Set<String> perms) {
         String key = IamCacheKeys.AUTH_PERM_USER + userId;
         // 用 Redis Set 存储权限集合，避免逗号拼接问题
         if (perms != null && !perms.isEmpty()) {
-            stringRedisTemplate.delete(key);
-            stringRedisTemplate.opsForSet().add(key, perms.toArray(String[]::new));
-            stringRedisTemplate.expire(key, PERM_TTL);
+            List<String> args = new ArrayList<>(perms.size() + 1);
+            args.add(String.valueOf(PERM_TTL.toMillis()));
+            args.addAll(perms);
+            stringRedisTemplate.execute(REPLACE_SET_SCRIPT, List.of(key), args.toArray());
+            permsL1.put(userId, Set.copyOf(perms));
+            publishInvalidation(REGION_PERMS, userId);
         }
     }
 
     @Override
     public Set<String> getCachedUserPerms(Long userId) {
+        Set<String> local = permsL1.get(userId);
+        if (local != null) {
+            return local;
+        }
         String key = IamCacheKeys.AUTH_PERM_USER + userId;
         Set<String> members = stringRedisTemplate.opsForSet().members(key);
-        return (members == null || members.isEmpty()) ? null : members;
+        if (members == null || members.isEmpty()) {
+            return null;
+        }
+        Set<String> perms = Set.copyOf(members);
+        permsL1.put(userId, perms);
+        return perms;
     }
 
     @Override
     public void evictUserPerms(Long userId) {
         stringRedisTemplate.delete(IamCacheKeys.AUTH_PERM_USER + userId);
+        permsL1.invalidate(userId);
+        publishInvalidation(REGION_PERMS, userId);
+    }
+
+    @Override
+    public Map<Long, Set<String>> multiGetUserPerms(Collection<Long> userIds) {
+        Map<Long, Set<String>> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        List<Long> misses = new ArrayList<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            if (userId == null) {
+                continue;
+            }
+            Set<String> local = permsL1.get(userId);
+            if (local != null) {
+                result.put(userId, local);
+            } else {
+                misses.add(userId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+        List<Object> replies = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : misses) {
+                connection.setCommands().sMembers(bytes(IamCacheKeys.AUTH_PERM_USER + userId));
+            }
+            return null;
+        });
+        for (int i = 0; i < misses.size() && i < replies.size(); i++) {
+            if (replies.get(i) instanceof Set<?> members && !members.isEmpty()) {
+                Set<String> perms = new LinkedHashSet<>(members.size());
+                for (Object m : members) {
+                    perms.add(String.valueOf(m));
+                }
+                Set<String> frozen = Set.copyOf(perms);
+                permsL1.put(misses.get(i), frozen);
+                result.put(misses.get(i), frozen);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void evictUserAuth(Collection<Long> userIds) {
+        List<String> ids = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        if (userIds != null) {
+            for (Long userId : new LinkedHashSet<>(userIds)) {
+                if (userId == null) {
+                    continue;
+                }
+                ids.add(String.valueOf(userId));
+                keys.add(IamCacheKeys.AUTH_PERM_USER + userId);
+                keys.add(IamCacheKeys.AUTH_SCOPE_USER + userId);
+                permsL1.invalidate(userId);
+                dataScopeL1.invalidate(userId);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        // 删除与两条失效广播放在同一个 pipeline：5000 个用户也只需一次往返
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            deleteInChunks(connection, keys);
+            publishInPipeline(connection, REGION_PERMS, ids);
+            publishInPipeline(connection, REGION_DATA_SCOPE, ids);
+            return null;
+        });
+    }
+
+    @Override
+    public void cacheUserAuth(Map<Long, Set<String>> permsByUser, Map<Long, EffectiveDataScope> scopesByUser) {
+        Map<Long, Set<String>> perms = new LinkedHashMap<>();
+        if (permsByUser != null) {
+            permsByUser.forEach((userId, set) -> {
+                if (userId != null && set != null && !set.isEmpty()) {
+                    perms.put(userId, Set.copyOf(set));
+                }
+            });
+        }
+        Map<Long, EffectiveDataScope> localScopes = new LinkedHashMap<>();
+        Map<Long, String> scopes = new LinkedHashMap<>();
+        if (scopesByUser != null) {
+            scopesByUser.forEach((userId, scope) -> {
+                if (userId != null && scope != null) {
+                    localScopes.put(userId, scope.copy());
+                    scopes.put(userId, DataScopeCodec.encode(scope));
+                }
+            });
+        }
+        if (perms.isEmpty() && scopes.isEmpty()) {
+            return;
+        }
+        byte[] permTtl = bytes(String.valueOf(PERM_TTL.toMillis()));
+        // 每个权限集合用同一段替换脚本（DEL + SADD + PEXPIRE 原子执行），与数据范围 SET、失效广播同一次往返
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] script = bytes(REPLACE_SET_SCRIPT.getScriptAsString());
+            for (Map.Entry<Long, Set<String>> e : perms.entrySet()) {
+                byte[][] keysAndArgs = new byte[e.getValue().size() + 2][];
+                keysAndArgs[0] = bytes(IamCacheKeys.AUTH_PERM_USER + e.getKey());
+                keysAndArgs[1] = permTtl;
+                int i = 2;
+                for (String p : e.getValue()) {
+                    keysAndArgs[i++] = bytes(p);
+                }
+                connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1, keysAndArgs);
+            }
+            for (Map.Entry<Long, String> e : scopes.entrySet()) {
+                connection.stringCommands().set(bytes(IamCacheKeys.AUTH_SCOPE_USER + e.getKey()), bytes(e.getValue()),
+                        Expiration.from(DATA_SCOPE_TTL), RedisStringCommands.SetOption.upsert());
+            }
+            publishInPipeline(connection, REGION_PERMS, perms.keySet().stream().map(String::valueOf).toList());
+            publishInPipeline(connection, REGION_DATA_SCOPE, scopes.keySet().stream().map(String::valueOf).toList());
+            return null;
+        });
+        perms.forEach(permsL1::put);
+        localScopes.forEach(dataScopeL1::put);
+    }
+
+    @Override
+    public Map<Long, Set<String>> multiGetRolePerms(Collection<Long> roleIds) {
+        Map<Long, Set<String>> result = new HashMap<>();
+        if (roleIds == null || roleIds.isEmpty()) {
+            return result;
+        }
+        List<Long> misses = new ArrayList<>();
+        for (Long roleId : new LinkedHashSet<>(roleIds)) {
+            if (roleId == null) {
+                continue;
+            }
+            Set<String> local = rolePermsL1.get(roleId);
+            if (local != null) {
+                result.put(roleId, local);
+            } else {
+                misses.add(roleId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+        List<Object> replies = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long roleId : misses) {
+                connection.setCommands().sMembers(bytes(IamCacheKeys.AUTH_PERM_ROLE + roleId));
+            }
+            return null;
+        });
+        for (int i = 0; i < misses.size() && i < replies.size(); i++) {
+            if (replies.get(i) instanceof Set<?> members && !members.isEmpty()) {
+                Set<String> perms = new LinkedHashSet<>(members.size());
+                for (Object m : members) {
+                    String p = String.valueOf(m);
+                    // "" 为空集合占位成员
+                    if (!p.isEmpty()) {
+                        perms.add(p);
+                    }
+                }
+                Set<String> frozen = Set.copyOf(perms);
+                rolePermsL1.put(misses.get(i), frozen);
+                result.put(misses.get(i), frozen);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void cacheRolePerms(Map<Long, Set<String>> permsByRole) {
+        if (permsByRole == null || permsByRole.isEmpty()) {
+            return;
+        }
+        Map<Long, Set<String>> frozen = new LinkedHashMap<>();
+        permsByRole.forEach((roleId, perms) -> {
+            if (roleId != null) {
+                frozen.put(roleId, perms == null ? Set.of() : Set.copyOf(perms));
+            }
+        });
+        byte[] ttl = bytes(String.valueOf(PERM_TTL.toMillis()));
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] script = bytes(REPLACE_SET_SCRIPT.getScriptAsString());
+            for (Map.Entry<Long, Set<String>> e : frozen.entrySet()) {
+                Set<String> perms = e.getValue();
+                // 空集合写入占位成员以便区分"未缓存"
+                byte[][] keysAndArgs = new byte[Math.max(1, perms.size()) + 2][];
+                keysAndArgs[0] = bytes(IamCacheKeys.AUTH_PERM_ROLE + e.getKey());
+                keysAndArgs[1] = ttl;
+                if (perms.isEmpty()) {
+                    keysAndArgs[2] = bytes("");
+                } else {
+                    int i = 2;
+                    for (String p : perms) {
+                        keysAndArgs[i++] = bytes(p);
+                    }
+                }
+                connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1, keysAndArgs);
+            }
+            publishInPipeline(connection, REGION_ROLE_PERMS, frozen.keySet().stream().map(String::valueOf).toList());
+            return null;
+        });
+        frozen.forEach(rolePermsL1::put);
+    }
+
+    @Override
+    public void evictRolePerms(Collection<Long> roleIds) {
+        List<String> ids = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        if (roleIds != null) {
+            for (Long roleId : new LinkedHashSet<>(roleIds)) {
+                if (roleId == null) {
+                    continue;
+                }
+                ids.add(String.valueOf(roleId));
+                keys.add(IamCacheKeys.AUTH_PERM_ROLE + roleId);
+                rolePermsL1.invalidate(roleId);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            deleteInChunks(connection, keys);
+            publishInPipeline(connection, REGION_ROLE_PERMS, ids);
+            return null;
+        });
+    }
+
+    @Override
+    public void cachePermSet(String hash, Set<String> perms) {
+        if (hash == null || perms == null) {
+            return;
+        }
+        String key = IamCacheKeys.AUTH_PERM_SET + hash;
+        // 内容寻址：同哈希内容必然相同，只需续期；空集合写入占位成员以便区分"未缓存"
+        stringRedisTemplate.opsForSet().add(key, perms.isEmpty() ? new String[]{""} : perms.toArray(String[]::new));
+        stringRedisTemplate.expire(key, PERM_TTL);
+        // 内容不可变，无需广播失效
+        permSetL1.put(hash, Set.copyOf(perms));
+    }
+
+    @Override
+    public Set<String> getCachedPermSet(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        Set<String> local = permSetL1.get(hash);
+        if (local != null) {
+            return local;
+        }
+        Set<String> members = stringRedisTemplate.opsForSet().members(IamCacheKeys.AUTH_PERM_SET + hash);
+        if (members == null || members.isEmpty()) {
+            return null;
+        }
+        members.remove("");
+        Set<String> perms = Set.copyOf(members);
+        permSetL1.put(hash, perms);
+        return perms;
     }
 
     @Override
@@ -69,9 +430,10 @@ public class AuthCacheServiceImpl implements AuthCacheService {
             return;
         }
         try {
-            String json = OBJECT_MAPPER.writeValueAsString(scope);
             stringRedisTemplate.opsForValue()
-                    .set(IamCacheKeys.AUTH_SCOPE_USER + userId, json, DATA_SCOPE_TTL);
+                    .set(IamCacheKeys.AUTH_SCOPE_USER + userId, DataScopeCodec.encode(scope), DATA_SCOPE_TTL);
+            dataScopeL1.put(userId, scope.copy());
+            publishInvalidation(REGION_DATA_SCOPE, userId);
         } catch (Exception ignored) {
         }
     }
@@ -81,13 +443,22 @@ public class AuthCacheServiceImpl implements AuthCacheService {
         if (userId == null) {
             return null;
         }
+        EffectiveDataScope local = dataScopeL1.get(userId);
+        if (local != null) {
+            return local.copy();
+        }
         try {
-            String json = stringRedisTemplate.opsForValue()
+            String value = stringRedisTemplate.opsForValue()
                     .get(IamCacheKeys.AUTH_SCOPE_USER + userId);
-            if (json == null || json.isBlank()) {
+            if (value == null || value.isBlank()) {
                 return null;
             }
-            return OBJECT_MAPPER.readValue(json, EffectiveDataScope.class);
+            // 兼容灰度前写入的 JSON
+            EffectiveDataScope scope = DataScopeCodec.isCompact(value)
+                    ? DataScopeCodec.decode(value)
+                    : OBJECT_MAPPER.readValue(value, EffectiveDataScope.class);
+            dataScopeL1.put(userId, scope.copy());
+            return scope;
         } catch (Exception ignored) {
             return null;
         }
@@ -99,39 +470,361 @@ public class AuthCacheServiceImpl implements AuthCacheService {
             return;
         }
         stringRedisTemplate.delete(IamCacheKeys.AUTH_SCOPE_USER + userId);
+        dataScopeL1.invalidate(userId);
+        publishInvalidation(REGION_DATA_SCOPE, userId);
     }
 
     @Override
     public void cacheMenuTreeByRole(Long roleId, String json) {
         stringRedisTemplate.opsForValue()
                 .set(IamCacheKeys.MENU_TREE_ROLE + roleId, json, MENU_TREE_TTL);
+        menuTreeL1.put(roleId, json);
+        publishInvalidation(REGION_MENU_TREE, roleId);
     }
 
     @Override
     public String getCachedMenuTreeByRole(Long roleId) {
-        return stringRedisTemplate.opsForValue()
+        String local = menuTreeL1.get(roleId);
+        if (local != null) {
+            return local;
+        }
+        String json = stringRedisTemplate.opsForValue()
                 .get(IamCacheKeys.MENU_TREE_ROLE + roleId);
+        menuTreeL1.put(roleId, json);
+        return json;
     }
 
     @Override
     public void evictMenuTreeByRole(Long roleId) {
         stringRedisTemplate.delete(IamCacheKeys.MENU_TREE_ROLE + roleId);
+        menuTreeL1.invalidate(roleId);
+        publishInvalidation(REGION_MENU_TREE, roleId);
     }
 
     @Override
     public void cacheDict(String typeCode, String json) {
-        stringRedisTemplate.opsForValue()
-                .set(IamCacheKeys.DICT_TYPE + typeCode, json);
+        if (DICT_ABSENT.equals(json)) {
+            stringRedisTemplate.opsForValue()
+                    .set(IamCacheKeys.DICT_TYPE + typeCode, json, DICT_ABSENT_TTL);
+        } else {
+            stringRedisTemplate.opsForValue()
+                    .set(IamCacheKeys.DICT_TYPE + typeCode, json);
+        }
+        dictL1.put(typeCode, json);
+        publishInvalidation(REGION_DICT, typeCode);
     }
 
     @Override
     public String getCachedDict(String typeCode) {
-        return stringRedisTemplate.opsForValue()
+        String local = dictL1.get(typeCode);
+        if (local != null) {
+            return local;
+        }
+        String json = stringRedisTemplate.opsForValue()
                 .get(IamCacheKeys.DICT_TYPE + typeCode);
+        dictL1.put(typeCode, json);
+        return json;
     }
 
     @Override
     public void evictDict(String typeCode) {
         stringRedisTemplate.delete(IamCacheKeys.DICT_TYPE + typeCode);
+        dictL1.invalidate(typeCode);
+        publishInvalidation(REGION_DICT, typeCode);
+    }
+
+    @Override
+    public void cacheDicts(Map<String, String> jsonByType) {
+        if (jsonByType == null || jsonByType.isEmpty()) {
+            return;
+        }
+        Map<byte[], byte[]> tuples = new LinkedHashMap<>();
+        List<byte[]> absentKeys = new ArrayList<>();
+        List<String> codes = new ArrayList<>(jsonByType.size());
+        for (Map.Entry<String, String> e : jsonByType.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) {
+                continue;
+            }
+            if (DICT_ABSENT.equals(e.getValue())) {
+                absentKeys.add(bytes(IamCacheKeys.DICT_TYPE + e.getKey()));
+            } else {
+                tuples.put(bytes(IamCacheKeys.DICT_TYPE + e.getKey()), bytes(e.getValue()));
+            }
+            codes.add(e.getKey());
+            dictL1.put(e.getKey(), e.getValue());
+        }
+        if (codes.isEmpty()) {
+            return;
+        }
+        // 字典常驻无 TTL，可直接 MSET；负缓存单独带短 TTL 写入，与失效广播同一次往返
+        byte[] absent = bytes(DICT_ABSENT);
+        Expiration absentTtl = Expiration.from(DICT_ABSENT_TTL);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            if (!tuples.isEmpty()) {
+                connection.stringCommands().mSet(tuples);
+            }
+            for (byte[] key : absentKeys) {
+                connection.stringCommands().set(key, absent, absentTtl, RedisStringCommands.SetOption.upsert());
+            }
+            publishInPipeline(connection, REGION_DICT, codes);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, String> multiGetDicts(Collection<String> typeCodes) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (typeCodes == null || typeCodes.isEmpty()) {
+            return result;
+        }
+        List<String> misses = new ArrayList<>();
+        for (String code : new LinkedHashSet<>(typeCodes)) {
+            if (code == null) {
+                continue;
+            }
+            String local = dictL1.get(code);
+            if (local != null) {
+                result.put(code, local);
+            } else {
+                misses.add(code);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+        List<String> keys = new ArrayList<>(misses.size());
+        for (String code : misses) {
+            keys.add(IamCacheKeys.DICT_TYPE + code);
+        }
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return result;
+        }
+        for (int i = 0; i < misses.size() && i < values.size(); i++) {
+            String json = values.get(i);
+            if (json != null) {
+                dictL1.put(misses.get(i), json);
+                result.put(misses.get(i), json);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void evictDicts(Collection<String> typeCodes) {
+        List<String> codes = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        if (typeCodes != null) {
+            for (String code : new LinkedHashSet<>(typeCodes)) {
+                if (code == null) {
+                    continue;
+                }
+                codes.add(code);
+                keys.add(IamCacheKeys.DICT_TYPE + code);
+                dictL1.invalidate(code);
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            deleteInChunks(connection, keys);
+            publishInPipeline(connection, REGION_DICT, codes);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, Long> multiGetDictVersions(Collection<String> typeCodes) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        if (typeCodes == null || typeCodes.isEmpty()) {
+            return result;
+        }
+        List<String> misses = new ArrayList<>();
+        for (String code : new LinkedHashSet<>(typeCodes)) {
+            if (code == null) {
+                continue;
+            }
+            Long local = dictVersionL1.get(code);
+            if (local != null) {
+                result.put(code, local);
+            } else {
+                misses.add(code);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+        List<Object> values = stringRedisTemplate.opsForHash()
+                .multiGet(IamCacheKeys.DICT_VERSION, new ArrayList<>(misses));
+        for (int i = 0; i < misses.size(); i++) {
+            Object value = values == null || i >= values.size() ? null : values.get(i);
+            long version = value == null ? 0L : Long.parseLong(String.valueOf(value));
+            dictVersionL1.put(misses.get(i), version);
+            result.put(misses.get(i), version);
+        }
+        return result;
+    }
+
+    @Override
+    public void bumpDictVersions(Collection<String> typeCodes) {
+        List<String> codes = new ArrayList<>();
+        if (typeCodes != null) {
+            for (String code : new LinkedHashSet<>(typeCodes)) {
+                if (code != null) {
+                    codes.add(code);
+                    dictVersionL1.invalidate(code);
+                }
+            }
+        }
+        if (codes.isEmpty()) {
+            return;
+        }
+        byte[] key = bytes(IamCacheKeys.DICT_VERSION);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String code : codes) {
+                connection.hashCommands().hIncrBy(key, bytes(code), 1L);
+            }
+            publishInPipeline(connection, REGION_DICT_VERSION, codes);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, String> multiGetScopedDicts(Map<String, Long> versions, String fingerprint) {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (versions == null || versions.isEmpty() || fingerprint == null) {
+            return result;
+        }
+        List<String> misses = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Long> e : versions.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) {
+                continue;
+            }
+            String key = scopedDictKey(e.getKey(), e.getValue(), fingerprint);
+            String local = dictScopedL1.get(key);
+            if (local != null) {
+                result.put(e.getKey(), local);
+            } else {
+                misses.add(e.getKey());
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty()) {
+            return result;
+        }
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return result;
+        }
+        for (int i = 0; i < misses.size() && i < values.size(); i++) {
+            String json = values.get(i);
+            if (json != null) {
+                dictScopedL1.put(keys.get(i), json);
+                result.put(misses.get(i), json);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void cacheScopedDicts(Map<String, Long> versions, String fingerprint, Map<String, String> jsonByType) {
+        if (versions == null || fingerprint == null || jsonByType == null || jsonByType.isEmpty()) {
+            return;
+        }
+        Map<String, String> entries = new LinkedHashMap<>();
+        jsonByType.forEach((code, json) -> {
+            Long version = code == null ? null : versions.get(code);
+            if (version != null && json != null) {
+                entries.put(scopedDictKey(code, version, fingerprint), json);
+            }
+        });
+        if (entries.isEmpty()) {
+            return;
+        }
+        // 内容以版本寻址、不可变，无需失效广播；负缓存用短 TTL
+        Expiration ttl = Expiration.from(DICT_SCOPED_TTL);
+        Expiration absentTtl = Expiration.from(DICT_ABSENT_TTL);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, String> e : entries.entrySet()) {
+                connection.stringCommands().set(bytes(e.getKey()), bytes(e.getValue()),
+                        DICT_ABSENT.equals(e.getValue()) ? absentTtl : ttl, RedisStringCommands.SetOption.upsert());
+            }
+            return null;
+        });
+        entries.forEach(dictScopedL1::put);
+    }
+
+    private static String scopedDictKey(String typeCode, long version, String fingerprint) {
+        return IamCacheKeys.DICT_SCOPED + typeCode + ":" + version + ":" + fingerprint;
+    }
+
+    @Override
+    public Map<String, Map<String, Object>> localCacheStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (LocalCache<?, ?> c : new LocalCache<?, ?>[]{permsL1, rolePermsL1, permSetL1, dataScopeL1, menuTreeL1, dictL1,
+                dictVersionL1, dictScopedL1}) {
+            stats.put(c.getName(), c.stats());
+        }
+        return stats;
+    }
+
+    private void publishInvalidation(String region, Object key) {
+        if (!props.isEnabled()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(IamCacheKeys.AUTH_CACHE_INVALIDATE_CHANNEL,
+                    nodeId + "|" + region + "|" + key);
+        } catch (Exception ignored) {
+            // 广播失败时其它节点最迟在本地 TTL 后回源
+        }
+    }
+
+    private static void deleteInChunks(RedisConnection connection, List<String> keys) {
+        for (int from = 0; from < keys.size(); from += DEL_CHUNK) {
+            List<String> chunk = keys.subList(from, Math.min(keys.size(), from + DEL_CHUNK));
+            byte[][] raw = new byte[chunk.size()][];
+            for (int i = 0; i < raw.length; i++) {
+                raw[i] = bytes(chunk.get(i));
+            }
+            connection.keyCommands().del(raw);
+        }
+    }
+
+    /** 批量失效广播：同一区域的多个 key 以逗号拼接为一条消息 */
+    private void publishInPipeline(RedisConnection connection, String region, List<String> keys) {
+        if (!props.isEnabled() || keys.isEmpty()) {
+            return;
+        }
+        String body = nodeId + "|" + region + "|" + String.join(",", keys);
+        connection.publish(bytes(IamCacheKeys.AUTH_CACHE_INVALIDATE_CHANNEL), bytes(body));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        for (String key : parts[2].split(",")) {
+            try {
+                switch (parts[1]) {
+                    case REGION_PERMS -> permsL1.invalidate(Long.valueOf(key));
+                    case REGION_ROLE_PERMS -> rolePermsL1.invalidate(Long.valueOf(key));
+                    case REGION_DATA_SCOPE -> dataScopeL1.invalidate(Long.valueOf(key));
+                    case REGION_MENU_TREE -> menuTreeL1.invalidate(Long.valueOf(key));
+                    case REGION_DICT -> dictL1.invalidate(key);
+                    case REGION_DICT_VERSION -> dictVersionL1.invalidate(key);
+                    default -> {
+                    }
+                }
+            } catch (NumberFormatException ignored) {
+            }
+        }
     }
 }
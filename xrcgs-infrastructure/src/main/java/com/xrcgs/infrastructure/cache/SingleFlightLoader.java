@@ -0,0 +1,107 @@
+package com.xrcgs.infrastructure.cache;
+
+import com.xrcgs.common.cache.SingleFlight;
+import com.xrcgs.common.constants.IamCacheKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 缓存未命中时的回源合并
+ * - 进程内：同一 key 只有一个线程回源，其余线程等待共享结果（SingleFlight）
+ * - 跨节点（cache.single-flight.distributed=true）：回源前 SET NX PX 抢短锁；
+ *   抢不到说明其它节点正在回源，轮询 recheck（读缓存）等待其回填，超时后自行回源
+ * - Redis 异常时退化为仅进程内合并，不阻断请求
+ */
+@Component
+public class SingleFlightLoader {
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SingleFlightProperties props;
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    private final LongAdder remoteWaits = new LongAdder();
+    private final LongAdder remoteTimeouts = new LongAdder();
+
+    @Autowired
+    public SingleFlightLoader(StringRedisTemplate stringRedisTemplate, SingleFlightProperties props) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.props = props;
+    }
+
+    /** 仅进程内合并（单元测试或无 Redis 场景） */
+    public static SingleFlightLoader localOnly() {
+        return new SingleFlightLoader(null, new SingleFlightProperties());
+    }
+
+    /**
+     * @param key     业务 key（如 perms:{userId}），同 key 的并发回源被合并
+     * @param recheck 读缓存；跨节点等待期间用于判断其它节点是否已回填，返回 null 表示仍未命中
+     * @param loader  回源并写缓存
+     */
+    public <T> T load(String key, Supplier<T> recheck, Supplier<T> loader) {
+        return singleFlight.execute(key, () -> loadAcrossNodes(key, recheck, loader));
+    }
+
+    private <T> T loadAcrossNodes(String key, Supplier<T> recheck, Supplier<T> loader) {
+        if (!props.isDistributed() || stringRedisTemplate == null) {
+            return loader.get();
+        }
+        String lockKey = IamCacheKeys.CACHE_LOAD_LOCK + key;
+        String token = UUID.randomUUID().toString();
+        Boolean locked;
+        try {
+            locked = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, token, Duration.ofMillis(props.getLockTtlMs()));
+        } catch (Exception e) {
+            return loader.get();
+        }
+        if (Boolean.TRUE.equals(locked)) {
+            try {
+                return loader.get();
+            } finally {
+                try {
+                    stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token);
+                } catch (Exception ignored) {
+                    // 锁会在 lockTtlMs 后自动过期
+                }
+            }
+        }
+        long deadline = System.currentTimeMillis() + props.getWaitMs();
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(Math.max(1, props.getPollIntervalMs()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            T value = recheck.get();
+            if (value != null) {
+                remoteWaits.increment();
+                return value;
+            }
+        }
+        remoteTimeouts.increment();
+        return loader.get();
+    }
+
+    /** loads：实际回源次数；coalesced：进程内被合并次数；remoteWaits：等到其它节点回填的次数 */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = singleFlight.stats();
+        stats.put("remoteWaits", remoteWaits.sum());
+        stats.put("remoteTimeouts", remoteTimeouts.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,23 @@
+package com.xrcgs.infrastructure.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 缓存回源合并配置
+ * 进程内合并始终开启；跨节点 Redis 短锁默认关闭（单节点部署无需）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cache.single-flight")
+public class SingleFlightProperties {
+    /** 是否启用跨节点 Redis 锁：抢不到锁的节点等待持锁节点回填缓存 */
+    private boolean distributed = false;
+    /** 锁自动过期毫秒数（持锁节点宕机时的兜底） */
+    private long lockTtlMs = 3000;
+    /** 未抢到锁时最长等待毫秒数，超时后自行回源 */
+    private long waitMs = 1000;
+    /** 等待期间轮询缓存的间隔毫秒数 */
+    private long pollIntervalMs = 25;
+}
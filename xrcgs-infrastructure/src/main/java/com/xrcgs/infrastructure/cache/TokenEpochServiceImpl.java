@@ -0,0 +1,165 @@
+package com.xrcgs.infrastructure.cache;
+
+import com.xrcgs.common.cache.TokenEpochService;
+import com.xrcgs.common.constants.IamCacheKeys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户令牌纪元（Redis 计数器 + 本地缓存）
+ * - Redis：auth:epoch:{userId}，每个用户至多一个 key，不随登录次数增长
+ * - 本地：userId -> 纪元，短 TTL 兜底；吊销时通过 pub/sub 广播，各节点立即更新
+ * - Redis 异常时沿用本地值（没有则按 0 处理），不阻断正常请求
+ * - 批量吊销：INCR 走 pipeline，广播合并为一条消息（"{userId}:{epoch},..."），共两次往返
+ */
+@Service
+public class TokenEpochServiceImpl implements TokenEpochService {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long localTtlMillis;
+
+    private final Map<Long, CachedEpoch> local = new ConcurrentHashMap<>();
+
+    private record CachedEpoch(long epoch, long loadedAt) {
+    }
+
+    public TokenEpochServiceImpl(StringRedisTemplate stringRedisTemplate,
+                                 RedisMessageListenerContainer listenerContainer,
+                                 @Value("${jwt.epoch-cache-ttl-ms:5000}") long localTtlMillis) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.localTtlMillis = localTtlMillis;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        listenerContainer.addMessageListener(this::onMessage,
+                new ChannelTopic(IamCacheKeys.AUTH_TOKEN_EPOCH_CHANNEL));
+    }
+
+    @Override
+    public long currentEpoch(Long userId) {
+        if (userId == null) {
+            return 0L;
+        }
+        long now = System.currentTimeMillis();
+        CachedEpoch cached = local.get(userId);
+        if (cached != null && now - cached.loadedAt() < localTtlMillis) {
+            return cached.epoch();
+        }
+        return loadEpoch(userId);
+    }
+
+    @Override
+    public long loadEpoch(Long userId) {
+        if (userId == null) {
+            return 0L;
+        }
+        CachedEpoch cached = local.get(userId);
+        try {
+            String v = stringRedisTemplate.opsForValue().get(IamCacheKeys.AUTH_TOKEN_EPOCH + userId);
+            long epoch = v == null ? 0L : Long.parseLong(v);
+            local.put(userId, new CachedEpoch(epoch, System.currentTimeMillis()));
+            return epoch;
+        } catch (Exception ignored) {
+            return cached != null ? cached.epoch() : 0L;
+        }
+    }
+
+    @Override
+    public void revoke(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        Long epoch = stringRedisTemplate.opsForValue().increment(IamCacheKeys.AUTH_TOKEN_EPOCH + userId);
+        if (epoch == null) {
+            return;
+        }
+        local.put(userId, new CachedEpoch(epoch, System.currentTimeMillis()));
+        try {
+            stringRedisTemplate.convertAndSend(IamCacheKeys.AUTH_TOKEN_EPOCH_CHANNEL, userId + ":" + epoch);
+        } catch (Exception ignored) {
+            // 广播失败时其它节点最迟在本地 TTL 后感知
+        }
+    }
+
+    @Override
+    public void revokeAll(Collection<Long> userIds) {
+        if (userIds == null) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            if (userId != null) {
+                ids.add(userId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (ids.size() == 1) {
+            revoke(ids.get(0));
+            return;
+        }
+        List<Object> epochs = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : ids) {
+                connection.stringCommands().incr(
+                        (IamCacheKeys.AUTH_TOKEN_EPOCH + userId).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        long now = System.currentTimeMillis();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < ids.size() && i < epochs.size(); i++) {
+            if (!(epochs.get(i) instanceof Number epoch)) {
+                continue;
+            }
+            local.put(ids.get(i), new CachedEpoch(epoch.longValue(), now));
+            if (body.length() > 0) {
+                body.append(',');
+            }
+            body.append(ids.get(i)).append(':').append(epoch.longValue());
+        }
+        if (body.length() == 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(IamCacheKeys.AUTH_TOKEN_EPOCH_CHANNEL, body.toString());
+        } catch (Exception ignored) {
+        }
+    }
+
+    void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        long now = System.currentTimeMillis();
+        for (String item : body.split(",")) {
+            int sep = item.indexOf(':');
+            if (sep <= 0) {
+                continue;
+            }
+            try {
+                Long userId = Long.parseLong(item.substring(0, sep));
+                long epoch = Long.parseLong(item.substring(sep + 1));
+                // 纪元单调递增，乱序到达的旧消息不能回退本地值
+                local.merge(userId, new CachedEpoch(epoch, now),
+                        (old, incoming) -> old.epoch() >= incoming.epoch() ? old : incoming);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+    }
+}
@@ -2,22 +2,45 @@ package com.xrcgs.infrastructure.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.handler.DataPermissionHandler;
+import com.baomidou.mybatisplus.extension.plugins.inner.DataPermissionInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Properties;
+
 /**
  * 配置MybatisPlus
+ * 数据权限插件（存在 DataPermissionHandler 时启用，需排在分页插件之前，count 语句才会带上数据范围；
+ *   处理器按语句声明规则时只解析改写有规则的语句）
  * 分页插件
+ * 数据库方言标识（XML 中通过 _databaseId 区分 MySQL / PostgreSQL 的索引友好写法）
  */
 @Configuration
 public class MybatisPlusConfig {
 
     @Bean
-    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+    public MybatisPlusInterceptor mybatisPlusInterceptor(ObjectProvider<DataPermissionHandler> dataPermissionHandler) {
         var i = new MybatisPlusInterceptor();
+        dataPermissionHandler.ifUnique(h -> i.addInnerInterceptor(h instanceof StatementScopedPermissionHandler scoped
+                ? new StatementScopedDataPermissionInterceptor(scoped)
+                : new DataPermissionInterceptor(h)));
         i.addInnerInterceptor(new PaginationInnerInterceptor(DbType.POSTGRE_SQL));
         return i;
     }
 
+    @Bean
+    public DatabaseIdProvider databaseIdProvider() {
+        var props = new Properties();
+        props.setProperty("MySQL", "mysql");
+        props.setProperty("PostgreSQL", "postgresql");
+        var provider = new VendorDatabaseIdProvider();
+        provider.setProperties(props);
+        return provider;
+    }
+
 }
@@ -7,6 +7,7 @@ import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
 import com.zaxxer.hikari.HikariDataSource;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionTemplate;
 import org.springframework.beans.factory.ObjectProvider;
@@ -31,13 +32,16 @@ public class PrimaryDataSourceConfig {
 
     private final ObjectProvider<MybatisPlusInterceptor> interceptorProvider;
     private final ObjectProvider<MetaObjectHandler> metaObjectHandlerProvider;
+    private final ObjectProvider<DatabaseIdProvider> databaseIdProvider;
     private final MybatisPlusProperties mybatisPlusProperties;
 
     public PrimaryDataSourceConfig(ObjectProvider<MybatisPlusInterceptor> interceptorProvider,
                                    ObjectProvider<MetaObjectHandler> metaObjectHandlerProvider,
+                                   ObjectProvider<DatabaseIdProvider> databaseIdProvider,
                                    MybatisPlusProperties mybatisPlusProperties) {
         this.interceptorProvider = interceptorProvider;
         this.metaObjectHandlerProvider = metaObjectHandlerProvider;
+        this.databaseIdProvider = databaseIdProvider;
         this.mybatisPlusProperties = mybatisPlusProperties;
     }
 
@@ -65,6 +69,7 @@ public class PrimaryDataSourceConfig {
         if (interceptor != null) {
             factory.setPlugins(interceptor);
         }
+        databaseIdProvider.ifAvailable(factory::setDatabaseIdProvider);
 
         var configuration = new MybatisConfiguration();
         configuration.setMapUnderscoreToCamelCase(true);
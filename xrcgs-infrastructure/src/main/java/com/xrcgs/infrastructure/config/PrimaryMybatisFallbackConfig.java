@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.core.config.GlobalConfig;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionTemplate;
 import org.springframework.beans.factory.ObjectProvider;
@@ -32,15 +33,18 @@ public class PrimaryMybatisFallbackConfig {
     private final ObjectProvider<MybatisPlusInterceptor> interceptorProvider;
     private final ObjectProvider<MybatisPlusProperties> propertiesProvider;
     private final ObjectProvider<MetaObjectHandler> metaObjectHandlerProvider;
+    private final ObjectProvider<DatabaseIdProvider> databaseIdProvider;
 
     public PrimaryMybatisFallbackConfig(@Qualifier("dataSource") DataSource dataSource,
                                         ObjectProvider<MybatisPlusInterceptor> interceptorProvider,
                                         ObjectProvider<MybatisPlusProperties> propertiesProvider,
-                                        ObjectProvider<MetaObjectHandler> metaObjectHandlerProvider) {
+                                        ObjectProvider<MetaObjectHandler> metaObjectHandlerProvider,
+                                        ObjectProvider<DatabaseIdProvider> databaseIdProvider) {
         this.dataSource = dataSource;
         this.interceptorProvider = interceptorProvider;
         this.propertiesProvider = propertiesProvider;
         this.metaObjectHandlerProvider = metaObjectHandlerProvider;
+        this.databaseIdProvider = databaseIdProvider;
     }
 
     @Bean(name = "sqlSessionFactory")
@@ -52,6 +56,7 @@ public class PrimaryMybatisFallbackConfig {
         if (interceptor != null) {
             factory.setPlugins(interceptor);
         }
+        databaseIdProvider.ifAvailable(factory::setDatabaseIdProvider);
 
         MybatisPlusProperties properties = propertiesProvider.getIfAvailable(MybatisPlusProperties::new);
 
@@ -0,0 +1,13 @@
+package com.xrcgs.infrastructure.config;
+
+import com.baomidou.mybatisplus.extension.plugins.handler.MultiDataPermissionHandler;
+
+/**
+ * 按 MappedStatement 声明数据权限规则的处理器
+ * 拦截器先询问 {@link #appliesTo(String)}，无规则的语句不交给 JSqlParser 解析改写
+ */
+public interface StatementScopedPermissionHandler extends MultiDataPermissionHandler {
+
+    /** 该语句（含分页 count 语句）是否声明了数据权限规则 */
+    boolean appliesTo(String mappedStatementId);
+}
@@ -4,10 +4,12 @@ import org.jodconverter.core.DocumentConverter;
 import org.jodconverter.core.office.OfficeManager;
 import org.jodconverter.local.LocalConverter;
 import org.jodconverter.local.office.LocalOfficeManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -61,8 +63,10 @@ public class JodConverterConfig {
 
     @Bean("convertExecutor")
     @Primary
-    public TaskExecutor convertExecutor() {
+    public TaskExecutor convertExecutor(ObjectProvider<TaskDecorator> taskDecorator) {
         ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        // 同时作为 @Async 默认线程池：传递请求上下文（如数据范围）
+        taskDecorator.ifUnique(ex::setTaskDecorator);
         ex.setCorePoolSize(poolSize);
         ex.setMaxPoolSize(poolSize);
         ex.setQueueCapacity(2000);
@@ -1,15 +1,13 @@
 package com.xrcgs.auth.api;
 
-import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.xrcgs.auth.api.dto.AuthDtos.*;
 import com.xrcgs.auth.jwt.*;
-import com.xrcgs.auth.user.SysUser;
-import com.xrcgs.auth.user.SysUserMapper;
+import com.xrcgs.auth.security.BoundedPasswordEncoder;
+import com.xrcgs.auth.security.LoginUser;
+import com.xrcgs.auth.user.AuthSnapshot;
+import com.xrcgs.auth.user.AuthSnapshotLoader;
+import com.xrcgs.common.cache.TokenEpochService;
 import com.xrcgs.common.core.R;
-import com.xrcgs.iam.entity.SysRole;
-import com.xrcgs.iam.entity.SysUserRole;
-import com.xrcgs.iam.mapper.SysRoleMapper;
-import com.xrcgs.iam.mapper.SysUserRoleMapper;
 import com.xrcgs.iam.service.PermService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -18,12 +16,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * 权限认证控制器
@@ -37,11 +33,10 @@ public class AuthController {
     private final JwtUtil jwtUtil;
     private final JwtProperties props;
     private final TokenBlacklistService blacklistService;
-    private final SysUserMapper userMapper;
-    private final SysUserRoleMapper userRoleMapper;
-    private final SysRoleMapper roleMapper;
+    private final VerifiedTokenCache tokenCache;
+    private final AuthSnapshotLoader snapshotLoader;
     private final PermService permService;
-    private final PasswordEncoder passwordEncoder; // 仅供调试/导入使用，可删
+    private final TokenEpochService epochService;
 
     /** 登入 */
     @PostMapping("/login")
@@ -51,31 +46,28 @@ public class AuthController {
         );
         UserDetails principal = (UserDetails) auth.getPrincipal();
 
-        SysUser db = userMapper.selectOne(
-                Wrappers.<SysUser>lambdaQuery().eq(SysUser::getUsername, principal.getUsername()).last("limit 1"));
-
-        String nickname = db != null ? db.getNickname() : principal.getUsername();
-
-        // 1) 取用户角色ID集
-        assert db != null;
-        Set<Long> roleIds = userRoleMapper.selectList(
-                        Wrappers.<SysUserRole>lambdaQuery().eq(SysUserRole::getUserId, db.getId()))
-                .stream().map(SysUserRole::getRoleId).collect(Collectors.toSet());
+        // 1) 复用认证阶段已加载的快照（用户 + 角色），不再重复查库
+        AuthSnapshot snapshot = principal instanceof LoginUser lu && lu.getSnapshot() != null
+                ? lu.getSnapshot()
+                : snapshotLoader.load(principal.getUsername());
+        if (snapshot == null) {
+            throw new BadCredentialsException("用户不存在");
+        }
 
-        // 2) 角色编码 -> ["ADMIN", "OPS", ...]
-        List<String> roleCodes = roleMapper.selectBatchIds(roleIds).stream()
-                .map(SysRole::getCode).toList();
+        String nickname = snapshot.nickname();
+        List<String> roleCodes = snapshot.roleCodes();
 
-        // 3) 聚合权限并缓存（调用 iam 的 PermService；7-3 已实现）
-        Set<String> perms = permService.loadAndCacheUserPerms(db.getId());
+        // 2) 聚合权限并缓存（已知角色，缓存未命中时也无需再查 user-role）
+        Set<String> perms = permService.loadAndCacheUserPerms(snapshot.userId(), snapshot.roleIds());
 
-        // 4) token生成
-        String access = jwtUtil.generateAccessToken(db.getId(), principal.getUsername(), nickname, roleCodes, perms);
-        String refresh = jwtUtil.generateRefreshToken(db.getId(), principal.getUsername());
+        // 3) token生成
+        String access = jwtUtil.generateAccessToken(snapshot.userId(), snapshot.username(), nickname, roleCodes, perms,
+                snapshot.deptId(), snapshot.scopeFingerprint());
+        String refresh = jwtUtil.generateRefreshToken(snapshot.userId(), snapshot.username());
 
         // 返回前端需要的内容
         return R.ok(LoginResponse.builder()
-                .username(principal.getUsername())
+                .username(snapshot.username())
                 .nickname(nickname)
                 .accessToken(access)
                 .refreshToken(refresh)
@@ -85,6 +77,12 @@ public class AuthController {
                 .build());
     }
 
+    /** 密码校验线程池饱和：返回 503，提示客户端稍后重试 */
+    @ExceptionHandler(BoundedPasswordEncoder.VerifyBusyException.class)
+    public ResponseEntity<R<Void>> onVerifyBusy(BoundedPasswordEncoder.VerifyBusyException e) {
+        return ResponseEntity.status(503).body(R.fail(503, e.getMessage()));
+    }
+
     /** 登出：将当前 Access Token（以及可选的 Refresh Token）列入黑名单 */
     @PostMapping("/logout")
     public ResponseEntity<?> logout(HttpServletRequest request,
@@ -96,6 +94,7 @@ public class AuthController {
         if (authHeader != null && authHeader.startsWith(props.getPrefix())) {
             String access = authHeader.substring(props.getPrefix().length()).trim();
             blacklistService.blacklistToken(access, jwtUtil);
+            tokenCache.invalidate(access);
         }
 
         // 3) 拉黑 Refresh Token（如传）
@@ -123,29 +122,26 @@ public class AuthController {
             return ResponseEntity.status(401).build();
         }
 
-        String username = jwtUtil.getUsername(refreshToken);
-        SysUser db = userMapper.selectOne(
-                Wrappers.<SysUser>lambdaQuery().eq(SysUser::getUsername, username).last("limit 1"));
-        if (db == null || !Boolean.TRUE.equals(db.getEnabled())) {
+        // 纪元低于用户当前纪元：禁用/改角色/改密码前签发的 refresh token 一并失效，与访问令牌校验一致
+        Long userId = jwtUtil.getUserId(refreshToken);
+        if (userId != null && jwtUtil.getEpoch(refreshToken) < epochService.currentEpoch(userId)) {
             return ResponseEntity.status(401).build();
         }
 
-        // 1) 取用户角色ID集
-        assert db != null;
-        Set<Long> roleIds = userRoleMapper.selectList(
-                        Wrappers.<SysUserRole>lambdaQuery().eq(SysUserRole::getUserId, db.getId()))
-                .stream().map(SysUserRole::getRoleId).collect(Collectors.toSet());
-
-        // 2) 角色编码 -> ["ADMIN", "OPS", ...]
-        List<String> roleCodes = roleMapper.selectBatchIds(roleIds).stream()
-                .map(SysRole::getCode).toList();
+        String username = jwtUtil.getUsername(refreshToken);
+        // 1) 用户 + 角色一次联表取回
+        AuthSnapshot snapshot = snapshotLoader.load(username);
+        if (snapshot == null || !snapshot.enabled()) {
+            return ResponseEntity.status(401).build();
+        }
 
-        // 3) 聚合权限并缓存（调用 iam 的 PermService；7-3 已实现）
-        Set<String> perms = permService.loadAndCacheUserPerms(db.getId());
+        // 2) 聚合权限并缓存
+        Set<String> perms = permService.loadAndCacheUserPerms(snapshot.userId(), snapshot.roleIds());
 
         // 生成新Token
-        String newAccess = jwtUtil.generateAccessToken(db.getId(), username, db.getNickname(), roleCodes, perms);
-        String newRefreshToken = jwtUtil.generateRefreshToken(db.getId(), username);
+        String newAccess = jwtUtil.generateAccessToken(snapshot.userId(), username, snapshot.nickname(),
+                snapshot.roleCodes(), perms, snapshot.deptId(), snapshot.scopeFingerprint());
+        String newRefreshToken = jwtUtil.generateRefreshToken(snapshot.userId(), username);
         return ResponseEntity.ok(R.ok(TokenResponse.builder()
                 .accessToken(newAccess)
                 .refreshToken(newRefreshToken)
@@ -0,0 +1,93 @@
+package com.xrcgs.auth.api;
+
+import com.xrcgs.auth.jwt.TokenBlacklistService;
+import com.xrcgs.auth.jwt.VerifiedTokenCache;
+import com.xrcgs.auth.security.BoundedPasswordEncoder;
+import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.iam.datascope.DeptTreeVersionWatermark;
+import com.xrcgs.iam.datascope.RoleScopeRegistry;
+import com.xrcgs.iam.task.AuthRematerializer;
+import com.xrcgs.infrastructure.cache.SingleFlightLoader;
+import com.xrcgs.syslog.annotation.OpLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 运维接口：认证/权限相关缓存与后台任务的运行统计及开关，仅管理员可访问
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/ops")
+@PreAuthorize("hasRole('ADMIN')")
+public class OpsController {
+
+    private final VerifiedTokenCache tokenCache;
+    private final TokenBlacklistService blacklistService;
+    @Qualifier("boundedPasswordEncoder")
+    private final BoundedPasswordEncoder boundedPasswordEncoder;
+    private final AuthCacheService authCacheService;
+    private final SingleFlightLoader singleFlightLoader;
+    private final DeptTreeVersionWatermark deptTreeVersionWatermark;
+    private final RoleScopeRegistry roleScopeRegistry;
+    private final AuthRematerializer authRematerializer;
+
+    /** 已验签 token 缓存命中统计 */
+    @GetMapping("/token-cache")
+    public Map<String, Object> tokenCacheStats() {
+        return tokenCache.stats();
+    }
+
+    /** 黑名单本地过滤器统计 */
+    @GetMapping("/token-blacklist")
+    public Map<String, Object> tokenBlacklistStats() {
+        return blacklistService.stats();
+    }
+
+    /** 登录密码校验线程池：排队耗时、拒绝次数 */
+    @GetMapping("/password-verify")
+    public Map<String, Object> passwordVerifyStats() {
+        return boundedPasswordEncoder.stats();
+    }
+
+    /** 认证缓存本地一级缓存各区域命中率 */
+    @GetMapping("/auth-cache")
+    public Map<String, Map<String, Object>> authCacheStats() {
+        return authCacheService.localCacheStats();
+    }
+
+    /** 缓存回源合并统计：实际回源次数与被合并的等待次数 */
+    @GetMapping("/single-flight")
+    public Map<String, Object> singleFlightStats() {
+        return singleFlightLoader.stats();
+    }
+
+    /** 部门树版本本地水位（当前版本、Redis 读取次数、收到的广播数） */
+    @GetMapping("/dept-tree-version")
+    public Map<String, Object> deptTreeVersionStats() {
+        return deptTreeVersionWatermark.stats();
+    }
+
+    /** 角色数据范围注册表（缓存角色数、命中/回源次数、失效次数） */
+    @GetMapping("/role-scope-registry")
+    public Map<String, Object> roleScopeRegistryStats() {
+        return roleScopeRegistry.stats();
+    }
+
+    /** 后台重建进度（待处理用户、当前一轮进度、累计成功/失败数） */
+    @GetMapping("/rematerialize")
+    public Map<String, Object> rematerializeStats() {
+        return authRematerializer.stats();
+    }
+
+    /** 后台重建开关（kill switch，集群级）：关闭后各节点丢弃待处理任务，进行中的一轮在下一批前停止 */
+    @PostMapping("/rematerialize/enabled")
+    @OpLog(value = "切换后台重建开关", logResult = false)
+    public Map<String, Object> toggleRematerialize(@RequestParam boolean enabled) {
+        authRematerializer.setEnabled(enabled);
+        return authRematerializer.stats();
+    }
+}
@@ -0,0 +1,76 @@
+package com.xrcgs.auth.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 黑名单 jti 的布隆过滤器（线程安全，只增不删）
+ * - mightContain=false 时一定不在黑名单，可直接放行，无需访问 Redis
+ * - mightContain=true 时可能误判，需要回源 Redis 精确确认
+ * - 过期 jti 无法删除，由 TokenBlacklistService 周期性重建过滤器来回收
+ */
+class JtiBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final int bitSize;
+    private final int hashCount;
+
+    JtiBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(fpp, 1e-6), 0.5);
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        this.bitSize = (int) Math.min(Math.max(m, 64), Integer.MAX_VALUE - 63);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+        this.bits = new AtomicLongArray((bitSize + 63) >>> 6);
+    }
+
+    void put(String jti) {
+        long h = hash(jti);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int idx = index(h1 + i * h2);
+            int word = idx >>> 6;
+            long mask = 1L << idx;
+            long old;
+            do {
+                old = bits.get(word);
+                if ((old & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, old, old | mask));
+        }
+    }
+
+    boolean mightContain(String jti) {
+        long h = hash(jti);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int idx = index(h1 + i * h2);
+            if ((bits.get(idx >>> 6) & (1L << idx)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(int combined) {
+        return (combined & Integer.MAX_VALUE) % bitSize;
+    }
+
+    /** 64 位 FNV-1a + murmur 终结混淆，拆成两个 32 位哈希做双重散列 */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
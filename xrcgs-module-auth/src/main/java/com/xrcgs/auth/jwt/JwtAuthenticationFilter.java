@@ -2,13 +2,14 @@ package com.xrcgs.auth.jwt;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xrcgs.auth.security.AuthUserDetailsService;
+import com.xrcgs.common.cache.TokenEpochService;
 import com.xrcgs.common.security.UserPrincipal;
+import com.xrcgs.common.util.PermIndex;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,6 +23,7 @@ import io.jsonwebtoken.*;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -36,6 +38,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtProperties props;
     private final TokenBlacklistService blacklistService;
     private final AuthUserDetailsService userDetailsService;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenEpochService epochService;
+    private final PermSetResolver permSetResolver;
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
@@ -50,6 +55,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         String token = authHeader.substring(props.getPrefix().length()).trim();
+
+        // 命中已验签缓存：跳过 HMAC 验签与 claims 解码，仅复核黑名单与纪元
+        VerifiedTokenCache.Entry cached = tokenCache.get(token);
+        if (cached != null) {
+            if (blacklistService.isBlacklisted(cached.jti())) {
+                tokenCache.invalidate(token);
+                unauthorized(response, "令牌已被拉黑！");
+                return;
+            }
+            if (isRevoked(cached.principal().getUserId(), cached.epoch())) {
+                tokenCache.invalidate(token);
+                unauthorized(response, "令牌已失效，请重新登录");
+                return;
+            }
+            authenticate(request, cached);
+            chain.doFilter(request, response);
+            return;
+        }
+
         try {
             // 解析 & 校验基础信息
             Jws<Claims> jws = jwtUtil.parse(token);
@@ -70,7 +94,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             String username = claims.getSubject();
             Long userId = claims.get("uid", Long.class);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            Long epochClaim = claims.get(JwtUtil.CLAIM_EPOCH, Long.class);
+            long epoch = epochClaim == null ? 0L : epochClaim;
+            if (isRevoked(userId, epoch)) {
+                unauthorized(response, "令牌已失效，请重新登录");
+                return;
+            }
+            if (username != null) {
 //                UserDetails user = userDetailsService.loadUserByUsername(username);
 
                 // === 变更点 #2：不再查库，直接把 roles/perms 从 claims 注入到 authorities ===
@@ -79,30 +109,49 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 // 角色权限
                 // roles: ["ADMIN","OPS"] -> ROLE_ADMIN / ROLE_OPS
                 List<String> roles = claims.get("roles", List.class);
+                boolean admin = false;
                 if (roles != null) {
                     for (String r : roles) {
                         auths.add(new SimpleGrantedAuthority("ROLE_" + r));
+                        admin |= "ADMIN".equalsIgnoreCase(r);
                     }
                 }
 
                 // 按钮权限
                 // perms: ["iam:user:list", ...] -> PERM_iam:user:list
                 Collection<String> perms = claims.get("permissions", Collection.class);
-                if (perms != null) {
-                    for (String p : perms) {
-                        auths.add(new SimpleGrantedAuthority("PERM_" + p));
+                PermIndex permIndex;
+                String permSetHash = claims.get(JwtUtil.CLAIM_PERM_SET, String.class);
+                if (perms == null && permSetHash != null) {
+                    // 令牌只携带权限集合哈希：按哈希解析（进程内缓存已构建好的权限与索引）
+                    PermSetResolver.Resolved resolved = permSetResolver.resolve(permSetHash, userId);
+                    if (resolved != null) {
+                        auths.addAll(resolved.authorities());
+                    }
+                    permIndex = resolved != null ? resolved.index() : PermIndex.empty();
+                } else {
+                    if (perms != null) {
+                        for (String p : perms) {
+                            auths.add(new SimpleGrantedAuthority("PERM_" + p));
+                        }
                     }
+                    permIndex = PermIndex.of(perms);
                 }
 
-                // principal：给 hasPerm() 的表达式 Root 提取 userId 做兜底回源（必要时）
-                UserPrincipal principal = new UserPrincipal(userId, username);
-
-//                UsernamePasswordAuthenticationToken authentication =
-//                        new UsernamePasswordAuthenticationToken(user, null, auths);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(principal, null, auths);
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                // principal：给 hasPerm() 的表达式 Root 提取 userId 做兜底回源（必要时）；
+                // 部门与数据范围指纹随令牌携带，业务侧取“当前部门”不再查 sys_user
+                UserPrincipal principal = new UserPrincipal(userId, username,
+                        claims.get(JwtUtil.CLAIM_DEPT, Long.class),
+                        claims.get(JwtUtil.CLAIM_SCOPE_FINGERPRINT, String.class));
+
+                // 权限索引随认证构建一次，hasPerm 直接查索引
+                Date exp = claims.getExpiration();
+                VerifiedTokenCache.Entry entry = VerifiedTokenCache.Entry.of(principal, auths,
+                        permIndex, admin, jti, epoch, exp == null ? 0L : exp.getTime());
+                if (exp != null) {
+                    tokenCache.put(token, entry);
+                }
+                authenticate(request, entry);
             }
 
             chain.doFilter(request, response);
@@ -115,6 +164,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 //        chain.doFilter(request, response);
     }
 
+    /** 令牌纪元低于用户当前纪元：禁用/改角色/改权限后签发前的令牌统一失效 */
+    private boolean isRevoked(Long userId, long tokenEpoch) {
+        return userId != null && tokenEpoch < epochService.currentEpoch(userId);
+    }
+
+    private void authenticate(HttpServletRequest request, VerifiedTokenCache.Entry entry) {
+        if (SecurityContextHolder.getContext().getAuthentication() != null) {
+            return;
+        }
+//                UsernamePasswordAuthenticationToken authentication =
+//                        new UsernamePasswordAuthenticationToken(user, null, auths);
+        JwtAuthenticationToken authentication = new JwtAuthenticationToken(
+                entry.principal(), entry.authorities(), entry.permIndex(), entry.admin());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
     private void unauthorized(HttpServletResponse response, String message) throws IOException {
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
@@ -0,0 +1,32 @@
+package com.xrcgs.auth.jwt;
+
+import com.xrcgs.common.util.PermIndex;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * JWT 认证结果：在标准 token 之外携带随认证一次性构建的权限索引与管理员标记，
+ * 供 hasPerm 直接查索引，无需每次从 authorities 重建权限集合
+ */
+public class JwtAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    private final transient PermIndex permIndex;
+    private final boolean admin;
+
+    public JwtAuthenticationToken(Object principal, Collection<? extends GrantedAuthority> authorities,
+                                  PermIndex permIndex, boolean admin) {
+        super(principal, null, authorities);
+        this.permIndex = permIndex;
+        this.admin = admin;
+    }
+
+    public PermIndex getPermIndex() {
+        return permIndex;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+}
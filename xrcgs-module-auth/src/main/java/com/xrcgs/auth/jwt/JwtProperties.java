@@ -15,4 +15,28 @@ public class JwtProperties {
     private long refreshTtlSeconds = 604800; // 7d
     private String header = "Authorization";
     private String prefix = "Bearer ";
+    /** 已验签 Access Token 本地缓存最大条目数，0 表示关闭 */
+    private int verifiedCacheSize = 10000;
+    /**
+     * 权限在 Access Token 中的承载方式：
+     * EMBED - 完整权限码列表写入 permissions claim（默认，兼容旧前端/网关解析）
+     * REF   - 仅写入权限集合哈希（pv claim），服务端按哈希解析，令牌大小与角色规模无关
+     */
+    private PermClaimMode permClaimMode = PermClaimMode.EMBED;
+    /** 黑名单本地过滤器 */
+    private Blacklist blacklist = new Blacklist();
+
+    public enum PermClaimMode { EMBED, REF }
+
+    @Data
+    public static class Blacklist {
+        /** 是否启用本地布隆过滤器；关闭后每次都直接查询 Redis */
+        private boolean localFilterEnabled = true;
+        /** 预计同时存在的黑名单 jti 数量 */
+        private long expectedInsertions = 100_000;
+        /** 期望误判率 */
+        private double falsePositiveRate = 0.01;
+        /** 全量对账（SCAN 重建过滤器）间隔，即 pub/sub 丢消息时的最大陈旧窗口 */
+        private long reconcileIntervalMs = 60_000;
+    }
 }
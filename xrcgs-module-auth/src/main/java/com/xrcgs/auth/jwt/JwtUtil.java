@@ -1,5 +1,6 @@
 package com.xrcgs.auth.jwt;
 
+import com.xrcgs.common.cache.TokenEpochService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -15,7 +16,18 @@ import java.util.*;
 @RequiredArgsConstructor
 public class JwtUtil {
 
+    /** 令牌纪元 claim：签发时用户的纪元，低于当前纪元即视为已吊销 */
+    public static final String CLAIM_EPOCH = "ep";
+    /** 权限集合哈希 claim（perm-claim-mode=REF 时代替 permissions） */
+    public static final String CLAIM_PERM_SET = "pv";
+    /** 所属部门 claim */
+    public static final String CLAIM_DEPT = "did";
+    /** 数据范围指纹 claim（部门 + 角色摘要）；携带时 did 可信，无需回查用户表 */
+    public static final String CLAIM_SCOPE_FINGERPRINT = "sf";
+
     private final JwtProperties props;
+    private final TokenEpochService epochService;
+    private final PermSetResolver permSetResolver;
 
     private Key key;
     private JwtParser parser;
@@ -35,15 +47,25 @@ public class JwtUtil {
     }
 
     public String generateAccessToken(Long id, String username, String nickname, Collection<String> roles, Collection<String> permissions) {
-        return buildToken(id, username, nickname, roles, permissions, "access", props.getAccessTtlSeconds());
+        return generateAccessToken(id, username, nickname, roles, permissions, null, null);
+    }
+
+    public String generateAccessToken(Long id, String username, String nickname, Collection<String> roles,
+                                      Collection<String> permissions, Long deptId, String scopeFingerprint) {
+        JwtBuilder builder = newBuilder(id, username, nickname, roles, permissions, "access", props.getAccessTtlSeconds());
+        if (scopeFingerprint != null) {
+            if (deptId != null) builder.claim(CLAIM_DEPT, deptId);
+            builder.claim(CLAIM_SCOPE_FINGERPRINT, scopeFingerprint);
+        }
+        return sign(builder);
     }
 
     public String generateRefreshToken(Long id, String username) {
-        return buildToken(id, username, null, null, null, "refresh", props.getRefreshTtlSeconds());
+        return sign(newBuilder(id, username, null, null, null, "refresh", props.getRefreshTtlSeconds()));
     }
 
     // 生产token
-    private String buildToken(Long id, String username, String nickname, Collection<String> roles, Collection<String> permissions, String typ, long ttlSeconds) {
+    private JwtBuilder newBuilder(Long id, String username, String nickname, Collection<String> roles, Collection<String> permissions, String typ, long ttlSeconds) {
         Instant now = Instant.now();
         String jti = UUID.randomUUID().toString();
 
@@ -55,11 +77,24 @@ public class JwtUtil {
                 .setExpiration(Date.from(now.plusSeconds(ttlSeconds)))
                 .claim("typ", typ);
 
-        if (id != null) builder.claim("uid", id);
+        if (id != null) {
+            builder.claim("uid", id);
+            builder.claim(CLAIM_EPOCH, epochService.loadEpoch(id));
+        }
         if (nickname != null) builder.claim("nickname", nickname);
         if (roles != null) builder.claim("roles", roles);
-        if (permissions != null) builder.claim("permissions", permissions);
+        if (permissions != null) {
+            if (props.getPermClaimMode() == JwtProperties.PermClaimMode.REF) {
+                builder.claim(CLAIM_PERM_SET, permSetResolver.register(permissions));
+            } else {
+                builder.claim("permissions", permissions);
+            }
+        }
 
+        return builder;
+    }
+
+    private String sign(JwtBuilder builder) {
         return builder
                 .signWith(key, SignatureAlgorithm.HS256)
                 .compact();
@@ -73,6 +108,16 @@ public class JwtUtil {
         return parse(token).getBody().getSubject();
     }
 
+    public Long getUserId(String token) {
+        return parse(token).getBody().get("uid", Long.class);
+    }
+
+    /** 签发时写入的令牌纪元，旧令牌无该声明时视为 0 */
+    public long getEpoch(String token) {
+        Long epoch = parse(token).getBody().get(CLAIM_EPOCH, Long.class);
+        return epoch == null ? 0L : epoch;
+    }
+
     public String getTokenType(String token) {
         Object t = parse(token).getBody().get("typ");
         return t == null ? null : t.toString();
@@ -0,0 +1,93 @@
+package com.xrcgs.auth.jwt;
+
+import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.common.util.PermIndex;
+import com.xrcgs.iam.service.PermService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 权限集合引用（jwt.perm-claim-mode=ref 时使用）
+ * - 签发：对排序后的权限码做 SHA-256，取前 16 字节作为集合哈希写入令牌（pv claim），
+ *   集合本身按哈希写入 Redis（内容寻址，相同角色组合的用户共享一份）
+ * - 校验：按哈希经认证缓存的 permSet 区域（进程内一级缓存 + Redis）解析为权限集合，
+ *   本类不再另设本地缓存；解析只发生在已验签令牌缓存未命中时，构建出的 PERM_ 权限与 PermIndex
+ *   随令牌缓存条目复用，同一令牌的后续请求不会再次解析
+ * - Redis 中集合丢失时按用户重新聚合权限并回写
+ */
+@Component
+@RequiredArgsConstructor
+public class PermSetResolver {
+
+    private final AuthCacheService authCacheService;
+    private final PermService permService;
+
+    /** 解析结果：不可变，可在多个请求/令牌间共享 */
+    public record Resolved(Set<String> perms, List<GrantedAuthority> authorities, PermIndex index) {
+    }
+
+    /** 登记权限集合并返回其哈希 */
+    public String register(Collection<String> perms) {
+        Set<String> sorted = new TreeSet<>();
+        if (perms != null) {
+            for (String p : perms) {
+                if (p != null) sorted.add(p);
+            }
+        }
+        String hash = hash(sorted);
+        authCacheService.cachePermSet(hash, sorted);
+        return hash;
+    }
+
+    /** 按哈希解析；Redis 丢失时用 userId 重新聚合（结果哈希不一致时以最新权限为准） */
+    public Resolved resolve(String hash, Long userId) {
+        Set<String> perms = null;
+        try {
+            perms = authCacheService.getCachedPermSet(hash);
+        } catch (Exception ignored) {
+        }
+        if (perms == null) {
+            if (userId == null) {
+                return null;
+            }
+            Set<String> current = permService.loadAndCacheUserPerms(userId);
+            register(current);
+            return build(current);
+        }
+        return build(perms);
+    }
+
+    private static Resolved build(Set<String> perms) {
+        List<GrantedAuthority> auths = new ArrayList<>(perms.size());
+        for (String p : perms) {
+            auths.add(new SimpleGrantedAuthority("PERM_" + p));
+        }
+        return new Resolved(Set.copyOf(perms), List.copyOf(auths), PermIndex.of(perms));
+    }
+
+    static String hash(Set<String> sortedPerms) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (String p : sortedPerms) {
+                md.update(p.getBytes(StandardCharsets.UTF_8));
+                md.update((byte) '\n');
+            }
+            byte[] digest = md.digest();
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,32 +1,92 @@
 package com.xrcgs.auth.jwt;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Redis 黑名单服务
+ * 前置一层本地布隆过滤器：
+ * - 过滤器判定"不存在"直接返回 false，不访问 Redis（绝大多数请求走这里）
+ * - 过滤器命中才回源 Redis 精确校验
+ * - 拉黑时通过 pub/sub 广播 jti，各节点实时加入本地过滤器
+ * - 周期性 SCAN 全量重建过滤器：兜底丢失的消息并回收已过期 jti，
+ *   陈旧窗口上限 = jwt.blacklist.reconcile-interval-ms
+ * 过滤器未完成首次加载（如启动时 Redis 不可用）前，退化为直接查询 Redis
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class TokenBlacklistService {
 
     private final StringRedisTemplate redis;
+    private final JwtProperties props;
+    private final RedisMessageListenerContainer listenerContainer;
+
     private static final String KEY_PREFIX = "jwt:blacklist:";
+    static final String CHANNEL = "jwt:blacklist:channel";
+
+    private volatile JtiBloomFilter filter;
+    private volatile JtiBloomFilter rebuilding;
+
+    private final LongAdder localNegatives = new LongAdder();
+    private final LongAdder redisChecks = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final AtomicLong lastReconcileAt = new AtomicLong();
+    private final AtomicLong lastMessageLagMs = new AtomicLong(-1);
+
+    @PostConstruct
+    void init() {
+        if (!props.getBlacklist().isLocalFilterEnabled()) {
+            return;
+        }
+        listenerContainer.addMessageListener(this::onMessage, new ChannelTopic(CHANNEL));
+        reconcile();
+    }
 
     public void blacklist(String jti, long secondsToLive) {
         if (jti == null) return;
         String key = KEY_PREFIX + jti;
         redis.opsForValue().set(key, "1", Duration.ofSeconds(Math.max(secondsToLive, 1)));
+        addLocal(jti);
+        try {
+            redis.convertAndSend(CHANNEL, jti + "|" + System.currentTimeMillis());
+        } catch (Exception ignored) {
+            // 广播失败由周期对账兜底
+        }
     }
 
     public boolean isBlacklisted(String jti) {
         if (jti == null) return false;
+        JwtProperties.Blacklist cfg = props.getBlacklist();
+        JtiBloomFilter f = filter;
+        if (cfg.isLocalFilterEnabled() && f != null && !f.mightContain(jti)) {
+            localNegatives.increment();
+            return false;
+        }
+        redisChecks.increment();
         Boolean exists = redis.hasKey(KEY_PREFIX + jti);
-        return exists != null && exists;
+        boolean hit = exists != null && exists;
+        if (!hit && f != null) {
+            falsePositives.increment();
+        }
+        return hit;
     }
 
     /** 便捷：直接用 token 计算剩余 TTL 并拉黑 */
@@ -36,4 +96,67 @@ public class TokenBlacklistService {
         long ttl = exp == null ? 0 : Math.max(0, (exp.getTime() - System.currentTimeMillis()) / 1000);
         blacklist(jti, ttl);
     }
+
+    /** 全量对账：SCAN 当前所有黑名单 key 重建过滤器后整体替换 */
+    @Scheduled(fixedDelayString = "${jwt.blacklist.reconcile-interval-ms:60000}",
+            initialDelayString = "${jwt.blacklist.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        JwtProperties.Blacklist cfg = props.getBlacklist();
+        if (!cfg.isLocalFilterEnabled()) {
+            filter = null;
+            return;
+        }
+        JtiBloomFilter next = new JtiBloomFilter(cfg.getExpectedInsertions(), cfg.getFalsePositiveRate());
+        rebuilding = next;
+        try (Cursor<String> cursor = redis.scan(
+                ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build())) {
+            while (cursor.hasNext()) {
+                next.put(cursor.next().substring(KEY_PREFIX.length()));
+            }
+            filter = next;
+            lastReconcileAt.set(System.currentTimeMillis());
+        } catch (Exception e) {
+            // 首次加载失败时 filter 仍为 null，isBlacklisted 退化为直接查 Redis
+            log.warn("Token blacklist reconcile failed: {}", e.getMessage());
+        } finally {
+            rebuilding = null;
+        }
+    }
+
+    void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.lastIndexOf('|');
+        String jti = sep > 0 ? body.substring(0, sep) : body;
+        addLocal(jti);
+        if (sep > 0) {
+            try {
+                lastMessageLagMs.set(System.currentTimeMillis() - Long.parseLong(body.substring(sep + 1)));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+    }
+
+    private void addLocal(String jti) {
+        JtiBloomFilter f = filter;
+        if (f != null) {
+            f.put(jti);
+        }
+        JtiBloomFilter r = rebuilding;
+        if (r != null) {
+            r.put(jti);
+        }
+    }
+
+    /** 本地过滤器统计：本地直接放行数、回源次数、误判数、最近一次对账时间与广播延迟 */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localFilterReady", filter != null);
+        stats.put("localNegatives", localNegatives.sum());
+        stats.put("redisChecks", redisChecks.sum());
+        stats.put("falsePositives", falsePositives.sum());
+        stats.put("lastReconcileAt", lastReconcileAt.get());
+        stats.put("stalenessBoundMs", props.getBlacklist().getReconcileIntervalMs());
+        stats.put("lastMessageLagMs", lastMessageLagMs.get());
+        return stats;
+    }
 }
@@ -0,0 +1,172 @@
+package com.xrcgs.auth.jwt;
+
+import com.xrcgs.common.security.UserPrincipal;
+import com.xrcgs.common.util.PermIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验签 Access Token 的进程内缓存
+ * - key：原始 token 的 SHA-256 摘要（不在内存中长期保留明文 token）
+ * - value：已构建好的 principal + 不可变权限列表 + 权限索引 + jti + 令牌纪元 + 过期时间
+ * - 读取时校验 exp，过期条目直接剔除；黑名单与纪元仍由过滤器在命中后检查
+ * - 条目数受 jwt.verified-cache-size 限制，超限时先清理过期条目，再淘汰最早写入的一批
+ */
+@Component
+@RequiredArgsConstructor
+public class VerifiedTokenCache {
+
+    private final JwtProperties props;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** 缓存条目：principal 与权限在多个请求间共享，必须不可变 */
+    public record Entry(UserPrincipal principal,
+                        List<GrantedAuthority> authorities,
+                        PermIndex permIndex,
+                        boolean admin,
+                        String jti,
+                        long epoch,
+                        long expiresAtMillis,
+                        long cachedAtNanos) {
+
+        public static Entry of(UserPrincipal principal, List<GrantedAuthority> authorities, PermIndex permIndex,
+                               boolean admin, String jti, long epoch, long expiresAtMillis) {
+            return new Entry(principal, List.copyOf(authorities), permIndex, admin, jti, epoch,
+                    expiresAtMillis, System.nanoTime());
+        }
+
+        boolean isExpired(long nowMillis) {
+            return expiresAtMillis <= nowMillis;
+        }
+    }
+
+    public boolean isEnabled() {
+        return props.getVerifiedCacheSize() > 0;
+    }
+
+    /** 命中且未过期返回条目，否则返回 null（并计一次 miss） */
+    public Entry get(String token) {
+        if (!isEnabled() || token == null) {
+            return null;
+        }
+        String key = digest(token);
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            cache.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    public void put(String token, Entry entry) {
+        if (!isEnabled() || token == null || entry.isExpired(System.currentTimeMillis())) {
+            return;
+        }
+        if (cache.size() >= props.getVerifiedCacheSize()) {
+            shrink();
+        }
+        cache.put(digest(token), entry);
+    }
+
+    /** 登出等场景主动失效 */
+    public void invalidate(String token) {
+        if (token != null) {
+            cache.remove(digest(token));
+        }
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    /** 命中/未命中统计，供监控或调试接口读取 */
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxSize", props.getVerifiedCacheSize());
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRatio", h + m == 0 ? 0d : (double) h / (h + m));
+        return stats;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * 先剔除过期条目；仍超限时按写入时间淘汰最早的 1/4，
+     * 避免每次写入都做全量扫描
+     */
+    private synchronized void shrink() {
+        int max = props.getVerifiedCacheSize();
+        if (cache.size() < max) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().isExpired(now)) {
+                it.remove();
+                evictions.increment();
+            }
+        }
+        if (cache.size() < max) {
+            return;
+        }
+        int toRemove = Math.max(1, cache.size() - max + max / 4);
+        cache.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(
+                        (a, b) -> Long.compare(a.cachedAtNanos(), b.cachedAtNanos())))
+                .limit(toRemove)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(k -> {
+                    if (cache.remove(k) != null) {
+                        evictions.increment();
+                    }
+                });
+    }
+
+    static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.xrcgs.auth.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 有界密码校验器：把 matches（BCrypt 校验）放到固定大小的独立线程池执行
+ * - 同时计算的 BCrypt 数 = poolSize，CPU 不会被登录洪峰吃满，其他接口仍能拿到算力
+ * - 调用方（请求线程）仍同步等待结果，并不会被释放；能被占住的请求线程至多 poolSize + queueCapacity 个，
+ *   队列满立即拒绝、等待超过 timeoutMs 视为繁忙，其余请求线程不会被登录拖住
+ * - 记录排队耗时（提交到开始执行），用于观察登录高峰的积压情况
+ * - encode / upgradeEncoding 仍直接委托（仅管理端低频调用）
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder queueNanosTotal = new LongAdder();
+    private final AtomicLong queueNanosMax = new AtomicLong();
+
+    /** 线程池饱和时抛出，登录接口据此返回"繁忙"而非"密码错误" */
+    public static class VerifyBusyException extends AuthenticationServiceException {
+        public VerifyBusyException(String msg) {
+            super(msg);
+        }
+    }
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int poolSize, int queueCapacity, long timeoutMs) {
+        this.delegate = delegate;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "pwd-verify-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long submittedAt = System.nanoTime();
+        Future<Boolean> future;
+        try {
+            future = executor.submit(() -> {
+                recordQueueTime(System.nanoTime() - submittedAt);
+                return delegate.matches(rawPassword, encodedPassword);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new VerifyBusyException("登录请求繁忙，请稍后重试");
+        }
+        try {
+            boolean ok = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            verified.increment();
+            return ok;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new VerifyBusyException("登录请求繁忙，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new AuthenticationServiceException("密码校验被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new AuthenticationServiceException("密码校验失败", cause);
+        }
+    }
+
+    private void recordQueueTime(long nanos) {
+        queueNanosTotal.add(nanos);
+        queueNanosMax.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** 校验次数、拒绝/超时次数、排队耗时（平均/最大，毫秒）及当前队列长度 */
+    public Map<String, Object> stats() {
+        long count = verified.sum() + timedOut.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("verified", verified.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("avgQueueMs", count == 0 ? 0d : queueNanosTotal.sum() / 1_000_000d / count);
+        stats.put("maxQueueMs", queueNanosMax.get() / 1_000_000d);
+        return stats;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -2,6 +2,7 @@ package com.xrcgs.auth.security;
 
 import com.xrcgs.common.cache.AuthCacheService;
 import com.xrcgs.common.security.UserPrincipal;
+import com.xrcgs.auth.jwt.JwtAuthenticationToken;
 import com.xrcgs.common.util.PermMatcher;
 import org.springframework.security.access.expression.SecurityExpressionRoot;
 import org.springframework.security.access.expression.method.MethodSecurityExpressionOperations;
@@ -30,6 +31,12 @@ public class IamSecurityExpressionRoot extends SecurityExpressionRoot
     public boolean hasPerm(String targetPerm) {
         Authentication auth = getAuthentication();  // ✅ 通过访问器获取
 
+        // JWT 认证时已预编译权限索引：直接查索引，不再重建权限集合
+        if (auth instanceof JwtAuthenticationToken jwt && jwt.getPermIndex() != null
+                && (jwt.isAdmin() || !jwt.getPermIndex().isEmpty())) {
+            return jwt.isAdmin() || jwt.getPermIndex().matches(targetPerm);
+        }
+
         if (isAdmin(auth == null ? null : auth.getAuthorities())) {
             return true;
         }
@@ -41,6 +48,7 @@ public class IamSecurityExpressionRoot extends SecurityExpressionRoot
             Set<String> cached = authCacheService.getCachedUserPerms(userId);
             if (cached != null) perms = cached;
         }
+        // 非 JWT 认证的兜底路径：每次评估都是一次性集合，直接线性匹配，不为单次查询构建索引
         return PermMatcher.match(perms, targetPerm);
     }
 
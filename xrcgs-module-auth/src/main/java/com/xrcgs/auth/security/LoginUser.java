@@ -1,6 +1,7 @@
 package com.xrcgs.auth.security;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.xrcgs.auth.user.AuthSnapshot;
 import com.xrcgs.infrastructure.audit.UserIdAware;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -30,6 +31,10 @@ public class LoginUser implements UserDetails, UserIdAware, Serializable {
     @JsonIgnore
     private Collection<? extends GrantedAuthority> authorities;
 
+    /** 登录时加载的认证快照（含角色、部门），供签发令牌复用 */
+    @JsonIgnore
+    private AuthSnapshot snapshot;
+
     // 账号状态（默认都为 true，可按需持久化）
     private boolean accountNonExpired = true;
     private boolean accountNonLocked = true;
@@ -107,6 +112,9 @@ public class LoginUser implements UserDetails, UserIdAware, Serializable {
     public void setAccountNonLocked(boolean accountNonLocked) { this.accountNonLocked = accountNonLocked; }
     public void setCredentialsNonExpired(boolean credentialsNonExpired) { this.credentialsNonExpired = credentialsNonExpired; }
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    @JsonIgnore
+    public AuthSnapshot getSnapshot() { return snapshot; }
+    public void setSnapshot(AuthSnapshot snapshot) { this.snapshot = snapshot; }
 
     /** equals/hashCode 以 id 为主，避免重复认证的比较问题 */
     @Override
@@ -0,0 +1,23 @@
+package com.xrcgs.auth.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录密码校验线程池配置
+ * BCrypt 校验为 CPU 密集型，限制并发避免登录高峰挤占全部请求线程
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.password-verify")
+public class PasswordVerifyProperties {
+    /** 是否启用独立校验线程池；关闭则在请求线程内直接校验 */
+    private boolean enabled = true;
+    /** 并发校验线程数，默认 CPU 核数的一半（至少 1） */
+    private int poolSize = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    /** 等待队列容量；排队中的登录仍占用其请求线程，队列满时直接拒绝（返回繁忙） */
+    private int queueCapacity = 64;
+    /** 单次校验（含排队）最长等待毫秒数 */
+    private long timeoutMs = 5000;
+}
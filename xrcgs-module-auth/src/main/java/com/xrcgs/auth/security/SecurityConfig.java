@@ -4,6 +4,7 @@ import com.xrcgs.auth.jwt.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.security.authentication.*;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -26,8 +27,10 @@ public class SecurityConfig {
     private final AuthUserDetailsService userDetailsService;
     private final JwtAuthenticationFilter jwtFilter;
     private final JsonAuthHandlers jsonHandlers;
+    private final PasswordVerifyProperties verifyProps;
 
     @Bean
+    @Primary
     public PasswordEncoder passwordEncoder() {
         // 支持 {bcrypt},{noop},{pbkdf2},{scrypt},{argon2} 等前缀
         DelegatingPasswordEncoder encoder =
@@ -37,11 +40,22 @@ public class SecurityConfig {
         return encoder;
     }
 
+    /**
+     * 登录校验专用：BCrypt 校验放入有界线程池，encode 等仍走 passwordEncoder()。
+     * 不作为 PasswordEncoder 的默认注入候选，按类型注入 PasswordEncoder 时只会拿到上面的 @Primary 实例；
+     * 需要它的地方用 @Qualifier("boundedPasswordEncoder") 显式注入
+     */
+    @Bean(destroyMethod = "shutdown", defaultCandidate = false)
+    public BoundedPasswordEncoder boundedPasswordEncoder() {
+        return new BoundedPasswordEncoder(passwordEncoder(),
+                verifyProps.getPoolSize(), verifyProps.getQueueCapacity(), verifyProps.getTimeoutMs());
+    }
+
     @Bean
     public AuthenticationProvider daoAuthenticationProvider() {
         DaoAuthenticationProvider p = new DaoAuthenticationProvider();
         p.setUserDetailsService(userDetailsService);
-        p.setPasswordEncoder(passwordEncoder());
+        p.setPasswordEncoder(verifyProps.isEnabled() ? boundedPasswordEncoder() : passwordEncoder());
         return p;
     }
 
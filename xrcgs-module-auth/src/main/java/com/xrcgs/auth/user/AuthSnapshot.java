@@ -0,0 +1,51 @@
+package com.xrcgs.auth.user;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 认证快照：一次联表查询得到的用户 + 角色信息，
+ * 在 UserDetailsService、登录、刷新之间共享，避免重复查库
+ */
+public record AuthSnapshot(Long userId,
+                           String username,
+                           String password,
+                           String nickname,
+                           boolean enabled,
+                           Long deptId,
+                           Set<Long> roleIds,
+                           List<String> roleCodes) implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 数据范围指纹：部门 + 排序后的角色ID 的摘要，随令牌下发。
+     * 令牌内的部门/指纹可信的前提是变更后旧令牌失效：用户改部门、改角色集合（UserServiceImpl#update、
+     * #assignRoles）以及角色停用、删除（RoleServiceImpl）都会在事务提交后提升令牌纪元强制换发。
+     * 指纹只标识“哪个部门 + 哪些角色”，不覆盖角色自身数据范围的内容，后者由服务端数据范围缓存按角色失效
+     */
+    public String scopeFingerprint() {
+        StringBuilder sb = new StringBuilder("d:").append(deptId).append("|r:");
+        if (roleIds != null) {
+            roleIds.stream().sorted().forEach(id -> sb.append(id).append(','));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AuthSnapshot{userId=" + userId + ", username='" + username + "', roles=" + roleCodes + "}";
+    }
+}
@@ -0,0 +1,49 @@
+package com.xrcgs.auth.user;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 认证快照加载：用户 + 角色一次联表查询
+ * 登录时由 UserDetailsService 加载并挂在 LoginUser 上，AuthController 直接复用；
+ * 刷新令牌时同样只需这一次查询
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthSnapshotLoader {
+
+    private final SysUserMapper userMapper;
+
+    /** 用户不存在返回 null */
+    public AuthSnapshot load(String username) {
+        if (username == null) {
+            return null;
+        }
+        List<AuthSnapshotRow> rows = userMapper.selectAuthSnapshot(username);
+        if (rows == null || rows.isEmpty()) {
+            return null;
+        }
+        AuthSnapshotRow first = rows.get(0);
+        Set<Long> roleIds = new LinkedHashSet<>();
+        List<String> roleCodes = new ArrayList<>();
+        for (AuthSnapshotRow row : rows) {
+            if (row.getRoleId() != null && roleIds.add(row.getRoleId()) && row.getRoleCode() != null) {
+                roleCodes.add(row.getRoleCode());
+            }
+        }
+        return new AuthSnapshot(
+                first.getId(),
+                first.getUsername(),
+                first.getPassword(),
+                first.getNickname(),
+                Boolean.TRUE.equals(first.getEnabled()),
+                first.getDeptId(),
+                Set.copyOf(roleIds),
+                List.copyOf(roleCodes));
+    }
+}
@@ -0,0 +1,18 @@
+package com.xrcgs.auth.user;
+
+import lombok.Data;
+
+/**
+ * 认证快照联表查询的单行结果（用户 × 角色，无角色时 roleId/roleCode 为空）
+ */
+@Data
+public class AuthSnapshotRow {
+    private Long id;
+    private String username;
+    private String password;
+    private String nickname;
+    private Boolean enabled;
+    private Long deptId;
+    private Long roleId;
+    private String roleCode;
+}
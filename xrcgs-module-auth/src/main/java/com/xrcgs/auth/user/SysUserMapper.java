@@ -2,7 +2,13 @@ package com.xrcgs.auth.user;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface SysUserMapper extends BaseMapper<SysUser> {
-}
\ No newline at end of file
+
+    /** 用户 + 角色联表查询（一次往返），每个角色一行 */
+    List<AuthSnapshotRow> selectAuthSnapshot(@Param("username") String username);
+}
@@ -0,0 +1,67 @@
+package com.xrcgs.auth.jwt;
+
+import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.iam.service.PermService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PermSetResolverTest {
+
+    @Mock
+    private AuthCacheService authCacheService;
+    @Mock
+    private PermService permService;
+
+    private PermSetResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new PermSetResolver(authCacheService, permService);
+    }
+
+    @Test
+    void hashShouldNotDependOnOrder() {
+        String a = resolver.register(List.of("iam:user:list", "iam:role:*"));
+        String b = resolver.register(List.of("iam:role:*", "iam:user:list"));
+
+        assertEquals(a, b);
+        assertEquals(32, a.length());
+        verify(authCacheService, times(2)).cachePermSet(eq(a), anySet());
+    }
+
+    @Test
+    void shouldResolveThroughPermSetCache() {
+        when(authCacheService.getCachedPermSet("abc")).thenReturn(Set.of("file:*"));
+
+        PermSetResolver.Resolved resolved = resolver.resolve("abc", 1L);
+
+        assertTrue(resolved.index().matches("file:upload:any"));
+        assertEquals("PERM_file:*", resolved.authorities().get(0).getAuthority());
+        verify(permService, never()).loadAndCacheUserPerms(anyLong());
+    }
+
+    @Test
+    void shouldReloadUserPermsWhenSetMissing() {
+        when(authCacheService.getCachedPermSet("gone")).thenReturn(null);
+        when(permService.loadAndCacheUserPerms(7L)).thenReturn(Set.of("iam:dept:list"));
+
+        PermSetResolver.Resolved resolved = resolver.resolve("gone", 7L);
+
+        assertTrue(resolved.perms().contains("iam:dept:list"));
+        // 重新聚合的集合按新哈希回写，后续令牌可直接解析
+        verify(authCacheService).cachePermSet(eq(PermSetResolver.hash(new TreeSet<>(Set.of("iam:dept:list")))), anySet());
+        assertNull(resolver.resolve("gone", null));
+    }
+}
@@ -0,0 +1,99 @@
+package com.xrcgs.auth.jwt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenBlacklistServiceTest {
+
+    @Mock
+    private StringRedisTemplate redis;
+    @Mock
+    private RedisMessageListenerContainer container;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private JwtProperties props;
+    private TokenBlacklistService service;
+
+    @BeforeEach
+    void setUp() {
+        props = new JwtProperties();
+        service = new TokenBlacklistService(redis, props, container);
+    }
+
+    @Test
+    void shouldSkipRedisForUnknownJtiOnceFilterLoaded() {
+        mockScan(List.of("jwt:blacklist:revoked"));
+        service.init();
+        when(redis.hasKey("jwt:blacklist:revoked")).thenReturn(true);
+
+        assertFalse(service.isBlacklisted("fresh"));
+        assertTrue(service.isBlacklisted("revoked"));
+        verify(redis, never()).hasKey("jwt:blacklist:fresh");
+    }
+
+    @Test
+    void shouldAddJtiFromBroadcastMessage() {
+        mockScan(List.of());
+        service.init();
+        when(redis.hasKey("jwt:blacklist:remote")).thenReturn(true);
+
+        assertFalse(service.isBlacklisted("remote"));
+        service.onMessage(new DefaultMessage("jwt:blacklist:channel".getBytes(StandardCharsets.UTF_8),
+                ("remote|" + System.currentTimeMillis()).getBytes(StandardCharsets.UTF_8)), null);
+
+        assertTrue(service.isBlacklisted("remote"));
+    }
+
+    @Test
+    void shouldWriteRedisAndPublishOnBlacklist() {
+        mockScan(List.of());
+        service.init();
+        when(redis.opsForValue()).thenReturn(valueOperations);
+        when(redis.hasKey("jwt:blacklist:jti-1")).thenReturn(true);
+
+        service.blacklist("jti-1", 60);
+
+        verify(valueOperations).set(eq("jwt:blacklist:jti-1"), eq("1"), any());
+        verify(redis).convertAndSend(eq(TokenBlacklistService.CHANNEL), startsWith("jti-1|"));
+        assertTrue(service.isBlacklisted("jti-1"));
+    }
+
+    @Test
+    void shouldFallBackToRedisWhenFilterDisabled() {
+        props.getBlacklist().setLocalFilterEnabled(false);
+        service.init();
+        when(redis.hasKey("jwt:blacklist:any")).thenReturn(false);
+
+        assertFalse(service.isBlacklisted("any"));
+        verify(redis).hasKey("jwt:blacklist:any");
+        verifyNoInteractions(container);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockScan(List<String> keys) {
+        Cursor<String> cursor = mock(Cursor.class);
+        Iterator<String> it = keys.iterator();
+        when(cursor.hasNext()).thenAnswer(inv -> it.hasNext());
+        lenient().when(cursor.next()).thenAnswer(inv -> it.next());
+        when(redis.scan(any(ScanOptions.class))).thenReturn(cursor);
+    }
+}
@@ -0,0 +1,83 @@
+package com.xrcgs.auth.jwt;
+
+import com.xrcgs.common.security.UserPrincipal;
+import com.xrcgs.common.util.PermIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private JwtProperties props;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        props = new JwtProperties();
+        props.setVerifiedCacheSize(4);
+        cache = new VerifiedTokenCache(props);
+    }
+
+    @Test
+    void shouldReturnCachedEntryAndCountHits() {
+        List<GrantedAuthority> auths = new ArrayList<>(List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        cache.put("token-a", entry(new UserPrincipal(1L, "admin"), auths, "jti-a", future()));
+
+        assertNull(cache.get("token-b"));
+        VerifiedTokenCache.Entry entry = cache.get("token-a");
+
+        assertNotNull(entry);
+        assertEquals("jti-a", entry.jti());
+        assertEquals(1L, entry.principal().getUserId());
+        assertThrows(UnsupportedOperationException.class,
+                () -> entry.authorities().add(new SimpleGrantedAuthority("ROLE_X")));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void shouldNotServeExpiredEntries() {
+        cache.put("expired", entry(new UserPrincipal(1L, "admin"), List.of(), "jti", System.currentTimeMillis() - 1));
+        assertNull(cache.get("expired"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldInvalidateEntry() {
+        cache.put("token", entry(new UserPrincipal(1L, "admin"), List.of(), "jti", future()));
+        cache.invalidate("token");
+        assertNull(cache.get("token"));
+    }
+
+    @Test
+    void shouldStayWithinMaxSize() {
+        for (int i = 0; i < 20; i++) {
+            cache.put("token-" + i, entry(new UserPrincipal((long) i, "u" + i), List.of(), "jti-" + i, future()));
+        }
+        assertTrue(cache.size() <= props.getVerifiedCacheSize());
+        assertNotNull(cache.get("token-19"));
+    }
+
+    @Test
+    void shouldBypassWhenDisabled() {
+        props.setVerifiedCacheSize(0);
+        cache.put("token", entry(new UserPrincipal(1L, "admin"), List.of(), "jti", future()));
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.missCount());
+    }
+
+    private static VerifiedTokenCache.Entry entry(UserPrincipal principal, List<GrantedAuthority> auths,
+                                                  String jti, long expiresAtMillis) {
+        return VerifiedTokenCache.Entry.of(principal, auths, PermIndex.empty(), false, jti, 0L, expiresAtMillis);
+    }
+
+    private static long future() {
+        return System.currentTimeMillis() + 60_000;
+    }
+}
@@ -0,0 +1,89 @@
+package com.xrcgs.auth.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+    private ExecutorService callers;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) encoder.shutdown();
+        if (callers != null) callers.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void shouldDelegateMatchesAndRecordStats() {
+        encoder = new BoundedPasswordEncoder(NoOpPasswordEncoder.getInstance(), 1, 4, 1000);
+
+        assertTrue(encoder.matches("pwd", "pwd"));
+        assertFalse(encoder.matches("pwd", "other"));
+        assertEquals("pwd", encoder.encode("pwd"));
+        assertEquals(2L, encoder.stats().get("verified"));
+        assertEquals(0L, encoder.stats().get("rejected"));
+    }
+
+    @Test
+    void shouldRejectWhenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blocking(started, release), 1, 1, 5000);
+        callers = Executors.newFixedThreadPool(2);
+
+        callers.submit(() -> encoder.matches("a", "a"));   // 占用唯一工作线程
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.matches("b", "b"));   // 进入队列
+        waitUntilQueued(1);
+
+        assertThrows(BoundedPasswordEncoder.VerifyBusyException.class, () -> encoder.matches("c", "c"));
+        assertEquals(1L, encoder.stats().get("rejected"));
+        release.countDown();
+    }
+
+    @Test
+    void shouldTimeoutWhenVerificationTakesTooLong() {
+        encoder = new BoundedPasswordEncoder(blocking(new CountDownLatch(1), new CountDownLatch(1)), 1, 1, 50);
+
+        assertThrows(BoundedPasswordEncoder.VerifyBusyException.class, () -> encoder.matches("a", "a"));
+        assertEquals(1L, encoder.stats().get("timedOut"));
+    }
+
+    private void waitUntilQueued(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while ((int) encoder.stats().get("queued") < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static PasswordEncoder blocking(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package com.xrcgs.auth.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录压测（手动运行 main，不参与单元测试）
+ * - 用固定大小线程池模拟 Tomcat 请求线程，内存 UserDetailsService 代替数据库（角色/权限加载与 Redis 不在本压测范围）
+ * - 持续压入登录请求，同时以固定间隔提交一个"普通接口"探针任务，对比：
+ *   a) 请求线程内直接 BCrypt 校验；b) BoundedPasswordEncoder 有界校验
+ * - 输出登录吞吐（成功/拒绝）及探针延迟 p50/p99，观察登录洪峰对其它接口的影响
+ */
+public class LoginLoadBenchmark {
+
+    private static final int REQUEST_THREADS = 32;
+    private static final int LOGIN_CLIENTS = 64;
+    private static final long DURATION_MS = 10_000;
+    private static final long BUSY_BACKOFF_MS = 100;
+
+    public static void main(String[] args) throws Exception {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder();
+        UserDetails user = User.withUsername("admin").password(bcrypt.encode("123456")).roles("ADMIN").build();
+        UserDetailsService users = username -> user;
+
+        run("direct", provider(users, bcrypt));
+
+        int pool = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        BoundedPasswordEncoder bounded = new BoundedPasswordEncoder(bcrypt, pool, pool * 4, 5000);
+        try {
+            run("bounded", provider(users, bounded));
+            System.out.println("bounded stats: " + bounded.stats());
+        } finally {
+            bounded.shutdown();
+        }
+    }
+
+    private static DaoAuthenticationProvider provider(UserDetailsService users, PasswordEncoder encoder) {
+        DaoAuthenticationProvider p = new DaoAuthenticationProvider();
+        p.setUserDetailsService(users);
+        p.setPasswordEncoder(encoder);
+        return p;
+    }
+
+    private static void run(String name, DaoAuthenticationProvider provider) throws Exception {
+        ExecutorService requestPool = Executors.newFixedThreadPool(REQUEST_THREADS);
+        ExecutorService clients = Executors.newFixedThreadPool(LOGIN_CLIENTS + 1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder ok = new LongAdder();
+        LongAdder busy = new LongAdder();
+        List<Long> probeNanos = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < LOGIN_CLIENTS; i++) {
+            clients.submit(() -> {
+                while (running.get()) {
+                    Future<Boolean> f = requestPool.submit(() -> {
+                        try {
+                            provider.authenticate(new UsernamePasswordAuthenticationToken("admin", "123456"));
+                            ok.increment();
+                            return true;
+                        } catch (AuthenticationServiceException e) {
+                            busy.increment();
+                            return false;
+                        }
+                    });
+                    try {
+                        if (!f.get()) {
+                            Thread.sleep(BUSY_BACKOFF_MS); // 客户端收到 503 后退避重试
+                        }
+                    } catch (Exception e) {
+                        return;
+                    }
+                }
+            });
+        }
+        clients.submit(() -> {
+            while (running.get()) {
+                long start = System.nanoTime();
+                try {
+                    requestPool.submit(() -> Math.sqrt(start)).get();
+                    probeNanos.add(System.nanoTime() - start);
+                    Thread.sleep(10);
+                } catch (Exception e) {
+                    return;
+                }
+            }
+        });
+
+        Thread.sleep(DURATION_MS);
+        running.set(false);
+        clients.shutdown();
+        clients.awaitTermination(30, TimeUnit.SECONDS);
+        requestPool.shutdownNow();
+
+        List<Long> sorted = new ArrayList<>(probeNanos);
+        Collections.sort(sorted);
+        double seconds = DURATION_MS / 1000d;
+        System.out.printf("%-8s logins/s=%.1f busy/s=%.1f probe p50=%.2fms p99=%.2fms (n=%d)%n",
+                name, ok.sum() / seconds, busy.sum() / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.size());
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) return 0;
+        int idx = Math.min(sorted.size() - 1, (int) Math.ceil(p * sorted.size()) - 1);
+        return sorted.get(Math.max(0, idx)) / 1_000_000d;
+    }
+}
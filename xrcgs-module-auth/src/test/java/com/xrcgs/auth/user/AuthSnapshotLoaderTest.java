@@ -0,0 +1,79 @@
+package com.xrcgs.auth.user;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthSnapshotLoaderTest {
+
+    @Mock
+    private SysUserMapper userMapper;
+
+    @InjectMocks
+    private AuthSnapshotLoader loader;
+
+    @Test
+    void shouldFoldJoinedRowsIntoSnapshot() {
+        when(userMapper.selectAuthSnapshot("admin")).thenReturn(List.of(
+                row(1L, "ADMIN"), row(2L, "OPS"), row(2L, "OPS")));
+
+        AuthSnapshot snapshot = loader.load("admin");
+
+        assertEquals(9L, snapshot.userId());
+        assertEquals(100L, snapshot.deptId());
+        assertTrue(snapshot.enabled());
+        assertEquals(Set.of(1L, 2L), snapshot.roleIds());
+        assertEquals(List.of("ADMIN", "OPS"), snapshot.roleCodes());
+        verify(userMapper, times(1)).selectAuthSnapshot("admin");
+    }
+
+    @Test
+    void shouldHandleUserWithoutRoles() {
+        when(userMapper.selectAuthSnapshot("guest")).thenReturn(List.of(row(null, null)));
+
+        AuthSnapshot snapshot = loader.load("guest");
+
+        assertTrue(snapshot.roleIds().isEmpty());
+        assertTrue(snapshot.roleCodes().isEmpty());
+    }
+
+    @Test
+    void scopeFingerprintShouldDependOnDeptAndRoleSetOnly() {
+        AuthSnapshot a = new AuthSnapshot(1L, "a", null, null, true, 100L, Set.of(1L, 2L), List.of());
+        AuthSnapshot sameScope = new AuthSnapshot(2L, "b", null, null, true, 100L, Set.of(2L, 1L), List.of());
+        AuthSnapshot otherDept = new AuthSnapshot(1L, "a", null, null, true, 101L, Set.of(1L, 2L), List.of());
+        AuthSnapshot otherRoles = new AuthSnapshot(1L, "a", null, null, true, 100L, Set.of(1L), List.of());
+
+        assertEquals(a.scopeFingerprint(), sameScope.scopeFingerprint());
+        assertNotEquals(a.scopeFingerprint(), otherDept.scopeFingerprint());
+        assertNotEquals(a.scopeFingerprint(), otherRoles.scopeFingerprint());
+        assertEquals(16, a.scopeFingerprint().length());
+    }
+
+    @Test
+    void shouldReturnNullWhenUserMissing() {
+        when(userMapper.selectAuthSnapshot("nobody")).thenReturn(List.of());
+        assertNull(loader.load("nobody"));
+    }
+
+    private static AuthSnapshotRow row(Long roleId, String roleCode) {
+        AuthSnapshotRow row = new AuthSnapshotRow();
+        row.setId(9L);
+        row.setUsername("admin");
+        row.setPassword("{bcrypt}hash");
+        row.setEnabled(true);
+        row.setDeptId(100L);
+        row.setRoleId(roleId);
+        row.setRoleCode(roleCode);
+        return row;
+    }
+}
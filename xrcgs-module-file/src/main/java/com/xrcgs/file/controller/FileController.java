@@ -13,6 +13,7 @@ import com.xrcgs.file.service.SysFileService;
 import com.xrcgs.file.storage.FileStorage;
 import com.xrcgs.file.web.RangeSender;
 import com.xrcgs.syslog.annotation.OpLog; // 按你实际包名替换
+import com.xrcgs.common.core.CursorPage;
 import com.xrcgs.common.core.R;           // 按你实际包名替换
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -90,6 +91,25 @@ public class FileController {
         return R.ok(fileService.pageQuery(bizType, fileType, from, to, keyword, page, size));
     }
 
+    /**
+     * 游标分页查询资料库（深翻页不退化）
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param size 每页条数
+     * @param withTotal 首页是否附带总数
+     * @return
+     */
+    @GetMapping("/cursor")
+    public R<CursorPage<SysFile>> cursor(@RequestParam(name = "bizType", required = false) String bizType,
+                                         @RequestParam(name = "fileType", required = false) String fileType,
+                                         @RequestParam(name = "from", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime from,
+                                         @RequestParam(name = "to", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime to,
+                                         @RequestParam(name = "keyword", required = false) String keyword,
+                                         @RequestParam(name = "cursor", required = false) String cursor,
+                                         @RequestParam(name = "size", defaultValue = "10") long size,
+                                         @RequestParam(name = "withTotal", defaultValue = "false") boolean withTotal) {
+        return R.ok(fileService.cursorQuery(bizType, fileType, from, to, keyword, cursor, size, withTotal));
+    }
+
     // ============ 下载 ============
     @GetMapping("/download/{id}")
     @OpLog("文件下载")
@@ -1,11 +1,28 @@
 package com.xrcgs.file.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.xrcgs.file.model.entity.SysFile;
+import com.xrcgs.iam.datascope.DataScoped;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
 
 
 @Mapper
 public interface SysFileMapper extends BaseMapper<SysFile> {
-    // 不写任何 @Select，自定义统计改到 Service 用 Wrapper 完成
+    // 条件仍由 Service 用 Wrapper 拼装；以下方法只是带数据范围的查询入口（条件由数据权限插件注入）
+
+    @DataScoped
+    @Select("SELECT * FROM sys_file ${ew.customSqlSegment}")
+    IPage<SysFile> selectScopedPage(IPage<SysFile> page, @Param(Constants.WRAPPER) Wrapper<SysFile> wrapper);
+
+    @DataScoped
+    @Select("SELECT ${ew.sqlSelect} FROM sys_file ${ew.customSqlSegment}")
+    List<Map<String, Object>> selectScopedMaps(@Param(Constants.WRAPPER) Wrapper<SysFile> wrapper);
 }
@@ -1,6 +1,7 @@
 package com.xrcgs.file.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xrcgs.common.core.CursorPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.xrcgs.file.model.entity.SysFile;
 import com.xrcgs.file.model.vo.FileVO;
@@ -24,6 +25,10 @@ public interface SysFileService extends IService<SysFile> {
     // 分页查询
     Page<SysFile> pageQuery(String bizType, String fileType, LocalDateTime from, LocalDateTime to, String keyword, long page, long size);
 
+    // 游标分页查询：按 (createdAt, id) 倒序，不做 OFFSET 与 COUNT
+    CursorPage<SysFile> cursorQuery(String bizType, String fileType, LocalDateTime from, LocalDateTime to, String keyword,
+                                    String cursor, long size, boolean withTotal);
+
     // 通过文件业务类型查找状态
     List<Map<String,Object>> statsByBizType(String bizType);
 
@@ -4,9 +4,8 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.xrcgs.iam.datascope.DataScopeManager;
-import com.xrcgs.iam.datascope.DataScopeUtil;
-import com.xrcgs.iam.datascope.EffectiveDataScope;
+import com.xrcgs.common.core.CursorPage;
+import com.xrcgs.common.core.KeysetCursor;
 import com.xrcgs.iam.entity.SysUser;
 import com.xrcgs.iam.mapper.SysUserMapper;
 import com.xrcgs.file.config.FileProperties;
@@ -45,7 +44,6 @@ public class SysFileServiceImpl extends ServiceImpl<SysFileMapper, SysFile> impl
     private final FileStorage storage;
     private final FileProperties props;
     private final SysFileMapper mapper;
-    private final DataScopeManager dataScopeManager;
     private final UserIdProvider userIdProvider;
     private final SysUserMapper userMapper;
 
@@ -183,6 +181,38 @@ public class SysFileServiceImpl extends ServiceImpl<SysFileMapper, SysFile> impl
      */
     @Override
     public Page<SysFile> pageQuery(String bizType, String fileType, LocalDateTime from, LocalDateTime to, String keyword, long page, long size) {
+        LambdaQueryWrapper<SysFile> qw = buildPageWrapper(bizType, fileType, from, to, keyword);
+        qw.orderByDesc(SysFile::getCreatedAt);
+        // 数据范围由数据权限插件按请求上下文注入（见 SysFileMapper#selectScopedPage）
+        Page<SysFile> result = Page.of(page, size);
+        mapper.selectScopedPage(result, qw);
+        return result;
+    }
+
+    @Override
+    public CursorPage<SysFile> cursorQuery(String bizType, String fileType, LocalDateTime from, LocalDateTime to, String keyword,
+                                           String cursor, long size, boolean withTotal) {
+        int limit = CursorPage.normalizeSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        LambdaQueryWrapper<SysFile> qw = buildPageWrapper(bizType, fileType, from, to, keyword);
+        if (after != null) {
+            LocalDateTime at = after.sortKeyAsDateTime();
+            qw.and(c -> c.lt(SysFile::getCreatedAt, at)
+                    .or(o -> o.eq(SysFile::getCreatedAt, at).lt(SysFile::getId, after.id())));
+        }
+        qw.orderByDesc(SysFile::getCreatedAt).orderByDesc(SysFile::getId);
+        // 多取一行判断 hasMore；只有首页且显式请求时才 COUNT
+        Page<SysFile> result = Page.of(1, limit + 1, withTotal && after == null);
+        mapper.selectScopedPage(result, qw);
+        CursorPage<SysFile> page = CursorPage.of(result.getRecords(), limit,
+                row -> KeysetCursor.encode(row.getCreatedAt(), row.getId()));
+        if (result.searchCount()) {
+            page.setTotal(result.getTotal());
+        }
+        return page;
+    }
+
+    private LambdaQueryWrapper<SysFile> buildPageWrapper(String bizType, String fileType, LocalDateTime from, LocalDateTime to, String keyword) {
         LambdaQueryWrapper<SysFile> qw = new LambdaQueryWrapper<>();
         if (StringUtils.hasText(bizType)) qw.eq(SysFile::getBizType, bizType);
         if (StringUtils.hasText(fileType)) qw.eq(SysFile::getFileType, fileType);
@@ -192,11 +222,7 @@ public class SysFileServiceImpl extends ServiceImpl<SysFileMapper, SysFile> impl
             qw.and(c -> c.like(SysFile::getOriginalName, keyword).or().like(SysFile::getSha256, keyword));
         }
         qw.ne(SysFile::getStatus, FileStatus.DELETED.name());
-        Long userId = userIdProvider.getCurrentUserId();
-        EffectiveDataScope scope = dataScopeManager.getEffectiveDataScope(userId);
-        DataScopeUtil.apply(qw, scope, userId, SysFile::getCreatedBy, SysFile::getDeptId);
-        qw.orderByDesc(SysFile::getCreatedAt);
-        return this.page(Page.of(page, size), qw);
+        return qw;
     }
 
     /**
@@ -214,10 +240,7 @@ public class SysFileServiceImpl extends ServiceImpl<SysFileMapper, SysFile> impl
                 .select("status", "COUNT(*) AS cnt", "COALESCE(SUM(size),0) AS totalSize")
                 .eq("biz_type", bizType)
                 .groupBy("status");
-        Long userId = userIdProvider.getCurrentUserId();
-        EffectiveDataScope scope = dataScopeManager.getEffectiveDataScope(userId);
-        DataScopeUtil.apply(qw, scope, userId, "created_by", "dept_id");
-        return this.listMaps(qw);
+        return mapper.selectScopedMaps(qw);
     }
 
     /**
@@ -298,6 +321,10 @@ public class SysFileServiceImpl extends ServiceImpl<SysFileMapper, SysFile> impl
         if (userId == null) {
             return null;
         }
+        // 当前用户：令牌携带了数据范围指纹时部门可信（可能为 null），无需查 sys_user
+        if (userId.equals(userIdProvider.getCurrentUserId()) && userIdProvider.getCurrentScopeFingerprint() != null) {
+            return userIdProvider.getCurrentDeptId();
+        }
         try {
             SysUser user = userMapper.selectById(userId);
             if (user == null) {
@@ -2,19 +2,20 @@ package com.xrcgs.iam.controller;
 
 import com.xrcgs.common.core.R;
 import com.xrcgs.iam.model.dto.DeptUpsertDTO;
-import com.xrcgs.iam.model.vo.DeptTreeVO;
+import com.xrcgs.iam.model.vo.DeptTreeJson;
 import com.xrcgs.iam.model.vo.DeptVO;
 import com.xrcgs.iam.service.DeptService;
 import com.xrcgs.syslog.annotation.OpLog;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * 部门管理接口
  */
@@ -26,11 +27,22 @@ public class DeptController {
 
     private final DeptService deptService;
 
+    /**
+     * 部门树：无名称过滤时返回按版本缓存的预序列化结果并带 ETag，
+     * If-None-Match 命中时由 Spring 直接应答 304（不写响应体）
+     */
     @GetMapping("/tree")
     @PreAuthorize("@permChecker.hasPerm(authentication, 'iam:dept:tree')")
-    public R<List<DeptTreeVO>> tree(@RequestParam(value = "name", required = false) String name,
-                                    @RequestParam(value = "status", required = false) Integer status) {
-        return R.ok(deptService.tree(name, status));
+    public ResponseEntity<R<?>> tree(@RequestParam(value = "name", required = false) String name,
+                                     @RequestParam(value = "status", required = false) Integer status) {
+        if (StringUtils.hasText(name)) {
+            return ResponseEntity.ok(R.ok(deptService.tree(name, status)));
+        }
+        DeptTreeJson tree = deptService.cachedTree(status);
+        return ResponseEntity.ok()
+                .eTag(tree.getEtag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(R.ok(tree));
     }
 
     @GetMapping("/{id}")
@@ -1,6 +1,7 @@
 package com.xrcgs.iam.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xrcgs.common.core.CursorPage;
 import com.xrcgs.common.core.R;
 import com.xrcgs.iam.model.dto.UserAssignRoleDTO;
 import com.xrcgs.iam.model.dto.UserResetPasswordDTO;
@@ -36,6 +37,15 @@ public class UserController {
         return R.ok(userService.page(query, pageNo, pageSize));
     }
 
+    @GetMapping("/cursor")
+    @PreAuthorize("@permChecker.hasPerm(authentication, 'iam:user:list')")
+    public R<CursorPage<UserVO>> cursor(@Valid UserPageQuery query,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "10") long size,
+                                        @RequestParam(defaultValue = "false") boolean withTotal) {
+        return R.ok(userService.cursor(query, cursor, size, withTotal));
+    }
+
     @GetMapping("/search-by-nickname")
     @PreAuthorize("@permChecker.hasPerm(authentication, 'iam:user:list')")
     public R<List<UserVO>> searchByNickname(@RequestParam String nickname) {
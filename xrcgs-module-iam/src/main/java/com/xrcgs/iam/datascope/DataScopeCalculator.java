@@ -3,13 +3,12 @@ package com.xrcgs.iam.datascope;
 import com.xrcgs.iam.entity.SysDept;
 import com.xrcgs.iam.entity.SysRole;
 import com.xrcgs.iam.entity.SysUser;
-import com.xrcgs.iam.enums.DataScope;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -19,50 +18,72 @@ import java.util.Set;
 public class DataScopeCalculator {
 
     public EffectiveDataScope calculate(SysUser user, List<SysRole> roles, List<SysDept> departments) {
+        return calculate(user, roles, DeptTreeSnapshot.build(0L, departments));
+    }
+
+    /** 使用共享的部门树快照计算，子树展开为先序区间的顺序扫描 */
+    public EffectiveDataScope calculate(SysUser user, List<SysRole> roles, DeptTreeSnapshot tree) {
+        if (user == null) {
+            return EffectiveDataScope.selfOnly();
+        }
+        List<ScopeDescriptor> roleScopes = new ArrayList<>(roles == null ? 0 : roles.size());
+        if (roles != null) {
+            for (SysRole role : roles) {
+                if (role != null) {
+                    roleScopes.add(ScopeDescriptor.ofRole(role));
+                }
+            }
+        }
+        return calculate(ScopeDescriptor.ofUser(user), roleScopes, tree);
+    }
+
+    /**
+     * 合并已解析的用户与角色范围（角色描述符来自 {@link RoleScopeRegistry}，计算过程不再解析 JSON）
+     */
+    public EffectiveDataScope calculate(ScopeDescriptor user, List<ScopeDescriptor> roles, DeptTreeSnapshot tree) {
         if (user == null) {
             return EffectiveDataScope.selfOnly();
         }
-        Map<Long, Set<Long>> children = DataScopeUtil.buildChildrenMap(departments);
+        if (tree == null) {
+            tree = DeptTreeSnapshot.empty();
+        }
 
         boolean all = false;
         boolean self = false;
         Set<Long> deptIds = new LinkedHashSet<>();
+        // 未展开形式：子树根 + 单独部门，供 SQL 按闭包表展开过滤
+        Set<Long> subtreeRoots = new LinkedHashSet<>();
+        Set<Long> directDeptIds = new LinkedHashSet<>();
 
-        DataScope userScope = user.getDataScope() == null ? DataScope.SELF : user.getDataScope();
-        Set<Long> userExtraDepts = DataScopeUtil.parseIdSet(user.getExtraDeptIds());
-        Set<Long> userCustomDepts = DataScopeUtil.parseIdSet(user.getDataScopeExt());
-
-        switch (userScope) {
+        switch (user.getKind()) {
             case ALL -> all = true;
             case SELF -> self = true;
             case DEPT -> {
                 addDept(user.getDeptId(), deptIds);
-                DataScopeUtil.merge(deptIds, userExtraDepts);
+                addAll(user.extraDeptIds(), deptIds);
+                addDept(user.getDeptId(), directDeptIds);
+                addAll(user.extraDeptIds(), directDeptIds);
             }
             case DEPT_AND_CHILD -> {
-                deptIds.addAll(DataScopeUtil.collectWithChildren(user.getDeptId(), children));
-                for (Long extra : userExtraDepts) {
-                    deptIds.addAll(DataScopeUtil.collectWithChildren(extra, children));
+                tree.collectSubtree(user.getDeptId(), deptIds);
+                addDept(user.getDeptId(), subtreeRoots);
+                for (long extra : user.extraDeptIds()) {
+                    tree.collectSubtree(extra, deptIds);
+                    subtreeRoots.add(extra);
                 }
             }
-            case CUSTOM -> DataScopeUtil.merge(deptIds, userCustomDepts);
+            case CUSTOM -> {
+                addAll(user.customDeptIds(), deptIds);
+                addAll(user.customDeptIds(), directDeptIds);
+            }
         }
 
         if (!all && roles != null) {
-            for (SysRole role : roles) {
-                if (role == null) {
+            for (ScopeDescriptor role : roles) {
+                if (role == null || !role.isActive()) {
                     continue;
                 }
-                if (role.getDelFlag() != null && role.getDelFlag() == 1) {
-                    continue;
-                }
-                if (role.getStatus() != null && role.getStatus() != 1) {
-                    continue;
-                }
-                DataScope scope = role.getDataScope() == null ? DataScope.SELF : role.getDataScope();
-                Set<Long> extraDepts = DataScopeUtil.parseIdSet(role.getExtraDeptIds());
-                Set<Long> customDepts = DataScopeUtil.parseIdSet(role.getDataScopeExt());
-                switch (scope) {
+                switch (role.getKind()) {
                     case ALL -> {
                         all = true;
                         self = true;
@@ -71,16 +92,23 @@ public class DataScopeCalculator {
                     case DEPT -> {
                         Long base = role.getDeptId() != null ? role.getDeptId() : user.getDeptId();
                         addDept(base, deptIds);
-                        DataScopeUtil.merge(deptIds, extraDepts);
+                        addAll(role.extraDeptIds(), deptIds);
+                        addDept(base, directDeptIds);
+                        addAll(role.extraDeptIds(), directDeptIds);
                     }
                     case DEPT_AND_CHILD -> {
                         Long base = role.getDeptId() != null ? role.getDeptId() : user.getDeptId();
-                        deptIds.addAll(DataScopeUtil.collectWithChildren(base, children));
-                        for (Long extra : extraDepts) {
-                            deptIds.addAll(DataScopeUtil.collectWithChildren(extra, children));
+                        tree.collectSubtree(base, deptIds);
+                        addDept(base, subtreeRoots);
+                        for (long extra : role.extraDeptIds()) {
+                            tree.collectSubtree(extra, deptIds);
+                            subtreeRoots.add(extra);
                         }
                     }
-                    case CUSTOM -> DataScopeUtil.merge(deptIds, customDepts);
+                    case CUSTOM -> {
+                        addAll(role.customDeptIds(), deptIds);
+                        addAll(role.customDeptIds(), directDeptIds);
+                    }
                 }
                 if (all) {
                     break;
@@ -96,7 +124,16 @@ public class DataScopeCalculator {
             self = true;
         }
 
-        return EffectiveDataScope.ofDepartments(deptIds, self);
+        EffectiveDataScope result = EffectiveDataScope.ofDepartments(deptIds, self);
+        result.setSubtreeRoots(subtreeRoots);
+        result.setDirectDeptIds(directDeptIds);
+        return result;
+    }
+
+    private void addAll(long[] ids, Collection<Long> target) {
+        for (long id : ids) {
+            target.add(id);
+        }
     }
 
     private void addDept(Long deptId, Collection<Long> target) {
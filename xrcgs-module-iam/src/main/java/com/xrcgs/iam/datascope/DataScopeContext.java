@@ -4,23 +4,99 @@ import java.util.function.Supplier;
 
 /**
  * Simple holder to expose the effective data scope for the duration of a request.
+ * 请求开始时由 {@link DataScopeContextFilter} 绑定当前用户，数据范围在首次使用时解析且每个请求只解析一次；
+ * 异步线程通过 {@link DataScopeTaskDecorator} 继承同一绑定。
  */
 public final class DataScopeContext {
 
-    private static final ThreadLocal<EffectiveDataScope> CONTEXT = new ThreadLocal<>();
+    private static final ThreadLocal<Binding> CONTEXT = new ThreadLocal<>();
+
+    /** 一次请求的数据范围绑定：userId 固定，scope 按需解析并缓存（可在线程间共享） */
+    public static final class Binding {
+        private final Long userId;
+        private Supplier<EffectiveDataScope> resolver;
+        private volatile EffectiveDataScope scope;
+        private Thread resolving;
+
+        private Binding(Long userId, Supplier<EffectiveDataScope> resolver, EffectiveDataScope scope) {
+            this.userId = userId;
+            this.resolver = resolver;
+            this.scope = scope;
+        }
+
+        public Long userId() {
+            return userId;
+        }
+
+        public boolean isResolved() {
+            return scope != null;
+        }
+
+        public EffectiveDataScope scope() {
+            EffectiveDataScope s = scope;
+            if (s == null) {
+                synchronized (this) {
+                    s = scope;
+                    if (s == null) {
+                        // 解析过程中的查询若再次触发解析（如受控 mapper 被计算逻辑使用）直接报错，避免无限递归
+                        if (resolving == Thread.currentThread()) {
+                            throw new IllegalStateException("data scope resolution is re-entrant");
+                        }
+                        resolving = Thread.currentThread();
+                        try {
+                            s = resolver.get();
+                        } finally {
+                            resolving = null;
+                        }
+                        scope = s;
+                        resolver = null;
+                    }
+                }
+            }
+            return s;
+        }
+    }
 
     private DataScopeContext() {
     }
 
     public static EffectiveDataScope get() {
+        Binding binding = CONTEXT.get();
+        return binding == null ? null : binding.scope();
+    }
+
+    /** 当前绑定的用户；未绑定或通过 set/withScope 直接指定范围时为 null */
+    public static Long currentUserId() {
+        Binding binding = CONTEXT.get();
+        return binding == null ? null : binding.userId();
+    }
+
+    public static Binding current() {
         return CONTEXT.get();
     }
 
+    /**
+     * 绑定用户及延迟解析的数据范围，返回之前的绑定以便 {@link #restore(Binding)}
+     */
+    public static Binding bind(Long userId, Supplier<EffectiveDataScope> resolver) {
+        Binding previous = CONTEXT.get();
+        CONTEXT.set(new Binding(userId, resolver, null));
+        return previous;
+    }
+
+    public static void restore(Binding previous) {
+        if (previous == null) {
+            CONTEXT.remove();
+        } else {
+            CONTEXT.set(previous);
+        }
+    }
+
     public static void set(EffectiveDataScope scope) {
         if (scope == null) {
             CONTEXT.remove();
         } else {
-            CONTEXT.set(scope);
+            CONTEXT.set(new Binding(null, null, scope));
         }
     }
 
@@ -29,16 +105,12 @@ public final class DataScopeContext {
     }
 
     public static <T> T withScope(EffectiveDataScope scope, Supplier<T> supplier) {
-        EffectiveDataScope previous = CONTEXT.get();
-        CONTEXT.set(scope);
+        Binding previous = CONTEXT.get();
+        set(scope);
         try {
             return supplier.get();
         } finally {
-            if (previous == null) {
-                CONTEXT.remove();
-            } else {
-                CONTEXT.set(previous);
-            }
+            restore(previous);
         }
     }
 }
@@ -0,0 +1,41 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.infrastructure.audit.UserIdProvider;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 为每个已认证请求绑定 DataScopeContext（默认顺序排在 Spring Security 之后，可读取当前用户）
+ * 只绑定用户与解析函数，真正用到数据范围时才查询缓存/计算，请求结束清理。
+ */
+@Component
+@RequiredArgsConstructor
+public class DataScopeContextFilter extends OncePerRequestFilter {
+
+    private final DataScopeManager dataScopeManager;
+    private final UserIdProvider userIdProvider;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Long userId = userIdProvider.getCurrentUserId();
+        if (userId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        DataScopeContext.Binding previous = DataScopeContext.bind(userId,
+                () -> dataScopeManager.resolveEffectiveDataScope(userId));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            DataScopeContext.restore(previous);
+        }
+    }
+}
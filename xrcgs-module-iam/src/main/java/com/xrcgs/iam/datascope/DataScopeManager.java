@@ -2,16 +2,13 @@ package com.xrcgs.iam.datascope;
 
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.xrcgs.common.cache.AuthCacheService;
-import com.xrcgs.common.constants.IamCacheKeys;
-import com.xrcgs.iam.entity.SysDept;
-import com.xrcgs.iam.entity.SysRole;
 import com.xrcgs.iam.entity.SysUser;
 import com.xrcgs.iam.entity.SysUserRole;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
+import com.xrcgs.infrastructure.cache.SingleFlightLoader;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -24,42 +21,69 @@ public class DataScopeManager {
     private final DataScopeCalculator calculator;
     private final com.xrcgs.iam.mapper.SysUserMapper userMapper;
     private final com.xrcgs.iam.mapper.SysUserRoleMapper userRoleMapper;
-    private final com.xrcgs.iam.mapper.SysRoleMapper roleMapper;
-    private final com.xrcgs.iam.mapper.SysDeptMapper deptMapper;
-    private final StringRedisTemplate stringRedisTemplate;
+    private final RoleScopeRegistry roleScopeRegistry;
+    private final DeptTreeSnapshotHolder deptTreeHolder;
+    private final DeptTreeVersionWatermark versionWatermark;
+    private final SingleFlightLoader singleFlightLoader;
 
     public DataScopeManager(AuthCacheService authCacheService,
                             DataScopeCalculator calculator,
                             com.xrcgs.iam.mapper.SysUserMapper userMapper,
                             com.xrcgs.iam.mapper.SysUserRoleMapper userRoleMapper,
-                            com.xrcgs.iam.mapper.SysRoleMapper roleMapper,
-                            com.xrcgs.iam.mapper.SysDeptMapper deptMapper,
-                            StringRedisTemplate stringRedisTemplate) {
+                            RoleScopeRegistry roleScopeRegistry,
+                            DeptTreeSnapshotHolder deptTreeHolder,
+                            DeptTreeVersionWatermark versionWatermark,
+                            SingleFlightLoader singleFlightLoader) {
         this.authCacheService = authCacheService;
         this.calculator = calculator;
         this.userMapper = userMapper;
         this.userRoleMapper = userRoleMapper;
-        this.roleMapper = roleMapper;
-        this.deptMapper = deptMapper;
-        this.stringRedisTemplate = stringRedisTemplate;
+        this.roleScopeRegistry = roleScopeRegistry;
+        this.deptTreeHolder = deptTreeHolder;
+        this.versionWatermark = versionWatermark;
+        this.singleFlightLoader = singleFlightLoader;
     }
 
+    /**
+     * 当前请求已绑定同一用户时复用请求内解析结果（每个请求只解析一次），否则直接解析
+     */
     public EffectiveDataScope getEffectiveDataScope(Long userId) {
+        DataScopeContext.Binding binding = DataScopeContext.current();
+        if (binding != null && userId != null && userId.equals(binding.userId())) {
+            return binding.scope().copy();
+        }
+        return resolveEffectiveDataScope(userId);
+    }
+
+    /** 不经请求上下文，按缓存 -> 计算的顺序解析 */
+    public EffectiveDataScope resolveEffectiveDataScope(Long userId) {
         if (userId == null) {
             return EffectiveDataScope.selfOnly();
         }
-        long currentVersion = currentDeptTreeVersion();
-        EffectiveDataScope cached = authCacheService.getCachedUserDataScope(userId);
+        // 版本读本地水位，缓存命中本地一级缓存时整个解析过程不访问 Redis
+        long currentVersion = versionWatermark.current();
+        EffectiveDataScope cached = cachedScope(userId, currentVersion);
         if (cached != null) {
-            long cachedVersion = DataScopeUtil.nullSafeVersion(cached.getDeptTreeVersion());
-            if (cachedVersion == currentVersion) {
-                return cached;
-            }
+            return cached;
+        }
+        // compute 会加载整张部门表，失效瞬间的并发请求合并为一次；结果各自拷贝，避免共享可变对象
+        EffectiveDataScope loaded = singleFlightLoader.load("scope:" + userId + ":" + currentVersion,
+                () -> cachedScope(userId, currentVersion),
+                () -> {
+                    EffectiveDataScope computed = compute(userId, currentVersion);
+                    computed.setDeptTreeVersion(currentVersion);
+                    authCacheService.cacheUserDataScope(userId, computed);
+                    return computed;
+                });
+        return loaded.copy();
+    }
+
+    private EffectiveDataScope cachedScope(Long userId, long currentVersion) {
+        EffectiveDataScope cached = authCacheService.getCachedUserDataScope(userId);
+        if (cached != null && DataScopeUtil.nullSafeVersion(cached.getDeptTreeVersion()) == currentVersion) {
+            return cached;
         }
-        EffectiveDataScope computed = compute(userId);
-        computed.setDeptTreeVersion(currentVersion);
-        authCacheService.cacheUserDataScope(userId, computed);
-        return computed;
+        return null;
     }
 
     public void evictUserDataScope(Long userId) {
@@ -69,7 +93,7 @@ public class DataScopeManager {
         authCacheService.evictUserDataScope(userId);
     }
 
-    private EffectiveDataScope compute(Long userId) {
+    private EffectiveDataScope compute(Long userId, long deptTreeVersion) {
         SysUser user = userMapper.selectById(userId);
         if (user == null) {
             return EffectiveDataScope.selfOnly();
@@ -80,42 +104,23 @@ public class DataScopeManager {
         Set<Long> roleIds = relations.stream()
                 .map(SysUserRole::getRoleId)
                 .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        List<SysRole> roles;
-        if (roleIds.isEmpty()) {
-            roles = Collections.emptyList();
-        } else {
-            roles = roleMapper.selectBatchIds(roleIds);
-        }
-        if (roles != null) {
-            roles = roles.stream()
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
-        } else {
-            roles = Collections.emptyList();
-        }
-        List<SysDept> depts = deptMapper.selectList(
-                Wrappers.<SysDept>lambdaQuery().eq(SysDept::getDelFlag, 0)
-        );
-        if (depts == null) {
-            depts = Collections.emptyList();
-        }
-        return calculator.calculate(user, roles, depts);
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return calculate(user, roleIds, deptTreeVersion);
     }
 
-    private long currentDeptTreeVersion() {
-        try {
-            ValueOperations<String, String> ops = stringRedisTemplate.opsForValue();
-            if (ops == null) {
-                return 0L;
-            }
-            String value = ops.get(IamCacheKeys.DEPT_TREE_VERSION);
-            if (value == null || value.isBlank()) {
-                return 0L;
-            }
-            return Long.parseLong(value.trim());
-        } catch (Exception ignored) {
-            return 0L;
+    /**
+     * 调用方已持有用户与角色时直接计算（不读写缓存），结果带上部门树版本；批量重建使用
+     * 角色范围取自注册表（已解析、跨用户共享），这里只做合并；
+     * 部门树按版本构建一次、全进程共享，不再每个用户加载整张 sys_dept
+     */
+    public EffectiveDataScope calculate(SysUser user, Collection<Long> roleIds, long deptTreeVersion) {
+        if (user == null) {
+            return EffectiveDataScope.selfOnly();
         }
+        List<ScopeDescriptor> roleScopes = roleScopeRegistry.get(roleIds);
+        EffectiveDataScope scope = calculator.calculate(ScopeDescriptor.ofUser(user), roleScopes,
+                deptTreeHolder.get(deptTreeVersion));
+        scope.setDeptTreeVersion(deptTreeVersion);
+        return scope;
     }
 }
@@ -0,0 +1,137 @@
+package com.xrcgs.iam.datascope;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.xrcgs.infrastructure.config.StatementScopedPermissionHandler;
+import net.sf.jsqlparser.JSQLParserException;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.schema.Table;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MyBatis-Plus 数据权限处理器：按 {@link DataScoped} 声明，把 DataScopeContext 中的数据范围注入 WHERE
+ * - 规则按 MappedStatement ID 解析一次后缓存（方法注解 > mapper 接口注解 > 实体注解）
+ * - 未声明规则的语句不解析、不改写；全部数据范围时不追加条件
+ * - 声明了规则但未绑定上下文（未经装饰器的异步/定时线程、未登录请求）时按无权限处理（1 = 0）；
+ *   确需全量访问的后台任务应通过 {@link DataScopeContext#withScope} 显式指定范围
+ * - 分页插件的 count 语句基于改写后的 SQL 生成，需保证数据权限拦截器排在分页插件之前
+ */
+@Component
+public class DataScopePermissionHandler implements StatementScopedPermissionHandler {
+
+    private static final String[] COUNT_SUFFIXES = {"_mpCount", "_COUNT"};
+    private static final String DENY_ALL = "1 = 0";
+
+    private final Map<String, Optional<Rule>> rules = new ConcurrentHashMap<>();
+
+    record Rule(String table, String creatorColumn, String deptColumn) {
+
+        boolean matches(Table target) {
+            return table.equalsIgnoreCase(unquote(target.getName()));
+        }
+    }
+
+    @Override
+    public boolean appliesTo(String mappedStatementId) {
+        return rule(mappedStatementId) != null;
+    }
+
+    @Override
+    public Expression getSqlSegment(Table table, Expression where, String mappedStatementId) {
+        Rule rule = rule(mappedStatementId);
+        if (rule == null || !rule.matches(table)) {
+            return null;
+        }
+        DataScopeContext.Binding binding = DataScopeContext.current();
+        if (binding == null) {
+            return parse(DENY_ALL);
+        }
+        String qualifier = table.getAlias() != null ? table.getAlias().getName() : table.getName();
+        String condition = DataScopeUtil.toSqlCondition(binding.scope(), binding.userId(),
+                qualify(qualifier, rule.creatorColumn()), qualify(qualifier, rule.deptColumn()));
+        return condition == null ? null : parse(condition);
+    }
+
+    private Rule rule(String mappedStatementId) {
+        if (mappedStatementId == null) {
+            return null;
+        }
+        return rules.computeIfAbsent(mappedStatementId, DataScopePermissionHandler::resolveRule).orElse(null);
+    }
+
+    private static Expression parse(String condition) {
+        try {
+            return CCJSqlParserUtil.parseCondExpression(condition);
+        } catch (JSQLParserException e) {
+            throw new IllegalStateException("无法解析数据范围条件: " + condition, e);
+        }
+    }
+
+    static Optional<Rule> resolveRule(String mappedStatementId) {
+        int dot = mappedStatementId.lastIndexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        String methodName = mappedStatementId.substring(dot + 1);
+        for (String suffix : COUNT_SUFFIXES) {
+            if (methodName.endsWith(suffix)) {
+                methodName = methodName.substring(0, methodName.length() - suffix.length());
+            }
+        }
+        Class<?> mapperClass;
+        try {
+            mapperClass = ClassUtils.forName(mappedStatementId.substring(0, dot), ClassUtils.getDefaultClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return Optional.empty();
+        }
+        DataScoped annotation = null;
+        for (Method method : mapperClass.getMethods()) {
+            if (method.getName().equals(methodName) && method.isAnnotationPresent(DataScoped.class)) {
+                annotation = method.getAnnotation(DataScoped.class);
+                break;
+            }
+        }
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(mapperClass, DataScoped.class);
+        }
+        Class<?> entityClass = GenericTypeResolver.resolveTypeArgument(mapperClass, BaseMapper.class);
+        if (annotation == null && entityClass != null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(entityClass, DataScoped.class);
+        }
+        if (annotation == null) {
+            return Optional.empty();
+        }
+        String table = annotation.table();
+        if (table.isBlank() && entityClass != null) {
+            TableInfo info = TableInfoHelper.getTableInfo(entityClass);
+            table = info == null ? "" : info.getTableName();
+        }
+        if (table.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(new Rule(unquote(table), annotation.creatorColumn(), annotation.deptColumn()));
+    }
+
+    private static String qualify(String qualifier, String column) {
+        return column == null || column.isBlank() ? null : qualifier + "." + column;
+    }
+
+    private static String unquote(String name) {
+        if (name == null) {
+            return "";
+        }
+        String n = name.replace("`", "").replace("\"", "");
+        int dot = n.lastIndexOf('.');
+        return dot >= 0 ? n.substring(dot + 1) : n;
+    }
+}
@@ -0,0 +1,29 @@
+package com.xrcgs.iam.datascope;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把提交线程的 DataScopeContext 绑定带到 @Async / 线程池任务中
+ * 共享同一个 Binding：数据范围在整个请求（含其异步任务）内只解析一次；任务结束恢复工作线程原状态。
+ */
+@Component
+public class DataScopeTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        DataScopeContext.Binding captured = DataScopeContext.current();
+        if (captured == null) {
+            return runnable;
+        }
+        return () -> {
+            DataScopeContext.Binding previous = DataScopeContext.current();
+            DataScopeContext.restore(captured);
+            try {
+                runnable.run();
+            } finally {
+                DataScopeContext.restore(previous);
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package com.xrcgs.iam.datascope;
 
+import com.baomidou.mybatisplus.core.conditions.AbstractWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
@@ -7,7 +8,9 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xrcgs.iam.entity.SysDept;
 
+import java.util.AbstractList;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -15,6 +18,7 @@ import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
 
 /**
@@ -24,6 +28,14 @@ public final class DataScopeUtil {
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    /**
+     * 展开后的部门数超过该值且范围带有子树根时，改用 sys_dept_closure 子查询代替完整 IN 列表；
+     * 较小的范围保持 IN 列表（两者耗时相当，IN 列表计划更简单）。
+     * 子查询只在部门条件单独出现时使用：与本人创建等条件 OR 在一起时，PostgreSQL 会退化为业务表全表扫描
+     * （hashed SubPlan），此时仍用 IN 列表，见 DataScopePredicateBenchmark
+     */
+    public static final int SUBTREE_PREDICATE_THRESHOLD = 64;
+
     private DataScopeUtil() {
     }
 
@@ -132,23 +144,21 @@ public final class DataScopeUtil {
         if (wrapper == null || scope == null || scope.isAll()) {
             return;
         }
-        Set<Long> deptIds = scope.getDeptIds();
-        boolean hasDeptFilter = deptColumn != null && deptIds != null && !deptIds.isEmpty();
+        boolean hasDeptFilter = deptColumn != null && scope.hasDepartments();
         boolean hasSelfFilter = scope.isSelf() && creatorColumn != null && currentUserId != null;
         if (!hasDeptFilter && !hasSelfFilter) {
             wrapper.apply("1 = 0");
             return;
         }
         if (hasDeptFilter && hasSelfFilter) {
-            wrapper.and(w -> w.eq(creatorColumn, currentUserId)
-                    .or()
-                    .in(deptColumn, deptIds));
+            // OR 条件下子查询无法走业务表索引，固定用 IN 列表
+            wrapper.and(w -> w.eq(creatorColumn, currentUserId).or().in(deptColumn, deptIdList(scope)));
             return;
         }
         if (hasSelfFilter) {
             wrapper.eq(creatorColumn, currentUserId);
         } else {
-            wrapper.in(deptColumn, deptIds);
+            applyDeptPredicate(wrapper, deptColumn, scope);
         }
     }
 
@@ -160,26 +170,121 @@ public final class DataScopeUtil {
         if (wrapper == null || scope == null || scope.isAll()) {
             return;
         }
-        Set<Long> deptIds = scope.getDeptIds();
-        boolean hasDeptFilter = hasText(deptColumn) && deptIds != null && !deptIds.isEmpty();
+        boolean hasDeptFilter = hasText(deptColumn) && scope.hasDepartments();
         boolean hasSelfFilter = scope.isSelf() && hasText(creatorColumn) && currentUserId != null;
         if (!hasDeptFilter && !hasSelfFilter) {
             wrapper.apply("1 = 0");
             return;
         }
         if (hasDeptFilter && hasSelfFilter) {
-            wrapper.and(w -> w.eq(creatorColumn, currentUserId)
-                    .or()
-                    .in(deptColumn, deptIds));
+            // OR 条件下子查询无法走业务表索引，固定用 IN 列表
+            wrapper.and(w -> w.eq(creatorColumn, currentUserId).or().in(deptColumn, deptIdList(scope)));
             return;
         }
         if (hasSelfFilter) {
             wrapper.eq(creatorColumn, currentUserId);
         } else {
-            wrapper.in(deptColumn, deptIds);
+            applyDeptPredicate(wrapper, deptColumn, scope);
         }
     }
 
+    /**
+     * 追加单个部门条件：小范围为 {@code dept IN (...)}；大范围为 {@code dept IN (闭包表子查询)}，
+     * 子树根与单独部门都在同一个子查询内展开，不产生 OR。
+     */
+    public static <T, R, C extends AbstractWrapper<T, R, C>> C applyDeptPredicate(C wrapper,
+                                                                                R deptColumn,
+                                                                                EffectiveDataScope scope) {
+        if (!useSubtreePredicate(scope)) {
+            return wrapper.in(deptColumn, deptIdList(scope));
+        }
+        return wrapper.inSql(deptColumn, subtreeSql(scope.getSubtreeRoots(), scope.getDirectDeptIds()));
+    }
+
+    /** 展开后的部门数超过阈值且记录了子树根时使用闭包表子查询 */
+    public static boolean useSubtreePredicate(EffectiveDataScope scope) {
+        return scope != null && scope.hasSubtreeRoots()
+                && scope.deptCount() > SUBTREE_PREDICATE_THRESHOLD;
+    }
+
+    /**
+     * 展开部门的只读列表视图，直接读取有序 long[]：
+     * 绑定参数时按元素取值，不会把解码结果物化成 Set
+     */
+    public static List<Long> deptIdList(EffectiveDataScope scope) {
+        return new LongArrayView(scope.sortedDeptIds());
+    }
+
+    /**
+     * 生成可直接拼入 SQL 的数据范围条件（ID 均为 Long，内联无注入风险），规则与 apply 一致：
+     * 本人创建 OR 部门范围；两者都不适用时为 1 = 0。全部数据范围返回 null（不加条件）。
+     * 列名由调用方按表别名限定。
+     */
+    public static String toSqlCondition(EffectiveDataScope scope, Long currentUserId,
+                                        String creatorColumn, String deptColumn) {
+        if (scope == null || scope.isAll()) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>(2);
+        if (scope.isSelf() && hasText(creatorColumn) && currentUserId != null) {
+            parts.add(creatorColumn + " = " + currentUserId);
+        }
+        if (hasText(deptColumn) && scope.hasDepartments()) {
+            if (parts.isEmpty() && useSubtreePredicate(scope)) {
+                parts.add(deptColumn + " IN (" + subtreeSql(scope.getSubtreeRoots(), scope.getDirectDeptIds()) + ")");
+            } else {
+                parts.add(deptColumn + " IN (" + joinIds(scope.sortedDeptIds()) + ")");
+            }
+        }
+        if (parts.isEmpty()) {
+            return "1 = 0";
+        }
+        return "(" + String.join(" OR ", parts) + ")";
+    }
+
+    private static String joinIds(Collection<Long> ids) {
+        StringBuilder sb = new StringBuilder(ids.size() * 8);
+        for (Long id : ids) {
+            if (id == null) {
+                continue;
+            }
+            if (!sb.isEmpty()) {
+                sb.append(',');
+            }
+            sb.append(id.longValue());
+        }
+        return sb.toString();
+    }
+
+    private static String joinIds(long[] ids) {
+        StringBuilder sb = new StringBuilder(ids.length * 8);
+        for (long id : ids) {
+            if (!sb.isEmpty()) {
+                sb.append(',');
+            }
+            sb.append(id);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 子树根（含全部下级）+ 单独部门（仅自身，depth = 0）-> 部门 ID 的子查询。
+     * 只按 sys_dept_closure 主键 (ancestor_id, descendant_id) 做常量前缀范围扫描；
+     * 逻辑删除部门时会同时删除其闭包行，因此无需回 sys_dept 过滤 del_flag。
+     * 不用 path LIKE CONCAT(r.path, '%') 连接：逐行变化的模式无法走 path 前缀索引，只能全表比对。
+     * ID 均为 Long，直接内联，不存在注入风险
+     */
+    static String subtreeSql(Collection<Long> roots, Collection<Long> directIds) {
+        StringBuilder sb = new StringBuilder(96 + (roots.size() + directIds.size()) * 8);
+        sb.append("SELECT c.descendant_id FROM sys_dept_closure c WHERE c.ancestor_id IN (")
+                .append(joinIds(roots)).append(')');
+        String direct = joinIds(directIds);
+        if (!direct.isEmpty()) {
+            sb.append(" OR (c.ancestor_id IN (").append(direct).append(") AND c.depth = 0)");
+        }
+        return sb.toString();
+    }
+
     public static long nullSafeVersion(Long version) {
         return version == null ? 0L : version;
     }
@@ -187,4 +292,23 @@ public final class DataScopeUtil {
     private static boolean hasText(String text) {
         return text != null && !text.trim().isEmpty();
     }
+
+    /** long[] 的只读 List 视图 */
+    private static final class LongArrayView extends AbstractList<Long> implements RandomAccess {
+        private final long[] ids;
+
+        LongArrayView(long[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public Long get(int index) {
+            return ids[index];
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
 }
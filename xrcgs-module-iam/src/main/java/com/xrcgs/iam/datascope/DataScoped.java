@@ -0,0 +1,27 @@
+package com.xrcgs.iam.datascope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明查询需要按当前请求的数据范围过滤，由 {@link DataScopePermissionHandler} 在 SQL 预处理阶段注入条件
+ * 可标注在 mapper 方法、mapper 接口或实体类上（优先级依次降低）；仅在 DataScopeContext 已绑定时生效。
+ * 注意：不要标注在数据范围计算本身会用到的 mapper（用户/角色/部门）上。
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface DataScoped {
+
+    /** 需要过滤的表名；为空时取 mapper 实体对应的表 */
+    String table() default "";
+
+    /** 创建人列，为空表示不按"本人"过滤 */
+    String creatorColumn() default "created_by";
+
+    /** 归属部门列，为空表示不按部门过滤 */
+    String deptColumn() default "dept_id";
+}
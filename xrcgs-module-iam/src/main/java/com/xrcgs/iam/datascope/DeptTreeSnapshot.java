@@ -0,0 +1,233 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.iam.entity.SysDept;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * 部门树不可变快照（按 DEPT_TREE_VERSION 构建，全进程共享）
+ * - 先序遍历（Euler tour）给每个部门分配区间 [start, end)：子树 = 先序数组中连续的一段
+ * - 判断祖先关系 O(log n)（二分定位）+ O(1)（区间比较）；展开子树 O(k)，遍历过程无装箱
+ * - 父节点不存在（或为 0）的部门视为根；成环的部门按输入顺序挑一个作为根，保证每个部门只出现一次
+ */
+public final class DeptTreeSnapshot {
+
+    private static final DeptTreeSnapshot EMPTY = new DeptTreeSnapshot(0L, new long[0], new int[0],
+            new long[0], new int[0], new int[0], new long[0]);
+
+    private final long version;
+    /** 先序位置 -> 部门 ID */
+    private final long[] preIds;
+    /** 先序位置 -> 子树结束位置（不含） */
+    private final int[] preEnd;
+    /** 排序后的部门 ID，用于二分定位 */
+    private final long[] sortedIds;
+    /** sortedIds 下标 -> 先序位置 */
+    private final int[] sortedToPre;
+    /** 根节点的先序位置 */
+    private final int[] rootPres;
+    /** 根节点声明的父 ID（父部门不存在时仍可按原 parentId 展开，兼容已删除的上级） */
+    private final long[] rootDeclaredParents;
+
+    private DeptTreeSnapshot(long version, long[] preIds, int[] preEnd, long[] sortedIds, int[] sortedToPre,
+                             int[] rootPres, long[] rootDeclaredParents) {
+        this.version = version;
+        this.preIds = preIds;
+        this.preEnd = preEnd;
+        this.sortedIds = sortedIds;
+        this.sortedToPre = sortedToPre;
+        this.rootPres = rootPres;
+        this.rootDeclaredParents = rootDeclaredParents;
+    }
+
+    public static DeptTreeSnapshot empty() {
+        return EMPTY;
+    }
+
+    public static DeptTreeSnapshot build(long version, List<SysDept> departments) {
+        if (departments == null || departments.isEmpty()) {
+            return version == 0L ? EMPTY : new DeptTreeSnapshot(version, new long[0], new int[0],
+                    new long[0], new int[0], new int[0], new long[0]);
+        }
+        // 1) 去重：同一 ID 只保留第一条，保持输入顺序
+        long[] rawIds = new long[departments.size()];
+        long[] rawParents = new long[departments.size()];
+        int n = 0;
+        for (SysDept d : departments) {
+            if (d == null || d.getId() == null) {
+                continue;
+            }
+            rawIds[n] = d.getId();
+            rawParents[n] = d.getParentId() == null ? 0L : d.getParentId();
+            n++;
+        }
+        long[] sorted = Arrays.copyOf(rawIds, n);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        sorted = Arrays.copyOf(sorted, unique);
+        // 节点下标 = sorted 中的位置；记录每个 ID 第一次出现时的父 ID，以及节点的输入顺序
+        long[] parentOf = new long[unique];
+        int[] nodeAtOrder = new int[unique];
+        boolean[] assigned = new boolean[unique];
+        int ordered = 0;
+        for (int i = 0; i < n; i++) {
+            int node = Arrays.binarySearch(sorted, rawIds[i]);
+            if (assigned[node]) {
+                continue;
+            }
+            assigned[node] = true;
+            parentOf[node] = rawParents[i];
+            nodeAtOrder[ordered++] = node;
+        }
+
+        // 2) 子节点邻接表（CSR），按输入顺序排列
+        int[] parentNode = new int[unique];
+        int[] childCount = new int[unique + 1];
+        for (int node = 0; node < unique; node++) {
+            long pid = parentOf[node];
+            int p = pid == 0L || pid == sorted[node] ? -1 : Arrays.binarySearch(sorted, pid);
+            parentNode[node] = p < 0 ? -1 : p;
+            if (p >= 0) {
+                childCount[p + 1]++;
+            }
+        }
+        int[] childStart = new int[unique + 1];
+        for (int i = 0; i < unique; i++) {
+            childStart[i + 1] = childStart[i] + childCount[i + 1];
+        }
+        int[] fill = Arrays.copyOf(childStart, unique);
+        int[] children = new int[childStart[unique]];
+        for (int k = 0; k < unique; k++) {
+            int node = nodeAtOrder[k];
+            int p = parentNode[node];
+            if (p >= 0) {
+                children[fill[p]++] = node;
+            }
+        }
+
+        // 3) 迭代先序遍历：先遍历真正的根，再处理成环残留的节点
+        long[] preIds = new long[unique];
+        int[] preEnd = new int[unique];
+        int[] nodePre = new int[unique];
+        Arrays.fill(nodePre, -1);
+        int[] rootPres = new int[unique];
+        long[] rootParents = new long[unique];
+        int roots = 0;
+        int[] stack = new int[unique];
+        int[] cursor = new int[unique];
+        int pos = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (int k = 0; k < unique; k++) {
+                int root = nodeAtOrder[k];
+                if (nodePre[root] >= 0 || (pass == 0 && parentNode[root] >= 0)) {
+                    continue;
+                }
+                rootPres[roots] = pos;
+                rootParents[roots++] = parentOf[root];
+                int top = 0;
+                stack[top] = root;
+                cursor[top] = childStart[root];
+                nodePre[root] = pos;
+                preIds[pos++] = sorted[root];
+                while (top >= 0) {
+                    int node = stack[top];
+                    if (cursor[top] < childStart[node + 1]) {
+                        int child = children[cursor[top]++];
+                        if (nodePre[child] >= 0) {
+                            continue;
+                        }
+                        nodePre[child] = pos;
+                        preIds[pos++] = sorted[child];
+                        stack[++top] = child;
+                        cursor[top] = childStart[child];
+                    } else {
+                        preEnd[nodePre[node]] = pos;
+                        top--;
+                    }
+                }
+            }
+        }
+        return new DeptTreeSnapshot(version, preIds, preEnd, sorted, nodePre,
+                Arrays.copyOf(rootPres, roots), Arrays.copyOf(rootParents, roots));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return preIds.length;
+    }
+
+    /** 部门的先序位置；不存在返回 -1 */
+    public int indexOf(long deptId) {
+        int i = Arrays.binarySearch(sortedIds, deptId);
+        return i < 0 ? -1 : sortedToPre[i];
+    }
+
+    public boolean contains(long deptId) {
+        return indexOf(deptId) >= 0;
+    }
+
+    /** 子树区间起点（含）；不存在返回 -1 */
+    public int start(long deptId) {
+        return indexOf(deptId);
+    }
+
+    /** 子树区间终点（不含）；不存在返回 -1 */
+    public int end(long deptId) {
+        int pre = indexOf(deptId);
+        return pre < 0 ? -1 : preEnd[pre];
+    }
+
+    /** descendant 是否在 ancestor 的子树内（含自身） */
+    public boolean isInSubtree(long ancestor, long descendant) {
+        int a = indexOf(ancestor);
+        int d = indexOf(descendant);
+        return a >= 0 && d >= 0 && a <= d && d < preEnd[a];
+    }
+
+    public int subtreeSize(long deptId) {
+        int pre = indexOf(deptId);
+        return pre < 0 ? 0 : preEnd[pre] - pre;
+    }
+
+    /**
+     * 遍历部门及其全部下级（先序）
+     * 部门不存在时仍回调其自身，并展开 parentId 指向它的孤立子树（与按 parentId 广度遍历的结果一致）
+     */
+    public void forEachInSubtree(long deptId, LongConsumer action) {
+        int pre = indexOf(deptId);
+        if (pre >= 0) {
+            for (int i = pre, end = preEnd[pre]; i < end; i++) {
+                action.accept(preIds[i]);
+            }
+            return;
+        }
+        action.accept(deptId);
+        for (int r = 0; r < rootPres.length; r++) {
+            if (rootDeclaredParents[r] == deptId) {
+                int root = rootPres[r];
+                for (int i = root, end = preEnd[root]; i < end; i++) {
+                    action.accept(preIds[i]);
+                }
+            }
+        }
+    }
+
+    /** 将部门及其全部下级加入 target；deptId 为 null 时不做任何事 */
+    public void collectSubtree(Long deptId, Collection<Long> target) {
+        if (deptId == null || target == null) {
+            return;
+        }
+        forEachInSubtree(deptId, target::add);
+    }
+}
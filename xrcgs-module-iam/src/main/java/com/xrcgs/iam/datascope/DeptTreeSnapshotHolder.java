@@ -0,0 +1,50 @@
+package com.xrcgs.iam.datascope;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.xrcgs.iam.entity.SysDept;
+import com.xrcgs.iam.mapper.SysDeptMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 进程级部门树快照持有者
+ * 版本号（DEPT_TREE_VERSION）变化时才重新加载 sys_dept 并构建快照，
+ * 同一版本下所有用户的数据范围计算共享同一份快照
+ */
+@Component
+public class DeptTreeSnapshotHolder {
+
+    private final SysDeptMapper deptMapper;
+    private final AtomicReference<DeptTreeSnapshot> current = new AtomicReference<>();
+    private final Object rebuildLock = new Object();
+
+    public DeptTreeSnapshotHolder(SysDeptMapper deptMapper) {
+        this.deptMapper = deptMapper;
+    }
+
+    /** 取指定版本的快照；与当前快照版本不一致时重建（并发调用只重建一次） */
+    public DeptTreeSnapshot get(long version) {
+        DeptTreeSnapshot snapshot = current.get();
+        if (snapshot != null && snapshot.version() == version) {
+            return snapshot;
+        }
+        synchronized (rebuildLock) {
+            snapshot = current.get();
+            if (snapshot != null && snapshot.version() == version) {
+                return snapshot;
+            }
+            List<SysDept> depts = deptMapper.selectList(
+                    Wrappers.<SysDept>lambdaQuery().eq(SysDept::getDelFlag, 0));
+            DeptTreeSnapshot rebuilt = DeptTreeSnapshot.build(version, depts);
+            current.set(rebuilt);
+            return rebuilt;
+        }
+    }
+
+    /** 丢弃当前快照，下次访问重新加载 */
+    public void invalidate() {
+        current.set(null);
+    }
+}
@@ -0,0 +1,129 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.common.constants.IamCacheKeys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 部门树版本本地水位
+ * - 首次读取时从 Redis 加载，之后读本地值：数据范围查询不再每次 GET iam:dept:treeVersion
+ * - 部门变更时 INCR 并通过 pub/sub 广播新版本，各节点（含本节点）单调推进本地值
+ * - 定时与 Redis 对账兜底（广播丢失、Redis 重置等情况），对账以 Redis 为准
+ */
+@Slf4j
+@Component
+public class DeptTreeVersionWatermark {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean loaded;
+    private final LongAdder redisReads = new LongAdder();
+    private final LongAdder messages = new LongAdder();
+
+    @Autowired
+    public DeptTreeVersionWatermark(StringRedisTemplate stringRedisTemplate,
+                                    RedisMessageListenerContainer listenerContainer) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    /** 仅使用 Redis、不订阅广播（测试或无监听容器时使用） */
+    public DeptTreeVersionWatermark(StringRedisTemplate stringRedisTemplate) {
+        this(stringRedisTemplate, null);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this::onMessage,
+                    new ChannelTopic(IamCacheKeys.DEPT_TREE_VERSION_CHANNEL));
+        }
+    }
+
+    /** 当前版本；未加载过时读取一次 Redis（失败按 0 处理，等待下次对账） */
+    public long current() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    reconcile();
+                    loaded = true;
+                }
+            }
+        }
+        return version.get();
+    }
+
+    /** 递增版本并广播；返回新版本，Redis 不可用时返回当前本地值 */
+    public long bump() {
+        Long next;
+        try {
+            next = stringRedisTemplate.opsForValue().increment(IamCacheKeys.DEPT_TREE_VERSION);
+        } catch (Exception ignored) {
+            return version.get();
+        }
+        if (next == null) {
+            return version.get();
+        }
+        advance(next);
+        try {
+            stringRedisTemplate.convertAndSend(IamCacheKeys.DEPT_TREE_VERSION_CHANNEL, String.valueOf(next));
+        } catch (Exception ignored) {
+            // 广播失败时其它节点在下次对账时感知
+        }
+        return next;
+    }
+
+    /** 与 Redis 对账：以 Redis 为准（包括版本被重置的情况） */
+    @Scheduled(fixedDelayString = "${iam.dept-tree.reconcile-interval-ms:30000}",
+            initialDelayString = "${iam.dept-tree.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        try {
+            redisReads.increment();
+            String value = stringRedisTemplate.opsForValue().get(IamCacheKeys.DEPT_TREE_VERSION);
+            long remote = value == null || value.isBlank() ? 0L : Long.parseLong(value.trim());
+            long local = version.getAndSet(remote);
+            if (loaded && local != remote) {
+                log.info("Dept tree version reconciled: local={} redis={}", local, remote);
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8).trim();
+        try {
+            messages.increment();
+            advance(Long.parseLong(body));
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    /** 广播可能乱序到达，只前进不后退 */
+    private void advance(long next) {
+        version.accumulateAndGet(next, Math::max);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", version.get());
+        stats.put("loaded", loaded);
+        stats.put("redisReads", redisReads.sum());
+        stats.put("messages", messages.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,189 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.common.constants.IamCacheKeys;
+import com.xrcgs.iam.entity.SysRole;
+import com.xrcgs.iam.mapper.SysRoleMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 角色数据范围注册表：按角色缓存已解析的 {@link ScopeDescriptor}
+ * - 数据范围计算只做描述符合并，批量重算成千上万用户时不再逐个解析角色 JSON
+ * - 未命中的角色一次 selectBatchIds 回源；不存在的角色缓存为 inactive 占位
+ * - 角色变更时由 RoleServiceImpl 调用 {@link #invalidate(Long)}：本地立即失效、事务提交后再失效一次并广播到其它节点
+ * - 定时整体清空兜底（广播丢失等情况）
+ */
+@Component
+public class RoleScopeRegistry {
+
+    private final SysRoleMapper roleMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final Map<Long, ScopeDescriptor> scopes = new ConcurrentHashMap<>();
+    /** 失效代数：回源期间发生失效时丢弃回源结果，避免把旧数据写回缓存 */
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public RoleScopeRegistry(SysRoleMapper roleMapper,
+                             StringRedisTemplate stringRedisTemplate,
+                             RedisMessageListenerContainer listenerContainer) {
+        this.roleMapper = roleMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    /** 仅本地缓存、不广播（测试或单节点使用） */
+    public RoleScopeRegistry(SysRoleMapper roleMapper) {
+        this(roleMapper, null, null);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this::onMessage,
+                    new ChannelTopic(IamCacheKeys.ROLE_SCOPE_INVALIDATE_CHANNEL));
+        }
+    }
+
+    /** 按角色 ID 取有效（未删除、已启用）的描述符，顺序与入参一致 */
+    public List<ScopeDescriptor> get(Collection<Long> roleIds) {
+        if (roleIds == null || roleIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ScopeDescriptor> found = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long roleId : roleIds) {
+            if (roleId == null) {
+                continue;
+            }
+            ScopeDescriptor descriptor = scopes.get(roleId);
+            if (descriptor != null) {
+                found.put(roleId, descriptor);
+            } else {
+                missing.add(roleId);
+            }
+        }
+        hits.add(found.size());
+        if (!missing.isEmpty()) {
+            misses.add(missing.size());
+            found.putAll(load(missing));
+        }
+        List<ScopeDescriptor> result = new ArrayList<>(found.size());
+        for (Long roleId : new LinkedHashSet<>(roleIds)) {
+            ScopeDescriptor descriptor = roleId == null ? null : found.get(roleId);
+            if (descriptor != null && descriptor.isActive()) {
+                result.add(descriptor);
+            }
+        }
+        return result;
+    }
+
+    private Map<Long, ScopeDescriptor> load(Set<Long> roleIds) {
+        long gen = generation.get();
+        loads.increment();
+        List<SysRole> roles = roleMapper.selectBatchIds(roleIds);
+        Map<Long, ScopeDescriptor> loaded = new HashMap<>();
+        if (roles != null) {
+            for (SysRole role : roles) {
+                if (role != null && role.getId() != null) {
+                    loaded.put(role.getId(), ScopeDescriptor.ofRole(role));
+                }
+            }
+        }
+        for (Long roleId : roleIds) {
+            loaded.computeIfAbsent(roleId, ScopeDescriptor::missing);
+        }
+        if (generation.get() == gen) {
+            scopes.putAll(loaded);
+        }
+        return loaded;
+    }
+
+    /** 角色变更后调用：处于事务中时提交后再次失效并广播 */
+    public void invalidate(Long roleId) {
+        if (roleId == null) {
+            return;
+        }
+        evictLocal(roleId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocal(roleId);
+                    publish(String.valueOf(roleId));
+                }
+            });
+            return;
+        }
+        publish(String.valueOf(roleId));
+    }
+
+    /** 定时整体清空，兜底广播丢失 */
+    @Scheduled(fixedDelayString = "${iam.role-scope.refresh-interval-ms:600000}",
+            initialDelayString = "${iam.role-scope.refresh-interval-ms:600000}")
+    public void clear() {
+        generation.incrementAndGet();
+        scopes.clear();
+    }
+
+    private void evictLocal(Long roleId) {
+        generation.incrementAndGet();
+        invalidations.increment();
+        scopes.remove(roleId);
+    }
+
+    private void publish(String body) {
+        if (stringRedisTemplate == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(IamCacheKeys.ROLE_SCOPE_INVALIDATE_CHANNEL, body);
+        } catch (Exception ignored) {
+            // 广播失败时其它节点在下次定时清空时感知
+        }
+    }
+
+    void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8).trim();
+        try {
+            evictLocal(Long.parseLong(body));
+        } catch (NumberFormatException ignored) {
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", scopes.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("loads", loads.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+}
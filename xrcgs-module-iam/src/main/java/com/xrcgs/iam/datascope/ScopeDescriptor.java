@@ -0,0 +1,104 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.iam.entity.SysRole;
+import com.xrcgs.iam.entity.SysUser;
+import com.xrcgs.iam.enums.DataScope;
+
+import java.util.Set;
+
+/**
+ * 已解析的数据范围配置（用户或角色）：JSON 列（extraDeptIds / dataScopeExt）只在构建时解析一次，
+ * 之后以原始 long 数组参与计算。不可变，可在线程间共享。
+ */
+public final class ScopeDescriptor {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Long id;
+    private final DataScope kind;
+    private final Long deptId;
+    private final long[] extraDeptIds;
+    private final long[] customDeptIds;
+    private final boolean active;
+
+    private ScopeDescriptor(Long id, DataScope kind, Long deptId,
+                            long[] extraDeptIds, long[] customDeptIds, boolean active) {
+        this.id = id;
+        this.kind = kind == null ? DataScope.SELF : kind;
+        this.deptId = deptId;
+        this.extraDeptIds = extraDeptIds;
+        this.customDeptIds = customDeptIds;
+        this.active = active;
+    }
+
+    /** 角色：已删除或停用的角色标记为 inactive，不参与合并 */
+    public static ScopeDescriptor ofRole(SysRole role) {
+        boolean active = (role.getDelFlag() == null || role.getDelFlag() != 1)
+                && (role.getStatus() == null || role.getStatus() == 1);
+        return of(role.getId(), role.getDataScope(), role.getDeptId(),
+                role.getExtraDeptIds(), role.getDataScopeExt(), active);
+    }
+
+    public static ScopeDescriptor ofUser(SysUser user) {
+        return of(user.getId(), user.getDataScope(), user.getDeptId(),
+                user.getExtraDeptIds(), user.getDataScopeExt(), true);
+    }
+
+    /** 不存在（已物理删除）的角色占位，避免重复回源 */
+    static ScopeDescriptor missing(Long roleId) {
+        return new ScopeDescriptor(roleId, DataScope.SELF, null, EMPTY, EMPTY, false);
+    }
+
+    private static ScopeDescriptor of(Long id, DataScope kind, Long deptId,
+                                      String extraJson, String customJson, boolean active) {
+        DataScope k = kind == null ? DataScope.SELF : kind;
+        // 只解析该范围类型会用到的列
+        long[] extra = k == DataScope.DEPT || k == DataScope.DEPT_AND_CHILD ? parse(extraJson) : EMPTY;
+        long[] custom = k == DataScope.CUSTOM ? parse(customJson) : EMPTY;
+        return new ScopeDescriptor(id, k, deptId, extra, custom, active);
+    }
+
+    private static long[] parse(String json) {
+        Set<Long> ids = DataScopeUtil.parseIdSet(json);
+        if (ids.isEmpty()) {
+            return EMPTY;
+        }
+        long[] values = new long[ids.size()];
+        int i = 0;
+        for (Long id : ids) {
+            values[i++] = id;
+        }
+        return values;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public DataScope getKind() {
+        return kind;
+    }
+
+    public Long getDeptId() {
+        return deptId;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /** 内部数组不拷贝，仅供本包只读使用 */
+    long[] extraDeptIds() {
+        return extraDeptIds;
+    }
+
+    long[] customDeptIds() {
+        return customDeptIds;
+    }
+
+    @Override
+    public String toString() {
+        return "ScopeDescriptor{id=" + id + ", kind=" + kind + ", deptId=" + deptId
+                + ", extra=" + extraDeptIds.length + ", custom=" + customDeptIds.length + ", active=" + active + '}';
+    }
+}
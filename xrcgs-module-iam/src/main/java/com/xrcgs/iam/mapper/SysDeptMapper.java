@@ -5,6 +5,7 @@ import com.xrcgs.iam.entity.SysDept;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 @Mapper
@@ -14,9 +15,29 @@ public interface SysDeptMapper extends BaseMapper<SysDept> {
 
     List<SysDept> selectByPathPrefix(@Param("pathPrefix") String pathPrefix);
 
-    List<Long> selectIdsByPathPrefix(@Param("pathPrefix") String pathPrefix);
+    /** 子树内（含自身）未删除部门 ID，走闭包表主键 */
+    List<Long> selectDescendantIds(@Param("ancestorId") Long ancestorId);
 
-    int updatePathPrefix(@Param("oldPath") String oldPath, @Param("newPath") String newPath);
+    /** 按闭包表定位子树，改写 path 前缀 */
+    int updateSubtreePath(@Param("id") Long id, @Param("oldPath") String oldPath, @Param("newPath") String newPath);
+
+    /* ---------- 闭包表维护（与 sys_dept 同事务；逻辑删除部门时删除其闭包行，闭包表只含在用部门） ---------- */
+
+    /** 新部门：复制父部门的祖先链并加上自身 */
+    int insertClosureForNew(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    /** 部门的全部上级（不含自身） */
+    List<Long> selectAncestorIds(@Param("id") Long id);
+
+    /** 移动子树第一步：断开子树（按 path 前缀定位）与原祖先之间的链接 */
+    int deleteClosureAboveSubtree(@Param("ancestorIds") Collection<Long> ancestorIds,
+                                  @Param("pathPrefix") String pathPrefix);
+
+    /** 移动子树第二步：新祖先链 × 子树 */
+    int insertClosureAboveSubtree(@Param("id") Long id, @Param("parentId") Long parentId);
+
+    /** 逻辑删除部门：删除以其为祖先或后代的全部闭包行（数据范围子查询据此不再回表过滤 del_flag） */
+    int deleteClosureOfDept(@Param("id") Long id);
 
     Long countChildren(@Param("parentId") Long parentId);
 }
@@ -4,8 +4,10 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.xrcgs.iam.entity.SysRole;
 import com.xrcgs.iam.model.query.RolePageQuery;
+import com.xrcgs.iam.model.vo.RolePermRow;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface SysRoleMapper extends BaseMapper<SysRole> {
@@ -13,4 +15,7 @@ public interface SysRoleMapper extends BaseMapper<SysRole> {
     List<Long> selectIdsByCodes(@Param("codes") List<String> codes);
 
     Integer selectMaxSortNo();
+
+    /** 一次查询取回多个角色的权限码：启用菜单上的 perms + 独立权限码（每行一个 角色-权限码） */
+    List<RolePermRow> selectPermsByRoleIds(@Param("roleIds") Collection<Long> roleIds);
 }
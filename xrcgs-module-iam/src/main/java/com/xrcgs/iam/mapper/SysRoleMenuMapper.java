@@ -2,6 +2,12 @@ package com.xrcgs.iam.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xrcgs.iam.entity.SysRoleMenu;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
 
 public interface SysRoleMenuMapper extends BaseMapper<SysRoleMenu> {
+    /** 多行 VALUES 一次插入 */
+    int insertBatch(@Param("roleId") Long roleId, @Param("menuIds") Collection<Long> menuIds);
+    int deleteByRoleAndMenuIds(@Param("roleId") Long roleId, @Param("menuIds") Collection<Long> menuIds);
 }
@@ -2,7 +2,12 @@ package com.xrcgs.iam.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xrcgs.iam.entity.SysRolePerm;
+import org.apache.ibatis.annotations.Param;
 
-public interface SysRolePermMapper extends BaseMapper<SysRolePerm> {
+import java.util.Collection;
 
+public interface SysRolePermMapper extends BaseMapper<SysRolePerm> {
+    /** 多行 VALUES 一次插入，主键由调用方预先分配 */
+    int insertBatch(@Param("rows") Collection<SysRolePerm> rows);
+    int deleteByRoleAndPermIds(@Param("roleId") Long roleId, @Param("permIds") Collection<Long> permIds);
 }
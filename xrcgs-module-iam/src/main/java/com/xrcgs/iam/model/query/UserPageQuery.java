@@ -17,5 +17,7 @@ public class UserPageQuery {
     private Boolean enabled;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    /** 游标分页时由服务端从 cursor 解出，仅返回 id 小于该值的用户 */
+    private Long cursorId;
 }
 
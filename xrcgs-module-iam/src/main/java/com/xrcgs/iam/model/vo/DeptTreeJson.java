@@ -0,0 +1,38 @@
+package com.xrcgs.iam.model.vo;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * 预序列化的部门树（按部门树版本 + 状态过滤缓存）
+ * 输出时原样写出 JSON 数组，响应不再逐节点序列化
+ */
+@Getter
+@JsonSerialize(using = DeptTreeJson.RawSerializer.class)
+public class DeptTreeJson {
+    /** 构建时的部门树版本 */
+    private final long version;
+    /** 强 ETag（含引号）：版本 + 过滤条件 + 内容摘要 */
+    private final String etag;
+    private final String json;
+    private final long builtAt;
+
+    public DeptTreeJson(long version, String etag, String json, long builtAt) {
+        this.version = version;
+        this.etag = etag;
+        this.json = json;
+        this.builtAt = builtAt;
+    }
+
+    static class RawSerializer extends JsonSerializer<DeptTreeJson> {
+        @Override
+        public void serialize(DeptTreeJson value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeRawValue(value.getJson());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.xrcgs.iam.model.vo;
+
+import lombok.Data;
+
+/**
+ * 角色权限码批量查询的单行结果（角色 × 权限码）
+ */
+@Data
+public class RolePermRow {
+    private Long roleId;
+    private String perm;
+}
@@ -1,6 +1,7 @@
 package com.xrcgs.iam.service;
 
 import com.xrcgs.iam.model.dto.DeptUpsertDTO;
+import com.xrcgs.iam.model.vo.DeptTreeJson;
 import com.xrcgs.iam.model.vo.DeptTreeVO;
 import com.xrcgs.iam.model.vo.DeptVO;
 
@@ -17,4 +18,7 @@ public interface DeptService {
     DeptVO detail(Long id);
 
     List<DeptTreeVO> tree(String name, Integer status);
+
+    /** 不带名称过滤的部门树，按（部门树版本, status）缓存预序列化结果 */
+    DeptTreeJson cachedTree(Integer status);
 }
@@ -9,6 +9,9 @@ public interface PermService {
     /** 用户 -> 权限码集合（角色聚合后缓存） */
     Set<String> loadAndCacheUserPerms(Long userId);
 
+    /** 同上，调用方已持有用户角色时使用，缓存未命中也无需再查 user-role */
+    Set<String> loadAndCacheUserPerms(Long userId, Set<Long> roleIds);
+
     /** 使用户权限缓存失效（角色、菜单、权限变更时调用） */
     void evictUserPerms(Long userId);
 }
@@ -7,6 +7,7 @@ import com.xrcgs.iam.model.dto.RoleUpsertDTO;
 import com.xrcgs.iam.model.query.RolePageQuery;
 import com.xrcgs.iam.model.vo.RolePageVO;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface RoleService {
@@ -17,4 +18,10 @@ public interface RoleService {
     Page<RolePageVO> page(RolePageQuery q, long pageNo, long pageSize);
     List<Long> listMenuIdsByRole(Long roleId);
     List<String> listPermIdsByRole(Long roleId);
+
+    /**
+     * 菜单 perms / 权限码在角色之外被修改后调用：失效这些角色的权限集合缓存及其用户授权缓存，
+     * 提交后吊销其用户的在途令牌（与角色授权变更同一套处理）
+     */
+    void onRolePermsChanged(Collection<Long> roleIds);
 }
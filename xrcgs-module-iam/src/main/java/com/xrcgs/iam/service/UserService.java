@@ -1,6 +1,7 @@
 package com.xrcgs.iam.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xrcgs.common.core.CursorPage;
 import com.xrcgs.iam.model.dto.UserUpsertDTO;
 import com.xrcgs.iam.model.query.UserPageQuery;
 import com.xrcgs.iam.model.vo.UserSimpleVO;
@@ -12,6 +13,11 @@ public interface UserService {
 
     Page<UserVO> page(UserPageQuery q, long pageNo, long pageSize);
 
+    /**
+     * 游标分页（按 id 倒序），cursor 为上一页返回的 nextCursor，首页传 null
+     */
+    CursorPage<UserVO> cursor(UserPageQuery q, String cursor, long size, boolean withTotal);
+
     UserVO detail(Long id);
 
     Long create(UserUpsertDTO dto);
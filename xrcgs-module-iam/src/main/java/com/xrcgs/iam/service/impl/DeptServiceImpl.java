@@ -1,21 +1,30 @@
 package com.xrcgs.iam.service.impl;
 
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xrcgs.common.constants.IamCacheKeys;
+import com.xrcgs.iam.datascope.DeptTreeSnapshotHolder;
+import com.xrcgs.iam.datascope.DeptTreeVersionWatermark;
 import com.xrcgs.iam.entity.SysDept;
 import com.xrcgs.iam.entity.SysUser;
 import com.xrcgs.iam.mapper.SysDeptMapper;
 import com.xrcgs.iam.mapper.SysUserMapper;
 import com.xrcgs.iam.model.dto.DeptUpsertDTO;
+import com.xrcgs.iam.model.vo.DeptTreeJson;
 import com.xrcgs.iam.model.vo.DeptTreeVO;
 import com.xrcgs.iam.model.vo.DeptVO;
 import com.xrcgs.iam.service.DeptService;
+import com.xrcgs.iam.task.AuthRematerializer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -24,16 +33,29 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 @Service
 @RequiredArgsConstructor
 public class DeptServiceImpl implements DeptService {
 
+    /** 负责人姓名等不随部门树版本变化的字段，靠定期重建兜底 */
+    private static final long TREE_CACHE_TTL_MS = 60_000L;
+    private static final int TREE_CACHE_MAX_ENTRIES = 16;
+
     private final SysDeptMapper deptMapper;
     private final SysUserMapper userMapper;
     private final StringRedisTemplate stringRedisTemplate;
+    private final DeptTreeVersionWatermark deptTreeVersion;
+    private final AuthRematerializer rematerializer;
+    private final ObjectMapper objectMapper;
+    private final DeptTreeSnapshotHolder deptTreeHolder;
+
+    /** 预序列化部门树：key 为 status 过滤条件，值内带构建时的版本 */
+    private final Map<String, DeptTreeJson> treeCache = new ConcurrentHashMap<>();
 
     @Override
     public List<DeptTreeVO> tree(String name, Integer status) {
@@ -51,6 +73,32 @@ public class DeptServiceImpl implements DeptService {
         return buildTree(list);
     }
 
+    @Override
+    public DeptTreeJson cachedTree(Integer status) {
+        long version = deptTreeVersion.current();
+        String key = status == null ? "all" : String.valueOf(status);
+        long now = System.currentTimeMillis();
+        DeptTreeJson cached = treeCache.get(key);
+        if (cached != null && cached.getVersion() == version && now - cached.getBuiltAt() < TREE_CACHE_TTL_MS) {
+            return cached;
+        }
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(tree(null, status));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("部门树序列化失败", e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(json.getBytes(StandardCharsets.UTF_8));
+        String etag = "\"" + version + "-" + key + "-" + Long.toHexString(crc.getValue()) + "\"";
+        DeptTreeJson built = new DeptTreeJson(version, etag, json, now);
+        if (treeCache.size() >= TREE_CACHE_MAX_ENTRIES) {
+            treeCache.clear();
+        }
+        treeCache.put(key, built);
+        return built;
+    }
+
     @Override
     public DeptVO detail(Long id) {
         SysDept dept = requireActive(id);
@@ -86,6 +134,7 @@ public class DeptServiceImpl implements DeptService {
         String newPath = buildPath(parent, entity.getId());
         entity.setPath(newPath);
         deptMapper.updateById(entity);
+        deptMapper.insertClosureForNew(entity.getId(), parentId);
 
         bumpTreeVersionAndEvict(Collections.singletonList(entity.getId()));
         return entity.getId();
@@ -128,12 +177,20 @@ public class DeptServiceImpl implements DeptService {
         boolean pathChanged = !Objects.equals(newPath, current.getPath());
         update.setPath(newPath);
 
-        List<Long> affectedIds = deptMapper.selectIdsByPathPrefix(current.getPath());
+        List<Long> affectedIds = deptMapper.selectDescendantIds(id);
         if (affectedIds == null || affectedIds.isEmpty()) {
             affectedIds = Collections.singletonList(id);
         }
         if (pathChanged) {
-            deptMapper.updatePathPrefix(current.getPath(), newPath);
+            // 子树按闭包表定位：path 改写与闭包链接重建都只触及子树行及其祖先链
+            deptMapper.updateSubtreePath(id, current.getPath(), newPath);
+            List<Long> oldAncestorIds = deptMapper.selectAncestorIds(id);
+            if (oldAncestorIds != null && !oldAncestorIds.isEmpty()) {
+                deptMapper.deleteClosureAboveSubtree(oldAncestorIds, newPath);
+            }
+            if (parentId != null && parentId > 0) {
+                deptMapper.insertClosureAboveSubtree(id, parentId);
+            }
         }
         deptMapper.updateById(update);
 
@@ -148,11 +205,12 @@ public class DeptServiceImpl implements DeptService {
         if (childCount != null && childCount > 0) {
             throw new IllegalStateException("存在子部门，无法删除");
         }
-        List<Long> affectedIds = deptMapper.selectIdsByPathPrefix(dept.getPath());
+        List<Long> affectedIds = deptMapper.selectDescendantIds(id);
         if (affectedIds == null || affectedIds.isEmpty()) {
             affectedIds = Collections.singletonList(dept.getId());
         }
         deptMapper.deleteById(id);
+        deptMapper.deleteClosureOfDept(id);
         bumpTreeVersionAndEvict(affectedIds);
     }
 
@@ -284,24 +342,50 @@ public class DeptServiceImpl implements DeptService {
         return prefix + selfId + "/";
     }
 
-    private void bumpTreeVersionAndEvict(Collection<Long> deptIds) {
-        try {
-            stringRedisTemplate.opsForValue().increment(IamCacheKeys.DEPT_TREE_VERSION);
-        } catch (Exception ignored) {
-        }
-        if (deptIds == null || deptIds.isEmpty()) {
-            return;
+    private void evictTreeCache() {
+        treeCache.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    treeCache.clear();
+                }
+            });
         }
-        List<String> keys = deptIds.stream()
+    }
+
+    private void bumpTreeVersionAndEvict(Collection<Long> deptIds) {
+        evictTreeCache();
+        List<String> keys = deptIds == null ? List.of() : deptIds.stream()
                 .filter(Objects::nonNull)
                 .map(id -> IamCacheKeys.DEPT_SCOPE + id)
                 .collect(Collectors.toList());
-        if (keys.isEmpty()) {
-            return;
-        }
-        try {
-            stringRedisTemplate.delete(keys);
-        } catch (Exception ignored) {
+        // 版本须在提交后递增并广播：提交前递增会让并发请求按新版本从未提交的数据构建进程级部门树快照；
+        // 同时丢弃本节点快照，Redis 递增失败（版本未变）时也不会沿用旧树
+        runAfterCommit(() -> {
+            deptTreeVersion.bump();
+            deptTreeHolder.invalidate();
+            if (!keys.isEmpty()) {
+                try {
+                    stringRedisTemplate.delete(keys);
+                } catch (Exception ignored) {
+                }
+            }
+        });
+        // 注册在版本递增之后（提交回调按注册顺序执行）：后台按新版本预热全部用户的数据范围
+        rematerializer.submitAllScopes();
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
     }
 }
@@ -5,7 +5,9 @@ import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.iam.datascope.DataScopeCodec;
 import com.xrcgs.iam.datascope.DataScopeManager;
+import com.xrcgs.iam.datascope.DataScopeUtil;
 import com.xrcgs.iam.datascope.EffectiveDataScope;
 import com.xrcgs.iam.entity.SysDept;
 import com.xrcgs.iam.entity.SysDictItem;
@@ -21,14 +23,23 @@ import com.xrcgs.iam.model.vo.DeptBriefVO;
 import com.xrcgs.iam.model.vo.DictVO;
 import com.xrcgs.iam.service.DictService;
 import com.xrcgs.infrastructure.audit.UserIdProvider;
+import com.xrcgs.infrastructure.cache.SingleFlightLoader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -50,8 +61,12 @@ public class DictServiceImpl implements DictService {
     private final DataScopeManager dataScopeManager;
     private final UserIdProvider userIdProvider;
     private final SysUserMapper userMapper;
+    private final SingleFlightLoader singleFlightLoader;
     private final ObjectMapper om = new ObjectMapper();
 
+    /** 负缓存命中（类型不存在或已停用）的进程内哨兵，对外返回 null */
+    private static final DictVO ABSENT = new DictVO();
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Long createType(SysDictType type) {
@@ -74,6 +89,7 @@ public class DictServiceImpl implements DictService {
         if (origin != null && StringUtils.hasText(origin.getCode())
                 && !Objects.equals(origin.getCode(), newCode)) {
             cache.evictDict(origin.getCode());
+            bumpVersions(List.of(origin.getCode()));
         }
         syncTypeCache(newCode);
     }
@@ -86,6 +102,7 @@ public class DictServiceImpl implements DictService {
         itemMapper.delete(Wrappers.<SysDictItem>lambdaQuery().eq(SysDictItem::getTypeCode, t.getCode()));
         typeMapper.deleteById(id);
         cache.evictDict(t.getCode());
+        bumpVersions(List.of(t.getCode()));
     }
 
     @Override
@@ -128,36 +145,53 @@ public class DictServiceImpl implements DictService {
     public DictVO getByType(String typeCode) {
         Long userId = userIdProvider.getCurrentUserId();
         EffectiveDataScope scope = dataScopeManager.getEffectiveDataScope(userId);
-        // 数据权限为“全部”或者尚未配置时可以复用全局缓存，否则按部门动态查询
+        // 数据权限为“全部”或者尚未配置时可以复用全局缓存，否则按数据范围指纹缓存
         boolean useGlobalCache = scope == null || scope.isAll();
         if (useGlobalCache) {
-            try {
-                String cached = cache.getCachedDict(typeCode);
-                if (cached != null) {
-                    return om.readValue(cached, DictVO.class);
-                }
-            } catch (Exception ignore) {}
+            DictVO cached = cachedDict(typeCode);
+            if (cached == null) {
+                // 全局缓存未命中：同一类型的并发请求合并为一次回源
+                cached = singleFlightLoader.load("dict:" + typeCode, () -> cachedDict(typeCode),
+                        () -> loadByType(typeCode));
+            }
+            return cached == ABSENT ? null : cached;
         }
+        return getScopedDicts(List.of(typeCode), scope, userId, null).get(typeCode);
+    }
+
+    /** @return 未缓存为 null，负缓存为 {@link #ABSENT} */
+    private DictVO cachedDict(String typeCode) {
+        try {
+            String cached = cache.getCachedDict(typeCode);
+            if (AuthCacheService.DICT_ABSENT.equals(cached)) {
+                return ABSENT;
+            }
+            if (cached != null) {
+                return om.readValue(cached, DictVO.class);
+            }
+        } catch (Exception ignore) {}
+        return null;
+    }
 
+    /** 全局缓存回源：数据范围为“全部”，不拼接部门条件；类型不存在或已停用时写入负缓存 */
+    private DictVO loadByType(String typeCode) {
         SysDictType t = typeMapper.selectOne(Wrappers.<SysDictType>lambdaQuery()
                 .eq(SysDictType::getCode, typeCode));
         if (t == null || t.getStatus() == null || t.getStatus() != 1) {
-            cache.evictDict(typeCode);
-            return null;
+            try {
+                cache.cacheDict(typeCode, AuthCacheService.DICT_ABSENT);
+            } catch (Exception ex) {
+                log.warn("写入字典负缓存失败 typeCode={} err={}", typeCode, ex.getMessage());
+            }
+            return ABSENT;
         }
 
-        LambdaQueryWrapper<SysDictItem> wrapper = Wrappers.<SysDictItem>lambdaQuery()
+        List<SysDictItem> items = itemMapper.selectList(Wrappers.<SysDictItem>lambdaQuery()
                 .eq(SysDictItem::getTypeCode, typeCode)
-                .eq(SysDictItem::getStatus, 1);
-        // 根据数据范围拼接部门过滤条件
-        applyDeptScope(wrapper, scope, userId);
-        List<SysDictItem> items = itemMapper.selectList(wrapper);
+                .eq(SysDictItem::getStatus, 1));
 
         DictVO vo = buildDictVO(t, items);
-
-        if (useGlobalCache) {
-            cacheDictSafely(typeCode, vo);
-        }
+        cacheDictSafely(typeCode, vo);
         return vo;
     }
 
@@ -171,41 +205,217 @@ public class DictServiceImpl implements DictService {
         }
         Long userId = userIdProvider.getCurrentUserId();
         EffectiveDataScope scope = dataScopeManager.getEffectiveDataScope(userId);
-
-        SysDictType t = typeMapper.selectOne(Wrappers.<SysDictType>lambdaQuery()
-                .eq(SysDictType::getCode, typeCode));
-        if (t == null || t.getStatus() == null || t.getStatus() != 1) {
-            return null;
-        }
-
-        LambdaQueryWrapper<SysDictItem> wrapper = Wrappers.<SysDictItem>lambdaQuery()
-                .eq(SysDictItem::getTypeCode, typeCode)
-                .eq(SysDictItem::getStatus, 1)
-                .eq(SysDictItem::getDeptId, filterDeptId);
-        applyDeptScope(wrapper, scope, userId);
-        List<SysDictItem> items = itemMapper.selectList(wrapper);
-        return buildDictVO(t, items);
+        return getScopedDicts(List.of(typeCode), scope, userId, filterDeptId).get(typeCode);
     }
 
+    /**
+     * 批量查询：所有类型共用一次类型查询、一次字典项查询与一次部门查询；
+     * 数据范围为“全部”时走全局缓存，否则按 (typeCode, 字典版本, 范围指纹) 缓存
+     */
     @Override
     public Map<String, DictVO> getByTypes(List<String> typeCodes, Long filterDeptId) {
         if (typeCodes == null || typeCodes.isEmpty()) {
             return Collections.emptyMap();
         }
+        List<String> codes = typeCodes.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .distinct()
+                .toList();
+        if (codes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Long userId = userIdProvider.getCurrentUserId();
+        EffectiveDataScope scope = dataScopeManager.getEffectiveDataScope(userId);
+        Map<String, DictVO> found = filterDeptId == null && (scope == null || scope.isAll())
+                ? getGlobalDicts(codes)
+                : getScopedDicts(codes, scope, userId, filterDeptId);
         Map<String, DictVO> result = new LinkedHashMap<>();
-        for (String rawTypeCode : typeCodes) {
-            String typeCode = rawTypeCode == null ? null : rawTypeCode.trim();
-            if (!StringUtils.hasText(typeCode) || result.containsKey(typeCode)) {
+        for (String code : codes) {
+            result.put(code, found.get(code));
+        }
+        return result;
+    }
+
+    private Map<String, DictVO> getGlobalDicts(List<String> codes) {
+        Map<String, DictVO> result = new HashMap<>();
+        Map<String, String> cached = Collections.emptyMap();
+        try {
+            cached = cache.multiGetDicts(codes);
+        } catch (Exception ignore) {}
+        List<String> misses = collectCached(codes, cached, result);
+        if (misses.isEmpty()) {
+            return result;
+        }
+        Map<String, DictVO> loaded = loadByTypes(misses, null, null, null);
+        result.putAll(loaded);
+        try {
+            cache.cacheDicts(toJson(misses, loaded));
+        } catch (Exception ex) {
+            log.warn("同步字典缓存失败 typeCodes={} err={}", loaded.keySet(), ex.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * 受数据范围限制的查询：结果只取决于有效数据范围与字典内容，
+     * 因此以范围指纹 + 字典版本为键缓存，范围相同的用户共享；版本须在回源前读取，
+     * 回源期间发生的变更会递增版本，本次写入的旧结果不会再被读到。
+     * 不存在或已停用的类型同样按该键写入负缓存，创建/启用类型时版本递增即失效
+     */
+    private Map<String, DictVO> getScopedDicts(List<String> codes, EffectiveDataScope scope,
+                                               Long userId, Long filterDeptId) {
+        Map<String, DictVO> result = new HashMap<>();
+        String fingerprint = scopeFingerprint(scope, userId, filterDeptId);
+        Map<String, Long> versions = null;
+        Map<String, String> cached = Collections.emptyMap();
+        try {
+            versions = cache.multiGetDictVersions(codes);
+            cached = cache.multiGetScopedDicts(versions, fingerprint);
+        } catch (Exception ignore) {}
+        List<String> misses = collectCached(codes, cached, result);
+        if (misses.isEmpty()) {
+            return result;
+        }
+        Map<String, DictVO> loaded = loadByTypes(misses, scope, userId, filterDeptId);
+        result.putAll(loaded);
+        if (versions != null) {
+            try {
+                cache.cacheScopedDicts(versions, fingerprint, toJson(misses, loaded));
+            } catch (Exception ex) {
+                log.warn("写入范围字典缓存失败 typeCodes={} err={}", loaded.keySet(), ex.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /** 解析命中的缓存写入 result（负缓存命中的类型不写入也不回源），返回需要回源的类型 */
+    private List<String> collectCached(List<String> codes, Map<String, String> cached, Map<String, DictVO> result) {
+        List<String> misses = new ArrayList<>();
+        for (String code : codes) {
+            String json = cached == null ? null : cached.get(code);
+            if (AuthCacheService.DICT_ABSENT.equals(json)) {
                 continue;
             }
-            result.put(typeCode, getByType(typeCode, filterDeptId));
+            DictVO vo = null;
+            if (json != null) {
+                try {
+                    vo = om.readValue(json, DictVO.class);
+                } catch (Exception ignore) {}
+            }
+            if (vo != null) {
+                result.put(code, vo);
+            } else {
+                misses.add(code);
+            }
+        }
+        return misses;
+    }
+
+    /** 集合回源：一次查询启用的类型，一次查询这些类型下的字典项，部门信息统一查询一次 */
+    private Map<String, DictVO> loadByTypes(List<String> codes, EffectiveDataScope scope,
+                                            Long userId, Long filterDeptId) {
+        List<SysDictType> types = typeMapper.selectList(Wrappers.<SysDictType>lambdaQuery()
+                .in(SysDictType::getCode, codes)
+                .eq(SysDictType::getStatus, 1));
+        if (types == null || types.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Set<String> enabledCodes = types.stream()
+                .map(SysDictType::getCode)
+                .filter(StringUtils::hasText)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (enabledCodes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        LambdaQueryWrapper<SysDictItem> wrapper = Wrappers.<SysDictItem>lambdaQuery()
+                .in(SysDictItem::getTypeCode, enabledCodes)
+                .eq(SysDictItem::getStatus, 1);
+        if (filterDeptId != null) {
+            wrapper.eq(SysDictItem::getDeptId, filterDeptId);
+        }
+        // 根据数据范围拼接部门过滤条件
+        applyDeptScope(wrapper, scope, userId);
+        List<SysDictItem> items = itemMapper.selectList(wrapper);
+        Map<String, List<SysDictItem>> grouped = items == null
+                ? Collections.emptyMap()
+                : items.stream().collect(Collectors.groupingBy(SysDictItem::getTypeCode));
+        Map<Long, SysDept> deptMap = loadDeptMap(items);
+
+        Map<String, DictVO> result = new HashMap<>();
+        for (SysDictType type : types) {
+            DictVO vo = buildDictVO(type, grouped.getOrDefault(type.getCode(), Collections.emptyList()), deptMap);
+            if (vo != null) {
+                result.put(type.getCode(), vo);
+            }
         }
         return result;
     }
 
+    /** 回源结果序列化；回源后仍未找到的类型记为负缓存 */
+    private Map<String, String> toJson(List<String> codes, Map<String, DictVO> dicts) {
+        Map<String, String> jsonByType = new LinkedHashMap<>();
+        for (String code : codes) {
+            DictVO vo = dicts.get(code);
+            if (vo == null) {
+                jsonByType.put(code, AuthCacheService.DICT_ABSENT);
+                continue;
+            }
+            try {
+                jsonByType.put(code, om.writeValueAsString(vo));
+            } catch (Exception ex) {
+                log.warn("序列化字典失败 typeCode={} err={}", code, ex.getMessage());
+            }
+        }
+        return jsonByType;
+    }
+
+    /**
+     * 数据范围指纹：有效数据范围的紧凑编码（含部门树版本）+ 本人部门 + 部门过滤条件的摘要。
+     * 不使用令牌中的指纹：角色的数据范围配置变化时令牌指纹不变，但查询结果会变
+     */
+    private String scopeFingerprint(EffectiveDataScope scope, Long userId, Long filterDeptId) {
+        StringBuilder sb = new StringBuilder(scope == null ? "-" : DataScopeCodec.encode(scope));
+        if (scope != null && scope.isSelf()) {
+            sb.append("|s:").append(resolveDeptId(userId));
+        }
+        if (filterDeptId != null) {
+            sb.append("|f:").append(filterDeptId);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 递增字典版本，使按数据范围缓存的结果失效：立即一次，事务提交后再一次
+     * （防止提交前被并发读以新版本回填旧数据）
+     */
+    private void bumpVersions(Collection<String> typeCodes) {
+        List<String> codes = typeCodes == null ? List.of()
+                : typeCodes.stream().filter(StringUtils::hasText).distinct().toList();
+        if (codes.isEmpty()) {
+            return;
+        }
+        cache.bumpDictVersions(codes);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.bumpDictVersions(codes);
+                }
+            });
+        }
+    }
+
     @Override
     public void evictType(String typeCode) {
         cache.evictDict(typeCode);
+        bumpVersions(List.of(typeCode));
     }
 
     @Override
@@ -214,18 +424,33 @@ public class DictServiceImpl implements DictService {
         if (types == null || types.isEmpty()) {
             return;
         }
+        bumpVersions(types.stream().map(SysDictType::getCode).toList());
         List<SysDictItem> allItems = itemMapper.selectList(Wrappers.<SysDictItem>lambdaQuery()
                 .eq(SysDictItem::getStatus, 1));
         Map<String, List<SysDictItem>> grouped = allItems == null
                 ? Collections.emptyMap()
                 : allItems.stream().collect(Collectors.groupingBy(SysDictItem::getTypeCode));
+        // 先在内存中序列化全部类型，再一次 MSET 写入、一次批量删除停用类型
+        Map<String, String> jsonByType = new LinkedHashMap<>();
+        List<String> disabled = new ArrayList<>();
         for (SysDictType type : types) {
             if (type == null || !StringUtils.hasText(type.getCode())) {
                 continue;
             }
             List<SysDictItem> list = grouped.getOrDefault(type.getCode(), Collections.emptyList());
-            refreshCache(type, list);
+            DictVO vo = buildDictVO(type, list);
+            if (vo == null) {
+                disabled.add(type.getCode());
+                continue;
+            }
+            try {
+                jsonByType.put(type.getCode(), om.writeValueAsString(vo));
+            } catch (Exception ex) {
+                log.warn("同步字典缓存失败 typeCode={} err={}", type.getCode(), ex.getMessage());
+            }
         }
+        cache.cacheDicts(jsonByType);
+        cache.evictDicts(disabled);
     }
 
     @Override
@@ -233,6 +458,7 @@ public class DictServiceImpl implements DictService {
         if (!StringUtils.hasText(typeCode)) {
             return;
         }
+        bumpVersions(List.of(typeCode));
         SysDictType type = typeMapper.selectOne(Wrappers.<SysDictType>lambdaQuery()
                 .eq(SysDictType::getCode, typeCode));
         if (type == null) {
@@ -327,11 +553,19 @@ public class DictServiceImpl implements DictService {
     }
 
     private DictVO buildDictVO(SysDictType type, List<SysDictItem> items) {
+        return buildDictVO(type, items, null);
+    }
+
+    /** @param deptMap 调用方批量查好的部门；为 null 时按本类型字典项查询 */
+    private DictVO buildDictVO(SysDictType type, List<SysDictItem> items, Map<Long, SysDept> deptMap) {
         if (type == null || type.getStatus() == null || type.getStatus() != 1 || !StringUtils.hasText(type.getCode())) {
             return null;
         }
         List<SysDictItem> sorted = filterAndSort(items);
-        Map<Long, SysDept> deptMap = loadDeptMap(sorted);
+        if (deptMap == null) {
+            deptMap = loadDeptMap(sorted);
+        }
+        Map<Long, SysDept> depts = deptMap;
 
         DictVO vo = new DictVO();
         vo.setType(type.getCode());
@@ -341,7 +575,7 @@ public class DictServiceImpl implements DictService {
             it.setValue(i.getValue());
             it.setSort(i.getSort());
             it.setExt(i.getExt());
-            it.setDept(buildDeptBrief(i.getDeptId(), deptMap));
+            it.setDept(buildDeptBrief(i.getDeptId(), depts));
             return it;
         }).toList();
         vo.setItems(list);
@@ -370,20 +604,34 @@ public class DictServiceImpl implements DictService {
         if (wrapper == null || scope == null || scope.isAll()) {
             return;
         }
-        Set<Long> deptIds = new LinkedHashSet<>(scope.getDeptIds());
-        if (scope.isSelf()) {
-            Long deptId = resolveDeptId(userId);
-            if (deptId != null) {
-                deptIds.add(deptId);
-            }
-        }
-        if (deptIds.isEmpty()) {
+        Long selfDeptId = scope.isSelf() ? resolveDeptId(userId) : null;
+        if (!scope.hasDepartments() && selfDeptId == null) {
             wrapper.and(w -> w.isNull(SysDictItem::getDeptId));
             return;
         }
-        wrapper.and(w -> w.isNull(SysDictItem::getDeptId)
-                .or()
-                .in(SysDictItem::getDeptId, deptIds));
+        if (DataScopeUtil.useSubtreePredicate(scope)) {
+            // 大范围：子树根按闭包表展开，本人部门作为单独部门并入；
+            // 字典项由 type_code 索引定位，与 dept_id IS NULL 的 OR 只在已命中的行上做哈希过滤
+            EffectiveDataScope predicate = scope.copy();
+            Set<Long> direct = new LinkedHashSet<>(scope.getDirectDeptIds());
+            if (selfDeptId != null) {
+                direct.add(selfDeptId);
+            }
+            predicate.setDirectDeptIds(direct);
+            wrapper.and(w -> DataScopeUtil.applyDeptPredicate(w.isNull(SysDictItem::getDeptId).or(),
+                    SysDictItem::getDeptId, predicate));
+            return;
+        }
+        // 直接绑定解码后的有序数组，不物化部门 Set；本人部门不在范围内时单独追加
+        wrapper.and(w -> {
+            w.isNull(SysDictItem::getDeptId);
+            if (scope.hasDepartments()) {
+                w.or().in(SysDictItem::getDeptId, DataScopeUtil.deptIdList(scope));
+            }
+            if (selfDeptId != null && !scope.containsDept(selfDeptId)) {
+                w.or().eq(SysDictItem::getDeptId, selfDeptId);
+            }
+        });
     }
 
     private Map<Long, SysDept> loadDeptMap(List<SysDictItem> items) {
@@ -425,6 +673,10 @@ public class DictServiceImpl implements DictService {
         if (userId == null) {
             return null;
         }
+        // 当前用户：令牌携带了数据范围指纹时部门可信（可能为 null），无需查 sys_user
+        if (userId.equals(userIdProvider.getCurrentUserId()) && userIdProvider.getCurrentScopeFingerprint() != null) {
+            return userIdProvider.getCurrentDeptId();
+        }
         try {
             SysUser user = userMapper.selectById(userId);
             return user == null ? null : user.getDeptId();
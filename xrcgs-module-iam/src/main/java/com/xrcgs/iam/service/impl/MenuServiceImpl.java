@@ -13,10 +13,12 @@ import com.xrcgs.iam.model.vo.MenuMetaVO;
 import com.xrcgs.iam.model.vo.MenuRouteVO;
 import com.xrcgs.iam.model.vo.MenuTreeVO;
 import com.xrcgs.iam.service.MenuService;
+import com.xrcgs.iam.service.RoleService;
 import com.xrcgs.common.cache.AuthCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -29,6 +31,7 @@ public class MenuServiceImpl implements MenuService {
     private final SysRoleMapper roleMapper;
     private final SysRoleMenuMapper roleMenuMapper;
     private final AuthCacheService cacheService;
+    private final RoleService roleService;
     private final ObjectMapper om = new ObjectMapper();
 
     @Override
@@ -44,8 +47,13 @@ public class MenuServiceImpl implements MenuService {
     @Transactional(rollbackFor = Exception.class)
     public void update(SysMenu menu) {
         validateParent(menu.getParentId());
+        SysMenu current = menu.getId() == null ? null : menuMapper.selectById(menu.getId());
         menuMapper.updateById(menu);
         // 可在此按需失效相关角色的菜单树缓存
+        // 权限码或启用状态变化会改变引用该菜单的角色的权限集合
+        if (current != null && affectsPerms(current, menu)) {
+            roleService.onRolePermsChanged(roleIdsByMenu(menu.getId()));
+        }
     }
 
     @Override
@@ -53,11 +61,16 @@ public class MenuServiceImpl implements MenuService {
     public void remove(Long id) {
         long childCount = menuMapper.selectCount(Wrappers.<SysMenu>lambdaQuery().eq(SysMenu::getParentId, id));
         if (childCount > 0) throw new IllegalStateException("存在子菜单，无法删除");
+        SysMenu current = menuMapper.selectById(id);
+        // 关联关系删除前先取出引用该菜单的角色
+        List<Long> roleIds = current != null && StringUtils.hasText(current.getPerms())
+                ? roleIdsByMenu(id) : Collections.emptyList();
         menuMapper.deleteById(id);
         roleMenuMapper.delete(
                 Wrappers.<SysRoleMenu>lambdaQuery().eq(SysRoleMenu::getMenuId, id)
         );
-        // 缓存失效可在角色分配/查询时做，这里不强制
+        // 菜单树缓存失效可在角色分配/查询时做，这里不强制；权限集合必须失效
+        roleService.onRolePermsChanged(roleIds);
     }
 
     @Override
@@ -143,6 +156,24 @@ public class MenuServiceImpl implements MenuService {
     }
 
     /* helpers */
+
+    /** updateById 不写 null 字段，null 视为未修改；停用/启用只在菜单带有权限码时影响权限集合 */
+    private static boolean affectsPerms(SysMenu current, SysMenu update) {
+        boolean permsChanged = update.getPerms() != null && !Objects.equals(update.getPerms(), current.getPerms());
+        boolean statusChanged = update.getStatus() != null && !Objects.equals(update.getStatus(), current.getStatus());
+        return permsChanged || (statusChanged && StringUtils.hasText(current.getPerms()));
+    }
+
+    private List<Long> roleIdsByMenu(Long menuId) {
+        List<SysRoleMenu> links = roleMenuMapper.selectList(
+                Wrappers.<SysRoleMenu>lambdaQuery().eq(SysRoleMenu::getMenuId, menuId));
+        List<Long> roleIds = new ArrayList<>(links.size());
+        for (SysRoleMenu link : links) {
+            roleIds.add(link.getRoleId());
+        }
+        return roleIds;
+    }
+
     private void validateParent(Long parentId) {
         if (parentId == null || parentId == 0) return;
         SysMenu p = menuMapper.selectById(parentId);
@@ -2,16 +2,13 @@ package com.xrcgs.iam.service.impl;
 
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.xrcgs.iam.datascope.DataScopeManager;
-import com.xrcgs.iam.entity.SysMenu;
-import com.xrcgs.iam.entity.SysPermission;
-import com.xrcgs.iam.entity.SysRolePerm;
 import com.xrcgs.iam.entity.SysUserRole;
-import com.xrcgs.iam.mapper.SysMenuMapper;
-import com.xrcgs.iam.mapper.SysPermissionMapper;
-import com.xrcgs.iam.mapper.SysRolePermMapper;
+import com.xrcgs.iam.mapper.SysRoleMapper;
 import com.xrcgs.iam.mapper.SysUserRoleMapper;
+import com.xrcgs.iam.model.vo.RolePermRow;
 import com.xrcgs.iam.service.PermService;
 import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.infrastructure.cache.SingleFlightLoader;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -23,62 +20,91 @@ import java.util.stream.Collectors;
 public class PermServiceImpl implements PermService {
 
     private final SysUserRoleMapper userRoleMapper;
-    private final SysMenuMapper menuMapper;
-    private final SysRolePermMapper rolePermMapper;
-    private final SysPermissionMapper permissionMapper;
+    private final SysRoleMapper roleMapper;
     private final AuthCacheService cache;
     private final DataScopeManager dataScopeManager;
+    private final SingleFlightLoader singleFlightLoader;
 
+    /**
+     * 用户权限 = 各角色权限集合的并集；角色集合按角色缓存（同一角色的成千上万用户共享一份），
+     * 未命中的角色一次联表查询取回
+     */
     @Override
     public Set<String> aggregatePermsByRoles(Set<Long> roleIds) {
         if (roleIds == null || roleIds.isEmpty()) return Collections.emptySet();
 
-        // 1) 角色 -> 菜单 perms
-        Set<String> permsFromMenu = new HashSet<>();
-        for (Long rid : roleIds) {
-            List<SysMenu> ms = menuMapper.selectByRoleId(rid);
-            for (SysMenu m : ms) {
-                if (m.getStatus() != null && m.getStatus() == 1 && m.getDelFlag() != null && m.getDelFlag() == 0) {
-                    if (m.getPerms() != null && !m.getPerms().isBlank()) {
-                        permsFromMenu.add(m.getPerms().trim());
-                    }
-                }
-            }
+        Map<Long, Set<String>> byRole = new HashMap<>(cache.multiGetRolePerms(roleIds));
+        List<Long> misses = roleIds.stream()
+                .filter(Objects::nonNull)
+                .filter(rid -> !byRole.containsKey(rid))
+                .toList();
+        if (!misses.isEmpty()) {
+            Map<Long, Set<String>> loaded = loadRolePerms(misses);
+            cache.cacheRolePerms(loaded);
+            byRole.putAll(loaded);
         }
 
-        // 2) 角色 -> 独立权限码
-        Set<String> permsFromRolePerm = new HashSet<>();
-        List<SysRolePerm> rps = rolePermMapper.selectList(
-                Wrappers.<SysRolePerm>lambdaQuery().in(SysRolePerm::getRoleId, roleIds));
-        if (!rps.isEmpty()) {
-            Set<Long> permIds = rps.stream().map(SysRolePerm::getPermId).collect(Collectors.toSet());
-            if (!permIds.isEmpty()) {
-                List<SysPermission> ps = permissionMapper.selectBatchIds(permIds);
-                for (SysPermission p : ps) {
-                    if (p.getCode() != null && !p.getCode().isBlank()) permsFromRolePerm.add(p.getCode().trim());
-                }
+        Set<String> perms = new HashSet<>();
+        for (Set<String> rolePerms : byRole.values()) {
+            perms.addAll(rolePerms);
+        }
+        return perms;
+    }
+
+    /** 菜单 perms + 独立权限码，一次查询；没有任何权限的角色也返回空集合以便缓存 */
+    private Map<Long, Set<String>> loadRolePerms(Collection<Long> roleIds) {
+        Map<Long, Set<String>> byRole = new HashMap<>();
+        for (Long rid : roleIds) {
+            byRole.put(rid, new HashSet<>());
+        }
+        for (RolePermRow row : roleMapper.selectPermsByRoleIds(roleIds)) {
+            Set<String> perms = byRole.get(row.getRoleId());
+            if (perms != null && row.getPerm() != null && !row.getPerm().isBlank()) {
+                perms.add(row.getPerm().trim());
             }
         }
-        permsFromMenu.addAll(permsFromRolePerm);
-        return permsFromMenu;
+        return byRole;
     }
 
     @Override
     public Set<String> loadAndCacheUserPerms(Long userId) {
         // 先尝试读缓存（infrastructure 用 Redis Set 存）
-        Set<String> cached = cache.getCachedUserPerms(userId);
-        if (cached != null && !cached.isEmpty()) {
+        Set<String> cached = cachedPerms(userId);
+        if (cached != null) {
             return cached;
         }
+        // 缓存失效瞬间的并发请求合并为一次回源
+        return singleFlightLoader.load("perms:" + userId, () -> cachedPerms(userId), () -> {
+            // 用户 -> 角色
+            List<SysUserRole> urs = userRoleMapper.selectList(
+                    Wrappers.<SysUserRole>lambdaQuery().eq(SysUserRole::getUserId, userId));
+            Set<Long> roleIds = urs.stream().map(SysUserRole::getRoleId).collect(Collectors.toSet());
 
-        // 用户 -> 角色
-        List<SysUserRole> urs = userRoleMapper.selectList(
-                Wrappers.<SysUserRole>lambdaQuery().eq(SysUserRole::getUserId, userId));
-        Set<Long> roleIds = urs.stream().map(SysUserRole::getRoleId).collect(Collectors.toSet());
+            Set<String> perms = aggregatePermsByRoles(roleIds);
+            cache.cacheUserPerms(userId, perms);
+            return perms;
+        });
+    }
 
-        Set<String> perms = aggregatePermsByRoles(roleIds);
-        cache.cacheUserPerms(userId, perms);
-        return perms;
+    @Override
+    public Set<String> loadAndCacheUserPerms(Long userId, Set<Long> roleIds) {
+        if (roleIds == null) {
+            return loadAndCacheUserPerms(userId);
+        }
+        Set<String> cached = cachedPerms(userId);
+        if (cached != null) {
+            return cached;
+        }
+        return singleFlightLoader.load("perms:" + userId, () -> cachedPerms(userId), () -> {
+            Set<String> perms = aggregatePermsByRoles(roleIds);
+            cache.cacheUserPerms(userId, perms);
+            return perms;
+        });
+    }
+
+    private Set<String> cachedPerms(Long userId) {
+        Set<String> cached = cache.getCachedUserPerms(userId);
+        return cached == null || cached.isEmpty() ? null : cached;
     }
 
     @Override
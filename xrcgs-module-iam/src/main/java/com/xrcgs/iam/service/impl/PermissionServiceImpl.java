@@ -8,11 +8,14 @@ import com.xrcgs.iam.mapper.SysRolePermMapper;
 import com.xrcgs.iam.model.dto.PermissionUpsertDTO;
 import com.xrcgs.iam.model.vo.PermissionVO;
 import com.xrcgs.iam.service.PermissionService;
+import com.xrcgs.iam.service.RoleService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -24,6 +27,7 @@ public class PermissionServiceImpl implements PermissionService {
 
     private final SysPermissionMapper permissionMapper;
     private final SysRolePermMapper rolePermMapper;
+    private final RoleService roleService;
 
     @Override
     public List<PermissionVO> list(String name) {
@@ -114,6 +118,10 @@ public class PermissionServiceImpl implements PermissionService {
         update.setRemark(remark);
         update.setSortNo(sortNo);
         permissionMapper.updateById(update);
+        // 权限码改名：引用它的角色权限集合随之变化
+        if (!Objects.equals(code, current.getCode())) {
+            roleService.onRolePermsChanged(roleIdsByPerms(List.of(id)));
+        }
     }
 
     @Override
@@ -136,10 +144,23 @@ public class PermissionServiceImpl implements PermissionService {
         }
 
         List<Long> deleteIds = expandDeleteIds(existing, targetIds);
+        // 关联关系删除前先取出引用这些权限的角色
+        List<Long> roleIds = roleIdsByPerms(deleteIds);
         permissionMapper.deleteBatchIds(deleteIds);
         rolePermMapper.delete(
                 Wrappers.<SysRolePerm>lambdaQuery().in(SysRolePerm::getPermId, deleteIds)
         );
+        roleService.onRolePermsChanged(roleIds);
+    }
+
+    private List<Long> roleIdsByPerms(Collection<Long> permIds) {
+        List<SysRolePerm> links = rolePermMapper.selectList(
+                Wrappers.<SysRolePerm>lambdaQuery().in(SysRolePerm::getPermId, permIds));
+        List<Long> roleIds = new ArrayList<>(links.size());
+        for (SysRolePerm link : links) {
+            roleIds.add(link.getRoleId());
+        }
+        return roleIds;
     }
 
     private PermissionVO toVO(SysPermission permission) {
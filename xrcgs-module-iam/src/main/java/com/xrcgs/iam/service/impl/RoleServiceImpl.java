@@ -1,10 +1,12 @@
 package com.xrcgs.iam.service.impl;
 
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xrcgs.common.cache.AuthCacheService;
-import com.xrcgs.iam.datascope.DataScopeManager;
+import com.xrcgs.common.cache.TokenEpochService;
+import com.xrcgs.iam.datascope.RoleScopeRegistry;
 import com.xrcgs.iam.entity.*;
 import com.xrcgs.iam.mapper.*;
 import com.xrcgs.iam.model.dto.RoleGrantMenuDTO;
@@ -12,32 +14,46 @@ import com.xrcgs.iam.model.dto.RoleGrantPermDTO;
 import com.xrcgs.iam.model.dto.RoleUpsertDTO;
 import com.xrcgs.iam.model.query.RolePageQuery;
 import com.xrcgs.iam.model.vo.DeptBriefVO;
+import com.xrcgs.iam.model.vo.RolePermRow;
 import com.xrcgs.iam.model.vo.RolePageVO;
 import com.xrcgs.iam.service.RoleService;
+import com.xrcgs.iam.task.AuthRematerializer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RoleServiceImpl implements RoleService {
 
+    /** 授权增量写入时单条 INSERT/DELETE 语句携带的最大行数 */
+    private static final int GRANT_BATCH_SIZE = 500;
+
     private final SysRoleMapper roleMapper;
     private final SysRoleMenuMapper roleMenuMapper;
     private final SysRolePermMapper rolePermMapper;
     private final SysUserRoleMapper userRoleMapper;
     private final SysDeptMapper deptMapper;
     private final AuthCacheService authCacheService;
-    private final DataScopeManager dataScopeManager;
+    private final TokenEpochService tokenEpochService;
+    private final RoleScopeRegistry roleScopeRegistry;
+    private final AuthRematerializer rematerializer;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -100,8 +116,16 @@ public class RoleServiceImpl implements RoleService {
         if (role.getId() == null) roleMapper.insert(role);
         else roleMapper.updateById(role);
 
-        // 角色被变更 -> 使拥有该角色的用户权限缓存失效
-        invalidateUsersByRole(role.getId());
+        // 角色被变更 -> 使拥有该角色的用户权限缓存及角色数据范围描述符失效
+        roleScopeRegistry.invalidate(role.getId());
+        evictRolePerms(role.getId());
+        List<Long> userIds = invalidateUsersByRole(role.getId());
+        // 停用角色或改编码：令牌中的 roles/perms claim 已不可信，需换发
+        boolean disabled = origin != null && !Objects.equals(origin.getStatus(), status) && !Objects.equals(status, 1);
+        boolean codeChanged = origin != null && !Objects.equals(origin.getCode(), role.getCode());
+        if (disabled || codeChanged) {
+            revokeTokens(userIds);
+        }
         return role.getId();
     }
 
@@ -111,42 +135,76 @@ public class RoleServiceImpl implements RoleService {
         roleMapper.deleteById(roleId);
         roleMenuMapper.delete(Wrappers.<SysRoleMenu>lambdaQuery().eq(SysRoleMenu::getRoleId, roleId));
         rolePermMapper.delete(Wrappers.<SysRolePerm>lambdaQuery().eq(SysRolePerm::getRoleId, roleId));
-        invalidateUsersByRole(roleId);
+        roleScopeRegistry.invalidate(roleId);
+        evictRolePerms(roleId);
+        revokeTokens(invalidateUsersByRole(roleId));
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void grantMenus(RoleGrantMenuDTO dto) {
         Long roleId = dto.getRoleId();
-        roleMenuMapper.delete(Wrappers.<SysRoleMenu>lambdaQuery().eq(SysRoleMenu::getRoleId, roleId));
-        if (dto.getMenuIds() != null && !dto.getMenuIds().isEmpty()) {
-            for (Long mid : dto.getMenuIds()) {
-                SysRoleMenu rm = new SysRoleMenu();
-                rm.setRoleId(roleId);
-                rm.setMenuId(mid);
-                roleMenuMapper.insert(rm);
-            }
+        Set<Long> current = new HashSet<>(listMenuIdsByRole(roleId));
+        Set<Long> target = distinctIds(dto.getMenuIds());
+        List<Long> added = minus(target, current);
+        List<Long> removed = minus(current, target);
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Set<String> before = rolePermSet(roleId);
+        for (List<Long> chunk : chunks(removed)) {
+            roleMenuMapper.deleteByRoleAndMenuIds(roleId, chunk);
         }
-        // ✅ 精确失效：该角色的菜单树 + 该角色下所有用户的权限缓存
+        for (List<Long> chunk : chunks(added)) {
+            roleMenuMapper.insertBatch(roleId, chunk);
+        }
+        // 菜单树随菜单集合变化；权限码未变（如只勾选了目录）时不必失效用户缓存、吊销令牌
         authCacheService.evictMenuTreeByRole(roleId);
+        if (before.equals(rolePermSet(roleId))) {
+            return;
+        }
+        evictRolePerms(roleId);
 
-        invalidateUsersByRole(roleId);
+        // 菜单上的 perms 同样写入令牌，授权变更后吊销该角色用户的在途令牌
+        revokeTokens(invalidateUsersByRole(roleId));
     }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
     public void grantPerms(RoleGrantPermDTO dto) {
         Long roleId = dto.getRoleId();
-        rolePermMapper.delete(Wrappers.<SysRolePerm>lambdaQuery().eq(SysRolePerm::getRoleId, roleId));
-        if (dto.getPermIds() != null && !dto.getPermIds().isEmpty()) {
-            for (Long pid : dto.getPermIds()) {
+        Set<Long> current = new HashSet<>();
+        for (String pid : listPermIdsByRole(roleId)) {
+            current.add(Long.valueOf(pid));
+        }
+        Set<Long> target = distinctIds(dto.getPermIds());
+        List<Long> added = minus(target, current);
+        List<Long> removed = minus(current, target);
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+
+        Set<String> before = rolePermSet(roleId);
+        for (List<Long> chunk : chunks(removed)) {
+            rolePermMapper.deleteByRoleAndPermIds(roleId, chunk);
+        }
+        for (List<Long> chunk : chunks(added)) {
+            List<SysRolePerm> rows = new ArrayList<>(chunk.size());
+            for (Long pid : chunk) {
                 SysRolePerm rp = new SysRolePerm();
+                rp.setId(IdWorker.getId());
                 rp.setRoleId(roleId);
                 rp.setPermId(pid);
-                rolePermMapper.insert(rp);
+                rows.add(rp);
             }
+            rolePermMapper.insertBatch(rows);
+        }
+        if (before.equals(rolePermSet(roleId))) {
+            return;
         }
-        invalidateUsersByRole(roleId);
+        evictRolePerms(roleId);
+        revokeTokens(invalidateUsersByRole(roleId));
     }
 
     @Override
@@ -224,12 +282,115 @@ public class RoleServiceImpl implements RoleService {
         return ids;
     }
 
-    private void invalidateUsersByRole(Long roleId) {
+    @Override
+    public void onRolePermsChanged(Collection<Long> roleIds) {
+        Set<Long> distinct = distinctIds(roleIds);
+        if (distinct.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(distinct);
+        evictRolePerms(ids);
+        revokeTokens(invalidateUsersByRoles(ids));
+    }
+
+    /** 角色当前生效的权限码（菜单 perms + 独立权限码），用于判断授权变更是否影响用户 */
+    private Set<String> rolePermSet(Long roleId) {
+        Set<String> perms = new HashSet<>();
+        for (RolePermRow row : roleMapper.selectPermsByRoleIds(List.of(roleId))) {
+            if (row.getPerm() != null && !row.getPerm().isBlank()) {
+                perms.add(row.getPerm().trim());
+            }
+        }
+        return perms;
+    }
+
+    private static Set<Long> distinctIds(Collection<Long> ids) {
+        Set<Long> set = new LinkedHashSet<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                if (id != null) set.add(id);
+            }
+        }
+        return set;
+    }
+
+    private static List<Long> minus(Set<Long> left, Set<Long> right) {
+        List<Long> diff = new ArrayList<>();
+        for (Long id : left) {
+            if (!right.contains(id)) diff.add(id);
+        }
+        return diff;
+    }
+
+    /** 按 GRANT_BATCH_SIZE 切分，避免单条语句的参数过多 */
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += GRANT_BATCH_SIZE) {
+            chunks.add(ids.subList(i, Math.min(ids.size(), i + GRANT_BATCH_SIZE)));
+        }
+        return chunks;
+    }
+
+    /**
+     * 失效角色级权限集合：立即删除一次，事务提交后再删除一次（防止提交前被并发读回填旧数据）；
+     * 须先于 invalidateUsersByRole 注册，保证后台重建读到的是新的角色集合
+     */
+    private void evictRolePerms(Long roleId) {
+        evictRolePerms(List.of(roleId));
+    }
+
+    private void evictRolePerms(List<Long> roleIds) {
+        authCacheService.evictRolePerms(roleIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    authCacheService.evictRolePerms(roleIds);
+                }
+            });
+        }
+    }
+
+    /** 失效拥有该角色的用户缓存，返回受影响的用户 ID */
+    private List<Long> invalidateUsersByRole(Long roleId) {
+        return invalidateUsersByRoles(List.of(roleId));
+    }
+
+    private List<Long> invalidateUsersByRoles(List<Long> roleIds) {
         List<SysUserRole> urs = userRoleMapper.selectList(
-                Wrappers.<SysUserRole>lambdaQuery().eq(SysUserRole::getRoleId, roleId));
+                Wrappers.<SysUserRole>lambdaQuery().in(SysUserRole::getRoleId, roleIds));
+        Set<Long> distinct = new LinkedHashSet<>();
         for (SysUserRole ur : urs) {
-            authCacheService.evictUserPerms(ur.getUserId());
-            dataScopeManager.evictUserDataScope(ur.getUserId());
+            distinct.add(ur.getUserId());
+        }
+        List<Long> userIds = new ArrayList<>(distinct);
+        // 权限与数据范围缓存批量删除，一次往返；提交后后台重建，受影响用户下次请求直接命中缓存
+        authCacheService.evictUserAuth(userIds);
+        rematerializer.submitUsers(userIds);
+        return userIds;
+    }
+
+    /** 提交后再递增纪元：回滚的变更不应踢人下线，并发换发的令牌也不会盖上新纪元却读到旧授权 */
+    private void revokeTokens(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        Runnable revoke = () -> {
+            try {
+                tokenEpochService.revokeAll(userIds);
+            } catch (Exception e) {
+                log.warn("吊销角色用户令牌失败, users={}", userIds.size(), e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revoke.run();
+                }
+            });
+        } else {
+            revoke.run();
         }
     }
 }
@@ -5,6 +5,9 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.common.cache.TokenEpochService;
+import com.xrcgs.common.core.CursorPage;
+import com.xrcgs.common.core.KeysetCursor;
 import com.xrcgs.iam.datascope.DataScopeManager;
 import com.xrcgs.iam.entity.SysDept;
 import com.xrcgs.iam.entity.SysRole;
@@ -23,9 +26,12 @@ import com.xrcgs.iam.model.vo.UserSimpleVO;
 import com.xrcgs.iam.model.vo.UserVO;
 import com.xrcgs.iam.service.UserService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
@@ -39,6 +45,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
@@ -54,6 +61,7 @@ public class UserServiceImpl implements UserService {
     private final DataScopeManager dataScopeManager;
     private final ObjectMapper objectMapper;
     private final SysUserRoleMapper userRoleMapper;
+    private final TokenEpochService tokenEpochService;
 
     @Override
     public Page<UserVO> page(UserPageQuery q, long pageNo, long pageSize) {
@@ -73,6 +81,28 @@ public class UserServiceImpl implements UserService {
         return result;
     }
 
+    @Override
+    public CursorPage<UserVO> cursor(UserPageQuery q, String cursor, long size, boolean withTotal) {
+        UserPageQuery query = q == null ? new UserPageQuery() : q;
+        enrichDeptQuery(query);
+        int limit = CursorPage.normalizeSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        // 列表按 id 倒序，游标的排序键即 id
+        query.setCursorId(after == null ? null : after.id());
+        Page<SysUser> entityPage = userMapper.selectPage(Page.of(1, limit + 1, withTotal && after == null), query);
+        CursorPage<UserVO> result = CursorPage
+                .of(entityPage.getRecords(), limit, u -> KeysetCursor.encode(u.getId(), u.getId()))
+                .map(this::toVO);
+        if (entityPage.searchCount()) {
+            result.setTotal(entityPage.getTotal());
+        }
+        if (!result.getRecords().isEmpty()) {
+            fillDeptInfo(result.getRecords());
+            fillRoleInfo(result.getRecords());
+        }
+        return result;
+    }
+
     @Override
     public UserVO detail(Long id) {
         SysUser user = requireExisting(id);
@@ -160,10 +190,19 @@ public class UserServiceImpl implements UserService {
             update.setPassword(passwordEncoder.encode(newPassword));
         }
 
+        Set<Long> previousRoleIds = currentRoleIds(id);
         userMapper.updateById(update);
         userRoleMapper.delete(Wrappers.<SysUserRole>lambdaQuery().eq(SysUserRole::getUserId, id));
         saveUserRoles(id, dto.getRoleIds());
         evictAuthCache(id);
+        // 部门随令牌下发（did/sf claim），角色/权限随令牌下发（roles/perms claim），
+        // 停用与改密须让旧令牌立即失效：任一变化都需换发令牌
+        boolean rolesChanged = !previousRoleIds.equals(normalizeRoleIds(dto.getRoleIds()));
+        boolean enabledChanged = !Objects.equals(current.getEnabled(), update.getEnabled());
+        boolean deptChanged = !Objects.equals(current.getDeptId(), dto.getDeptId());
+        if (rolesChanged || enabledChanged || deptChanged || update.getPassword() != null) {
+            revokeTokens(id);
+        }
     }
 
     @Override
@@ -179,6 +218,7 @@ public class UserServiceImpl implements UserService {
         update.setPassword(passwordEncoder.encode(normalized));
         userMapper.updateById(update);
         evictAuthCache(id);
+        revokeTokens(id);
     }
 
     @Override
@@ -188,6 +228,7 @@ public class UserServiceImpl implements UserService {
         userRoleMapper.delete(Wrappers.<SysUserRole>lambdaQuery().eq(SysUserRole::getUserId, id));
         saveUserRoles(id, roleIds);
         evictAuthCache(id);
+        revokeTokens(id);
     }
 
     @Override
@@ -197,6 +238,7 @@ public class UserServiceImpl implements UserService {
         userRoleMapper.delete(Wrappers.<SysUserRole>lambdaQuery().eq(SysUserRole::getUserId, id));
         userMapper.deleteById(id);
         evictAuthCache(id);
+        revokeTokens(id);
     }
 
     @Override
@@ -208,6 +250,9 @@ public class UserServiceImpl implements UserService {
         update.setEnabled(enabled);
         userMapper.updateById(update);
         evictAuthCache(id);
+        if (!enabled) {
+            revokeTokens(id);
+        }
     }
 
     @Override
@@ -322,11 +367,7 @@ public class UserServiceImpl implements UserService {
         if (deptId == null) {
             return Collections.emptyList();
         }
-        SysDept dept = deptMapper.selectById(deptId);
-        if (dept == null || !StringUtils.hasText(dept.getPath())) {
-            return Collections.singletonList(deptId);
-        }
-        List<Long> deptIds = deptMapper.selectIdsByPathPrefix(dept.getPath());
+        List<Long> deptIds = deptMapper.selectDescendantIds(deptId);
         if (deptIds == null || deptIds.isEmpty()) {
             return Collections.singletonList(deptId);
         }
@@ -377,12 +418,7 @@ public class UserServiceImpl implements UserService {
         if (q == null || q.getDeptId() == null) {
             return;
         }
-        SysDept dept = deptMapper.selectById(q.getDeptId());
-        if (dept == null || !StringUtils.hasText(dept.getPath())) {
-            q.setDeptIds(Collections.singletonList(q.getDeptId()));
-            return;
-        }
-        List<Long> deptIds = deptMapper.selectIdsByPathPrefix(dept.getPath());
+        List<Long> deptIds = deptMapper.selectDescendantIds(q.getDeptId());
         if (deptIds == null || deptIds.isEmpty()) {
             q.setDeptIds(Collections.singletonList(q.getDeptId()));
             return;
@@ -440,6 +476,22 @@ public class UserServiceImpl implements UserService {
         return serializeList(deptIds);
     }
 
+    private Set<Long> currentRoleIds(Long userId) {
+        List<SysUserRole> relations = userRoleMapper.selectList(
+                Wrappers.<SysUserRole>lambdaQuery().eq(SysUserRole::getUserId, userId));
+        if (relations == null || relations.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return relations.stream().map(SysUserRole::getRoleId).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static Set<Long> normalizeRoleIds(List<Long> roleIds) {
+        if (roleIds == null || roleIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return roleIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
     private void saveUserRoles(Long userId, List<Long> roleIds) {
         if (userId == null || roleIds == null || roleIds.isEmpty()) {
             return;
@@ -615,6 +667,31 @@ public class UserServiceImpl implements UserService {
         } catch (Exception ignored) {
         }
     }
+
+    /** 纪元 +1：该用户此前签发的令牌全部失效（角色/状态/密码变更后强制重新登录） */
+    private void revokeTokens(Long userId) {
+        // 提交后再递增纪元：事务内递增会让回滚的变更也踢人下线，且并发换发的令牌可能盖上新纪元却读到旧数据
+        runAfterCommit(() -> {
+            try {
+                tokenEpochService.revoke(userId);
+            } catch (Exception e) {
+                log.warn("吊销用户令牌失败, userId={}", userId, e);
+            }
+        });
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
 
 
@@ -0,0 +1,421 @@
+package com.xrcgs.iam.task;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.common.constants.IamCacheKeys;
+import com.xrcgs.iam.datascope.DataScopeManager;
+import com.xrcgs.iam.datascope.DeptTreeVersionWatermark;
+import com.xrcgs.iam.datascope.EffectiveDataScope;
+import com.xrcgs.iam.entity.SysUser;
+import com.xrcgs.iam.entity.SysUserRole;
+import com.xrcgs.iam.mapper.SysUserMapper;
+import com.xrcgs.iam.mapper.SysUserRoleMapper;
+import com.xrcgs.iam.service.PermService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 角色/部门变更后的后台重建：变更提交后并行分批重算受影响用户的权限与数据范围，
+ * 以 pipeline 批量写回缓存，用户下次请求直接命中热缓存，而不是集中在早高峰回源。
+ * - 角色变更：重建拥有该角色的用户（权限 + 数据范围）；同一用户多次变更在队列中合并
+ * - 部门树版本变化：按 ID 游标遍历全部用户，只重建数据范围（权限不受部门影响）
+ * - 单个协调线程按批提交到有界 ForkJoinPool，在途批次数不超过 parallelism；同一轮内相同角色集合的权限只聚合一次
+ * - 开关关闭（kill switch）后丢弃待处理任务，进行中的一轮在下一批前停止；缓存已在变更时失效，
+ *   关停只是退回到请求时按需计算
+ * - 开关为集群级：写入 Redis 并通过 pub/sub 广播，各节点同步本地值；定时与 Redis 对账兜底广播丢失
+ */
+@Slf4j
+@Component
+public class AuthRematerializer {
+
+    private final RematerializeProperties props;
+    private final SysUserMapper userMapper;
+    private final SysUserRoleMapper userRoleMapper;
+    private final PermService permService;
+    private final DataScopeManager dataScopeManager;
+    private final DeptTreeVersionWatermark versionWatermark;
+    private final AuthCacheService authCacheService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final ExecutorService coordinator;
+    private final ForkJoinPool workers;
+    private volatile boolean enabled;
+
+    private final Set<Long> pendingUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean allPending = new AtomicBoolean();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder runsCancelled = new LongAdder();
+    private final LongAdder usersRematerialized = new LongAdder();
+    private final LongAdder usersFailed = new LongAdder();
+    private final LongAdder batchesFailed = new LongAdder();
+    private final AtomicLong currentDone = new AtomicLong();
+    private volatile String currentKind;
+    private volatile long currentStartedAt;
+    private volatile String lastRun;
+
+    @Autowired
+    public AuthRematerializer(RematerializeProperties props,
+                              SysUserMapper userMapper,
+                              SysUserRoleMapper userRoleMapper,
+                              PermService permService,
+                              DataScopeManager dataScopeManager,
+                              DeptTreeVersionWatermark versionWatermark,
+                              AuthCacheService authCacheService,
+                              StringRedisTemplate stringRedisTemplate,
+                              RedisMessageListenerContainer listenerContainer) {
+        this.props = props;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.userMapper = userMapper;
+        this.userRoleMapper = userRoleMapper;
+        this.permService = permService;
+        this.dataScopeManager = dataScopeManager;
+        this.versionWatermark = versionWatermark;
+        this.authCacheService = authCacheService;
+        this.enabled = props.isEnabled();
+        this.coordinator = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "auth-rematerialize");
+            t.setDaemon(true);
+            return t;
+        });
+        this.workers = new ForkJoinPool(Math.max(1, props.getParallelism()));
+    }
+
+    /** 开关仅在本节点生效、不读写 Redis（测试或单节点使用） */
+    public AuthRematerializer(RematerializeProperties props,
+                              SysUserMapper userMapper,
+                              SysUserRoleMapper userRoleMapper,
+                              PermService permService,
+                              DataScopeManager dataScopeManager,
+                              DeptTreeVersionWatermark versionWatermark,
+                              AuthCacheService authCacheService) {
+        this(props, userMapper, userRoleMapper, permService, dataScopeManager, versionWatermark,
+                authCacheService, null, null);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this::onMessage,
+                    new ChannelTopic(IamCacheKeys.REMATERIALIZE_SWITCH_CHANNEL));
+        }
+        reconcile();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        enabled = false;
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /** 重建指定用户的权限与数据范围（事务中调用时在提交后执行） */
+    public void submitUsers(Collection<Long> userIds) {
+        if (!enabled || userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).toList();
+        afterCommit(() -> {
+            pendingUsers.addAll(ids);
+            scheduleDrain();
+        });
+    }
+
+    /** 部门树版本变化：重建全部用户的数据范围；未开始的多次请求合并为一轮 */
+    public void submitAllScopes() {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            allPending.set(true);
+            scheduleDrain();
+        });
+    }
+
+    /** 运行期开关（集群级）：写入 Redis 并广播；关闭时各节点丢弃待处理任务，进行中的一轮在下一批前停止 */
+    public void setEnabled(boolean enabled) {
+        String value = enabled ? "1" : "0";
+        if (stringRedisTemplate != null) {
+            try {
+                stringRedisTemplate.opsForValue().set(IamCacheKeys.REMATERIALIZE_ENABLED, value);
+                stringRedisTemplate.convertAndSend(IamCacheKeys.REMATERIALIZE_SWITCH_CHANNEL, value);
+            } catch (Exception e) {
+                // 仅本节点生效，其它节点在 Redis 恢复后的对账中感知
+                log.warn("Auth rematerializer switch not shared: {}", e.getMessage());
+            }
+        }
+        apply(enabled);
+    }
+
+    /** 与 Redis 对账：Redis 中有开关值时以其为准，没有时保持配置初始值 */
+    @Scheduled(fixedDelayString = "${iam.rematerialize.reconcile-interval-ms:30000}",
+            initialDelayString = "${iam.rematerialize.reconcile-interval-ms:30000}")
+    public void reconcile() {
+        if (stringRedisTemplate == null) {
+            return;
+        }
+        try {
+            String value = stringRedisTemplate.opsForValue().get(IamCacheKeys.REMATERIALIZE_ENABLED);
+            if (value != null && !value.isBlank()) {
+                apply("1".equals(value.trim()));
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8).trim();
+        if ("1".equals(body) || "0".equals(body)) {
+            apply("1".equals(body));
+        }
+    }
+
+    private void apply(boolean enabled) {
+        boolean previous = this.enabled;
+        this.enabled = enabled;
+        if (!enabled) {
+            pendingUsers.clear();
+            allPending.set(false);
+        }
+        if (previous != enabled) {
+            log.info("Auth rematerializer {}", enabled ? "enabled" : "disabled");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+            return;
+        }
+        action.run();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                coordinator.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (enabled) {
+                if (!pendingUsers.isEmpty()) {
+                    List<Long> ids = new ArrayList<>(pendingUsers);
+                    pendingUsers.removeAll(ids);
+                    ids.sort(null);
+                    run("users", true, chunks(ids));
+                } else if (allPending.getAndSet(false)) {
+                    run("allScopes", false, allUserIds());
+                } else {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Auth rematerialize failed: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+            // 释放标记与新任务入队之间的竞态：有剩余任务就重新调度
+            if (enabled && (allPending.get() || !pendingUsers.isEmpty())) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    private void run(String kind, boolean includePerms, Supplier<List<Long>> nextBatch) {
+        long start = System.currentTimeMillis();
+        currentKind = kind;
+        currentStartedAt = start;
+        currentDone.set(0);
+        runs.increment();
+        Map<Set<Long>, Set<String>> permsByRoleSet = new ConcurrentHashMap<>();
+        Deque<Future<?>> inFlight = new ArrayDeque<>();
+        int window = Math.max(1, props.getParallelism());
+        boolean cancelled = false;
+        try {
+            List<Long> batch;
+            while ((batch = nextBatch.get()) != null && !batch.isEmpty()) {
+                if (!enabled) {
+                    cancelled = true;
+                    break;
+                }
+                while (inFlight.size() >= window) {
+                    await(inFlight.poll());
+                }
+                List<Long> ids = batch;
+                long version = versionWatermark.current();
+                inFlight.add(workers.submit(() -> rematerialize(ids, version, includePerms, permsByRoleSet)));
+            }
+            while (!inFlight.isEmpty()) {
+                await(inFlight.poll());
+            }
+        } finally {
+            currentKind = null;
+            if (cancelled) {
+                runsCancelled.increment();
+            }
+            long cost = System.currentTimeMillis() - start;
+            lastRun = kind + (cancelled ? " (cancelled)" : "") + ": users=" + currentDone.get() + ", cost=" + cost + "ms";
+            log.info("Auth rematerialize {}", lastRun);
+        }
+    }
+
+    private void rematerialize(List<Long> userIds, long deptTreeVersion, boolean includePerms,
+                               Map<Set<Long>, Set<String>> permsByRoleSet) {
+        try {
+            List<SysUser> users = userMapper.selectBatchIds(userIds);
+            if (users == null || users.isEmpty()) {
+                return;
+            }
+            Map<Long, Set<Long>> rolesByUser = new HashMap<>();
+            List<SysUserRole> relations = userRoleMapper.selectList(
+                    Wrappers.<SysUserRole>lambdaQuery().in(SysUserRole::getUserId, userIds));
+            for (SysUserRole ur : relations) {
+                if (ur.getUserId() != null && ur.getRoleId() != null) {
+                    rolesByUser.computeIfAbsent(ur.getUserId(), k -> new LinkedHashSet<>()).add(ur.getRoleId());
+                }
+            }
+            Map<Long, Set<String>> perms = new HashMap<>();
+            Map<Long, EffectiveDataScope> scopes = new HashMap<>();
+            for (SysUser user : users) {
+                if (user == null || user.getId() == null) {
+                    continue;
+                }
+                Set<Long> roleIds = rolesByUser.getOrDefault(user.getId(), Set.of());
+                if (includePerms) {
+                    Set<Long> key = Set.copyOf(roleIds);
+                    // 并行批次可能同时遇到同一角色集合：computeIfAbsent 保证一轮内只聚合一次
+                    perms.put(user.getId(), permsByRoleSet.computeIfAbsent(key, permService::aggregatePermsByRoles));
+                }
+                scopes.put(user.getId(), dataScopeManager.calculate(user, roleIds, deptTreeVersion));
+            }
+            authCacheService.cacheUserAuth(perms, scopes);
+            usersRematerialized.add(scopes.size());
+            currentDone.addAndGet(scopes.size());
+        } catch (Exception e) {
+            // 失败的用户缓存保持失效状态，下次请求按需计算
+            batchesFailed.increment();
+            usersFailed.add(userIds.size());
+            log.warn("Auth rematerialize batch failed, size={} err={}", userIds.size(), e.getMessage());
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("rematerialize interrupted", e);
+        } catch (ExecutionException e) {
+            // rematerialize 自行捕获异常，这里只可能是执行器层面的错误
+            log.warn("Auth rematerialize task error: {}", e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
+        }
+    }
+
+    private Supplier<List<Long>> chunks(List<Long> ids) {
+        int size = Math.max(1, props.getBatchSize());
+        int[] from = {0};
+        return () -> {
+            if (from[0] >= ids.size()) {
+                return null;
+            }
+            List<Long> chunk = ids.subList(from[0], Math.min(ids.size(), from[0] + size));
+            from[0] += size;
+            return chunk;
+        };
+    }
+
+    /** 按主键游标分页遍历全部用户 ID，不做 OFFSET 深翻页 */
+    private Supplier<List<Long>> allUserIds() {
+        int size = Math.max(1, props.getBatchSize());
+        long[] cursor = {0L};
+        return () -> {
+            List<Object> rows = userMapper.selectObjs(Wrappers.<SysUser>lambdaQuery()
+                    .select(SysUser::getId)
+                    .gt(SysUser::getId, cursor[0])
+                    .orderByAsc(SysUser::getId)
+                    .last("LIMIT " + size));
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object row : rows) {
+                if (row instanceof Number n) {
+                    ids.add(n.longValue());
+                }
+            }
+            if (!ids.isEmpty()) {
+                cursor[0] = ids.get(ids.size() - 1);
+            }
+            return ids;
+        };
+    }
+
+    /** 开关状态、待处理量、当前一轮进度及累计计数 */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pendingUsers", pendingUsers.size());
+        stats.put("allScopesPending", allPending.get());
+        String kind = currentKind;
+        if (kind != null) {
+            stats.put("currentRun", kind);
+            stats.put("currentDone", currentDone.get());
+            stats.put("currentElapsedMs", System.currentTimeMillis() - currentStartedAt);
+        }
+        stats.put("lastRun", lastRun);
+        stats.put("runs", runs.sum());
+        stats.put("runsCancelled", runsCancelled.sum());
+        stats.put("usersRematerialized", usersRematerialized.sum());
+        stats.put("usersFailed", usersFailed.sum());
+        stats.put("batchesFailed", batchesFailed.sum());
+        stats.put("parallelism", workers.getParallelism());
+        return stats;
+    }
+}
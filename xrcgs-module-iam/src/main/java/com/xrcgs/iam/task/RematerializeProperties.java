@@ -0,0 +1,22 @@
+package com.xrcgs.iam.task;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 角色/部门变更后后台重建用户权限与数据范围的配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "iam.rematerialize")
+public class RematerializeProperties {
+    /** 总开关初始值；运行期经 AuthRematerializer#setEnabled 切换后以 Redis 中的集群值为准 */
+    private boolean enabled = true;
+    /** 并行计算的批次数，默认 CPU 核数的一半（至少 1） */
+    private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    /** 每批用户数：一批共用一次用户/角色查询与一次 pipeline 写缓存 */
+    private int batchSize = 500;
+    /** 开关与 Redis 对账间隔（毫秒），兜底广播丢失 */
+    private long reconcileIntervalMs = 30000;
+}
@@ -0,0 +1,7 @@
+-- 数据范围子树条件：dept_id IN (SELECT d.id FROM sys_dept d JOIN sys_dept r ON d.path LIKE CONCAT(r.path, '%') ...)
+-- MySQL：uk_sys_dept_path 已覆盖 path 前缀匹配；补充 (path, del_flag) 复合索引使子查询只走索引（二级索引自带主键 id）
+ALTER TABLE `sys_dept`
+    ADD INDEX IF NOT EXISTS `idx_sys_dept_path_del_flag` (`path`, `del_flag`);
+
+-- PostgreSQL：非 C 排序规则下普通 B-Tree 无法用于 LIKE 前缀匹配，需要 varchar_pattern_ops
+-- CREATE INDEX IF NOT EXISTS idx_sys_dept_path_prefix ON sys_dept (path varchar_pattern_ops, del_flag);
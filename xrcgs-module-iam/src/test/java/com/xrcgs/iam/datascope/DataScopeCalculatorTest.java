@@ -53,6 +53,8 @@ class DataScopeCalculatorTest {
         assertFalse(scope.isAll());
         assertTrue(scope.isSelf());
         assertTrue(scope.getDeptIds().containsAll(Set.of(1L, 2L, 3L, 4L, 5L)));
+        assertEquals(Set.of(1L, 4L), scope.getSubtreeRoots());
+        assertEquals(Set.of(2L, 3L, 5L), scope.getDirectDeptIds());
     }
 
     @Test
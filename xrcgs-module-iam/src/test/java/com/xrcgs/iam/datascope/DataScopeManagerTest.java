@@ -7,6 +7,7 @@ import com.xrcgs.iam.entity.SysRole;
 import com.xrcgs.iam.entity.SysUser;
 import com.xrcgs.iam.entity.SysUserRole;
 import com.xrcgs.iam.enums.DataScope;
+import com.xrcgs.infrastructure.cache.SingleFlightLoader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -46,7 +47,9 @@ class DataScopeManagerTest {
     void setUp() {
         when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
         manager = new DataScopeManager(authCacheService, new DataScopeCalculator(),
-                userMapper, userRoleMapper, roleMapper, deptMapper, stringRedisTemplate);
+                userMapper, userRoleMapper, new RoleScopeRegistry(roleMapper), new DeptTreeSnapshotHolder(deptMapper),
+                new DeptTreeVersionWatermark(stringRedisTemplate),
+                SingleFlightLoader.localOnly());
     }
 
     @Test
@@ -0,0 +1,118 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.infrastructure.config.StatementScopedDataPermissionInterceptor;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataScopePermissionHandlerTest {
+
+    interface ScopedMapper {
+        @DataScoped(table = "biz_order", creatorColumn = "owner_id")
+        List<Object> selectScoped();
+
+        List<Object> selectPlain();
+    }
+
+    private static final String SCOPED = ScopedMapper.class.getName() + ".selectScoped";
+    private static final String PLAIN = ScopedMapper.class.getName() + ".selectPlain";
+
+    private final StatementScopedDataPermissionInterceptor interceptor =
+            new StatementScopedDataPermissionInterceptor(new DataScopePermissionHandler());
+
+    @AfterEach
+    void tearDown() {
+        DataScopeContext.clear();
+    }
+
+    @Test
+    void shouldInjectScopeIntoAnnotatedStatement() {
+        DataScopeContext.bind(7L, () -> EffectiveDataScope.ofDepartments(List.of(10L, 11L), true));
+
+        String sql = interceptor.parserSingle("SELECT * FROM biz_order o WHERE o.status = 1", SCOPED);
+
+        assertEquals("SELECT * FROM biz_order o WHERE o.status = 1 AND (o.owner_id = 7 OR o.dept_id IN (10, 11))", sql);
+    }
+
+    @Test
+    void shouldLeaveUnannotatedStatementsUntouched() {
+        DataScopeContext.bind(7L, () -> EffectiveDataScope.selfOnly());
+        String original = "SELECT * FROM biz_order WHERE status = 1";
+        assertEquals(original, interceptor.parserSingle(original, PLAIN));
+    }
+
+    @Test
+    void shouldDenyScopedStatementWithoutBinding() {
+        String sql = interceptor.parserSingle("SELECT * FROM biz_order WHERE status = 1", SCOPED);
+
+        assertEquals("SELECT * FROM biz_order WHERE status = 1 AND 1 = 0", sql);
+    }
+
+    @Test
+    void shouldNotParseStatementsWithoutRule() throws Exception {
+        DataScopeContext.bind(7L, () -> EffectiveDataScope.selfOnly());
+        // JSqlParser 无法解析的方言写法：未声明规则的语句不应经过解析
+        String dialect = "SELECT * FROM biz_order WHERE MATCH(title) AGAINST(CONCAT('\"', ?, '\"') IN BOOLEAN MODE)";
+
+        BoundSql plain = boundSql(PLAIN, dialect);
+        interceptor.beforeQuery(null, statement(PLAIN, dialect), null, RowBounds.DEFAULT, null, plain);
+        assertEquals(dialect, plain.getSql());
+
+        String simple = "SELECT * FROM biz_order o WHERE o.status = 1";
+        BoundSql scoped = boundSql(SCOPED, simple);
+        interceptor.beforeQuery(null, statement(SCOPED, simple), null, RowBounds.DEFAULT, null, scoped);
+        assertEquals(simple + " AND (o.owner_id = 7)", scoped.getSql());
+    }
+
+    @Test
+    void shouldNotFilterAllScopeAndDenyEmptyScope() {
+        DataScopeContext.bind(7L, EffectiveDataScope::all);
+        String original = "SELECT * FROM biz_order WHERE status = 1";
+        assertEquals(original, interceptor.parserSingle(original, SCOPED));
+
+        DataScopeContext.bind(null, () -> EffectiveDataScope.ofDepartments(Set.of(), false));
+        assertTrue(interceptor.parserSingle(original, SCOPED).contains("1 = 0"));
+    }
+
+    private static MappedStatement statement(String id, String sql) {
+        Configuration configuration = new Configuration();
+        return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, sql),
+                SqlCommandType.SELECT).build();
+    }
+
+    private static BoundSql boundSql(String id, String sql) {
+        return statement(id, sql).getBoundSql(null);
+    }
+
+    @Test
+    void bindingShouldResolveOnceAndPropagateToTasks() throws Exception {
+        AtomicInteger resolved = new AtomicInteger();
+        DataScopeContext.bind(7L, () -> {
+            resolved.incrementAndGet();
+            return EffectiveDataScope.selfOnly();
+        });
+        Runnable task = new DataScopeTaskDecorator().decorate(() -> {
+            assertEquals(7L, DataScopeContext.currentUserId());
+            assertTrue(DataScopeContext.get().isSelf());
+        });
+
+        assertNotNull(DataScopeContext.get());
+        Thread worker = new Thread(task);
+        worker.start();
+        worker.join();
+        DataScopeContext.get();
+
+        assertEquals(1, resolved.get());
+    }
+}
@@ -0,0 +1,157 @@
+package com.xrcgs.iam.datascope;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 数据范围 SQL 条件压测（手动运行 main，不参与单元测试；需要真实数据库及对应 JDBC 驱动）
+ * 对比：完整展开的 dept_id IN (?, ?, ...) vs dept_id IN (sys_dept_closure 子查询)（DataScopeUtil 当前写法）
+ * vs 子树根 IN 列表 OR sys_dept.path LIKE 连接子查询（旧写法，保留作对照）
+ * 指定 bench.creatorColumn 时再对比带本人创建条件（creator = ? OR ...）的两种写法
+ * 按子树规模挑选若干根部门，输出各写法的平均耗时；bench.explain=true 时同时输出执行计划
+ *
+ * -Dbench.url=jdbc:mysql://127.0.0.1:3306/xrcgs_admin -Dbench.user=root -Dbench.password=...
+ * -Dbench.table=sys_file -Dbench.column=dept_id -Dbench.creatorColumn=created_by -Dbench.rounds=50
+ */
+public class DataScopePredicateBenchmark {
+
+    private static final int[] SCOPE_SIZES = {10, 64, 500, 2_000, 10_000, 20_000};
+
+    /** 旧的 path 前缀连接：LIKE 模式随 r 行变化，无法走 path 前缀索引 */
+    private static final String PATH_JOIN_SQL = "SELECT d.id FROM sys_dept d JOIN sys_dept r ON d.path LIKE CONCAT(r.path, '%')"
+            + " WHERE d.del_flag = 0 AND r.id IN (?)";
+
+    public static void main(String[] args) throws SQLException {
+        String url = System.getProperty("bench.url");
+        if (url == null) {
+            System.out.println("missing -Dbench.url");
+            return;
+        }
+        String table = System.getProperty("bench.table", "sys_file");
+        String column = System.getProperty("bench.column", "dept_id");
+        String creatorColumn = System.getProperty("bench.creatorColumn");
+        int rounds = Integer.getInteger("bench.rounds", 50);
+        boolean explain = Boolean.getBoolean("bench.explain");
+        boolean postgres = url.startsWith("jdbc:postgresql");
+
+        try (Connection conn = DriverManager.getConnection(url,
+                System.getProperty("bench.user"), System.getProperty("bench.password"))) {
+            for (int target : SCOPE_SIZES) {
+                Long root = pickRoot(conn, target);
+                if (root == null) {
+                    System.out.printf("scope~%d: no subtree large enough%n", target);
+                    continue;
+                }
+                List<Long> expanded = expand(conn, root);
+                String inList = column + " IN (" + String.join(",", Collections.nCopies(expanded.size(), "?")) + ")";
+                String closure = column + " IN (" + DataScopeUtil.subtreeSql(List.of(root), List.of()) + ")";
+                String pathJoin = column + " IN (?) OR " + column + " IN (" + PATH_JOIN_SQL + ")";
+                String count = "SELECT COUNT(*) FROM " + table + " WHERE ";
+                List<Long> none = List.of();
+                List<Long> rootTwice = List.of(root, root);
+
+                System.out.printf("== scope root=%d expanded=%d ==%n", root, expanded.size());
+                if (explain) {
+                    System.out.println("-- IN list plan:");
+                    explain(conn, count + inList, expanded, postgres);
+                    System.out.println("-- closure plan:");
+                    explain(conn, count + closure, none, postgres);
+                    System.out.println("-- path join plan:");
+                    explain(conn, count + pathJoin, rootTwice, postgres);
+                }
+                System.out.printf("IN list=%.2fms/op closure=%.2fms/op path join=%.2fms/op%n",
+                        time(conn, count + inList, expanded, rounds),
+                        time(conn, count + closure, none, rounds),
+                        time(conn, count + pathJoin, rootTwice, rounds));
+                if (creatorColumn != null) {
+                    String self = creatorColumn + " = -1 OR ";
+                    System.out.printf("self OR IN list=%.2fms/op self OR closure=%.2fms/op%n",
+                            time(conn, count + "(" + self + inList + ")", expanded, rounds),
+                            time(conn, count + "(" + self + closure + ")", none, rounds));
+                }
+            }
+        }
+    }
+
+    /** 挑选子树规模最接近目标值的部门 */
+    private static Long pickRoot(Connection conn, int target) throws SQLException {
+        String sql = "SELECT c.ancestor_id, COUNT(*) AS cnt FROM sys_dept_closure c"
+                + " JOIN sys_dept d ON d.id = c.descendant_id WHERE d.del_flag = 0 GROUP BY c.ancestor_id";
+        Long best = null;
+        long bestDiff = Long.MAX_VALUE;
+        try (PreparedStatement ps = conn.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                long diff = Math.abs(rs.getLong(2) - target);
+                if (diff < bestDiff) {
+                    bestDiff = diff;
+                    best = rs.getLong(1);
+                }
+            }
+        }
+        return best;
+    }
+
+    private static List<Long> expand(Connection conn, long root) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(DataScopeUtil.subtreeSql(List.of(root), List.of()));
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getLong(1));
+            }
+        }
+        return ids;
+    }
+
+    private static void explain(Connection conn, String sql, List<Long> params, boolean postgres) throws SQLException {
+        String prefix = postgres ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ";
+        try (PreparedStatement ps = conn.prepareStatement(prefix + sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                int cols = rs.getMetaData().getColumnCount();
+                while (rs.next()) {
+                    StringBuilder line = new StringBuilder("   ");
+                    for (int i = 1; i <= cols; i++) {
+                        line.append(rs.getString(i)).append(i < cols ? " | " : "");
+                    }
+                    System.out.println(line);
+                }
+            }
+        }
+    }
+
+    private static double time(Connection conn, String sql, List<Long> params, int rounds) throws SQLException {
+        long sink = 0;
+        long start = 0;
+        // 前 5 轮预热
+        for (int r = -5; r < rounds; r++) {
+            if (r == 0) {
+                start = System.nanoTime();
+            }
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                bind(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        sink += rs.getLong(1);
+                    }
+                }
+            }
+        }
+        double ms = (System.nanoTime() - start) / 1_000_000d / rounds;
+        if (sink < 0) {
+            System.out.println(sink);
+        }
+        return ms;
+    }
+
+    private static void bind(PreparedStatement ps, List<Long> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setLong(i + 1, params.get(i));
+        }
+    }
+}
@@ -9,12 +9,15 @@ import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import com.baomidou.mybatisplus.core.MybatisConfiguration;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DataScopeUtilApplyTest {
@@ -103,6 +106,95 @@ class DataScopeUtilApplyTest {
         assertTrue(wrapper.getParamNameValuePairs().isEmpty());
     }
 
+    @Test
+    void applyLargeSubtreeScopeUsesClosureSubquery() {
+        ensureTableInfo();
+        LambdaQueryWrapper<DummyEntity> wrapper = Wrappers.lambdaQuery(DummyEntity.class);
+        DataScopeUtil.apply(wrapper, largeSubtreeScope(false), 99L, DummyEntity::getCreatedBy, DummyEntity::getDeptId);
+        String sql = wrapper.getSqlSegment();
+        assertTrue(sql.contains("FROM sys_dept_closure c WHERE c.ancestor_id IN (1)"), sql);
+        // 单独部门只取自身闭包行
+        assertTrue(sql.contains("OR (c.ancestor_id IN (500) AND c.depth = 0)"), sql);
+        assertFalse(sql.contains("LIKE"), "subtree predicate must not join on path patterns: " + sql);
+        assertFalse(sql.contains("sys_dept d"), "closure rows of deleted depts are purged, no join needed: " + sql);
+        // 整个部门条件只有一个 IN 子查询，外层没有 OR，也不绑定完整展开
+        assertTrue(sql.startsWith("(dept_id IN (SELECT"), sql);
+        assertTrue(wrapper.getParamNameValuePairs().isEmpty());
+    }
+
+    @Test
+    void applyLargeSubtreeScopeWithSelfKeepsInList() {
+        ensureTableInfo();
+        QueryWrapper<DummyEntity> wrapper = new QueryWrapper<>();
+        DataScopeUtil.apply(wrapper, largeSubtreeScope(true), 7L, "created_by", "dept_id");
+        String sql = wrapper.getSqlSegment();
+        assertTrue(sql.contains("created_by"), sql);
+        // 与本人创建 OR 在一起时子查询会让业务表退化为全表扫描，保留 IN 列表
+        assertFalse(sql.contains("sys_dept_closure"), sql);
+        assertTrue(wrapper.getParamNameValuePairs().values().contains(7L));
+        assertTrue(wrapper.getParamNameValuePairs().values().contains(500L));
+
+        String condition = DataScopeUtil.toSqlCondition(largeSubtreeScope(true), 7L, "t.created_by", "t.dept_id");
+        assertFalse(condition.contains("sys_dept_closure"), condition);
+        assertTrue(condition.startsWith("(t.created_by = 7 OR t.dept_id IN (1,2,"), condition);
+    }
+
+    @Test
+    void applySmallSubtreeScopeKeepsInList() {
+        ensureTableInfo();
+        LambdaQueryWrapper<DummyEntity> wrapper = Wrappers.lambdaQuery(DummyEntity.class);
+        EffectiveDataScope scope = EffectiveDataScope.ofDepartments(Set.of(1L, 2L, 3L), false);
+        scope.setSubtreeRoots(Set.of(1L));
+        DataScopeUtil.apply(wrapper, scope, 99L, DummyEntity::getCreatedBy, DummyEntity::getDeptId);
+        String sql = wrapper.getSqlSegment();
+        assertFalse(sql.contains("sys_dept"), sql);
+        assertEquals(3, wrapper.getParamNameValuePairs().size());
+    }
+
+    @Test
+    void decodedScopeShouldBindIdsWithoutMaterializingSet() {
+        ensureTableInfo();
+        EffectiveDataScope decoded = DataScopeCodec.decode(
+                DataScopeCodec.encode(EffectiveDataScope.ofDepartments(Set.of(30L, 10L, 20L), false)));
+
+        LambdaQueryWrapper<DummyEntity> wrapper = Wrappers.lambdaQuery(DummyEntity.class);
+        DataScopeUtil.apply(wrapper, decoded, 99L, DummyEntity::getCreatedBy, DummyEntity::getDeptId);
+        String condition = DataScopeUtil.toSqlCondition(decoded, 99L, "t.created_by", "t.dept_id");
+
+        assertTrue(wrapper.getSqlSegment().contains("dept_id"));
+        assertEquals(Set.of(10L, 20L, 30L), Set.copyOf(wrapper.getParamNameValuePairs().values()));
+        assertEquals("(t.dept_id IN (10,20,30))", condition);
+        // 解码得到的有序数组直接参与判断与绑定，完整展开的 Set 从未构建
+        assertNull(ReflectionTestUtils.getField(decoded, "deptIds"));
+    }
+
+    @Test
+    void decodedLargeSubtreeScopeShouldNotMaterializeSet() {
+        ensureTableInfo();
+        EffectiveDataScope decoded = DataScopeCodec.decode(DataScopeCodec.encode(largeSubtreeScope(false)));
+
+        QueryWrapper<DummyEntity> wrapper = new QueryWrapper<>();
+        DataScopeUtil.apply(wrapper, decoded, 7L, "created_by", "dept_id");
+
+        assertTrue(wrapper.getSqlSegment().contains("sys_dept_closure"), wrapper.getSqlSegment());
+        assertEquals("(t.dept_id IN (SELECT c.descendant_id FROM sys_dept_closure c WHERE c.ancestor_id IN (1)"
+                        + " OR (c.ancestor_id IN (500) AND c.depth = 0)))",
+                DataScopeUtil.toSqlCondition(decoded, 7L, "t.created_by", "t.dept_id"));
+        assertNull(ReflectionTestUtils.getField(decoded, "deptIds"));
+    }
+
+    private static EffectiveDataScope largeSubtreeScope(boolean self) {
+        Set<Long> expanded = new LinkedHashSet<>();
+        for (long id = 1; id <= DataScopeUtil.SUBTREE_PREDICATE_THRESHOLD + 10; id++) {
+            expanded.add(id);
+        }
+        expanded.add(500L);
+        EffectiveDataScope scope = EffectiveDataScope.ofDepartments(expanded, self);
+        scope.setSubtreeRoots(Set.of(1L));
+        scope.setDirectDeptIds(Set.of(500L));
+        return scope;
+    }
+
     private static void ensureTableInfo() {
         if (TableInfoHelper.getTableInfo(DummyEntity.class) == null) {
             MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
@@ -0,0 +1,58 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.iam.entity.SysDept;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 部门子树展开压测（手动运行 main，不参与单元测试）
+ * 对比：每次重建 children Map + BFS（原实现） vs 共享快照的先序区间扫描
+ */
+public class DeptTreeSnapshotBenchmark {
+
+    private static final int DEPTS = 20_000;
+    private static final int ROUNDS = 2_000;
+
+    public static void main(String[] args) {
+        Random random = new Random(7);
+        List<SysDept> depts = new ArrayList<>(DEPTS);
+        for (long id = 1; id <= DEPTS; id++) {
+            SysDept d = new SysDept();
+            d.setId(id);
+            d.setParentId(id == 1 ? 0L : Math.max(1L, id / 8 - random.nextInt(3)));
+            depts.add(d);
+        }
+        long[] bases = new long[64];
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = 1 + random.nextInt(DEPTS / 10);
+        }
+
+        long sink = 0;
+        long t0 = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            Map<Long, Set<Long>> children = DataScopeUtil.buildChildrenMap(depts);
+            sink += DataScopeUtil.collectWithChildren(bases[r % bases.length], children).size();
+        }
+        long legacy = System.nanoTime() - t0;
+
+        long t1 = System.nanoTime();
+        DeptTreeSnapshot tree = DeptTreeSnapshot.build(1L, depts);
+        long build = System.nanoTime() - t1;
+
+        long t2 = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            Set<Long> ids = new LinkedHashSet<>();
+            tree.collectSubtree(bases[r % bases.length], ids);
+            sink += ids.size();
+        }
+        long snapshot = System.nanoTime() - t2;
+
+        System.out.printf("depts=%d legacy=%.1fus/op snapshot=%.2fus/op (build once %.1fms) sink=%d%n",
+                DEPTS, legacy / 1000d / ROUNDS, snapshot / 1000d / ROUNDS, build / 1_000_000d, sink);
+    }
+}
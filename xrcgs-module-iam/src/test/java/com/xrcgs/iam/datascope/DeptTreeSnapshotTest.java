@@ -0,0 +1,76 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.iam.entity.SysDept;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeptTreeSnapshotTest {
+
+    @Test
+    void subtreeShouldMatchChildrenMapTraversal() {
+        Random random = new Random(42);
+        List<SysDept> depts = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            long parent = id == 1 ? 0L : 1 + random.nextInt((int) id - 1);
+            depts.add(dept(id, parent));
+        }
+        // 父部门已删除的孤立子树
+        depts.add(dept(5001L, 9999L));
+        depts.add(dept(5002L, 5001L));
+
+        DeptTreeSnapshot tree = DeptTreeSnapshot.build(3L, depts);
+        Map<Long, Set<Long>> children = DataScopeUtil.buildChildrenMap(depts);
+
+        assertEquals(3L, tree.version());
+        assertEquals(2002, tree.size());
+        for (long id : new long[]{1L, 2L, 17L, 500L, 1999L, 5001L, 9999L, 424242L}) {
+            Set<Long> expected = DataScopeUtil.collectWithChildren(id, children);
+            Set<Long> actual = new HashSet<>();
+            tree.collectSubtree(id, actual);
+            assertEquals(expected, actual, "dept " + id);
+        }
+    }
+
+    @Test
+    void intervalsShouldAnswerAncestorQueries() {
+        DeptTreeSnapshot tree = DeptTreeSnapshot.build(1L, List.of(
+                dept(1L, 0L), dept(2L, 1L), dept(3L, 2L), dept(4L, 1L)));
+
+        assertTrue(tree.isInSubtree(1L, 3L));
+        assertTrue(tree.isInSubtree(2L, 2L));
+        assertFalse(tree.isInSubtree(2L, 4L));
+        assertFalse(tree.isInSubtree(3L, 1L));
+        assertEquals(4, tree.subtreeSize(1L));
+        assertEquals(tree.start(2L) + 2, tree.end(2L));
+        assertEquals(-1, tree.indexOf(99L));
+    }
+
+    @Test
+    void cyclesAndDuplicatesShouldNotLoop() {
+        DeptTreeSnapshot tree = DeptTreeSnapshot.build(1L, List.of(
+                dept(1L, 2L), dept(2L, 1L), dept(3L, 3L), dept(3L, 1L)));
+
+        assertEquals(3, tree.size());
+        Set<Long> all = new HashSet<>();
+        tree.collectSubtree(1L, all);
+        tree.collectSubtree(2L, all);
+        assertEquals(Set.of(1L, 2L), all);
+        assertEquals(1, tree.subtreeSize(3L));
+    }
+
+    private static SysDept dept(long id, long parentId) {
+        SysDept d = new SysDept();
+        d.setId(id);
+        d.setParentId(parentId);
+        d.setDelFlag(0);
+        return d;
+    }
+}
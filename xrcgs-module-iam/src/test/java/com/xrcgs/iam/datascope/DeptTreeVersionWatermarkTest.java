@@ -0,0 +1,80 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.common.constants.IamCacheKeys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeptTreeVersionWatermarkTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private DeptTreeVersionWatermark watermark;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        watermark = new DeptTreeVersionWatermark(redisTemplate);
+    }
+
+    @Test
+    void shouldReadRedisOnlyOnce() {
+        when(valueOperations.get(IamCacheKeys.DEPT_TREE_VERSION)).thenReturn("5");
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(5L, watermark.current());
+        }
+
+        verify(valueOperations, times(1)).get(IamCacheKeys.DEPT_TREE_VERSION);
+    }
+
+    @Test
+    void messagesShouldOnlyMoveVersionForward() {
+        when(valueOperations.get(IamCacheKeys.DEPT_TREE_VERSION)).thenReturn("5");
+        watermark.current();
+
+        watermark.onMessage(message("8"), null);
+        watermark.onMessage(message("6"), null);
+        watermark.onMessage(message("garbage"), null);
+
+        assertEquals(8L, watermark.current());
+    }
+
+    @Test
+    void reconcileShouldFollowRedis() {
+        when(valueOperations.get(IamCacheKeys.DEPT_TREE_VERSION)).thenReturn("9", "2");
+        assertEquals(9L, watermark.current());
+
+        watermark.reconcile();
+
+        assertEquals(2L, watermark.current());
+    }
+
+    @Test
+    void bumpShouldIncrementAndBroadcast() {
+        when(valueOperations.increment(IamCacheKeys.DEPT_TREE_VERSION)).thenReturn(4L);
+
+        assertEquals(4L, watermark.bump());
+
+        verify(redisTemplate).convertAndSend(IamCacheKeys.DEPT_TREE_VERSION_CHANNEL, "4");
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(IamCacheKeys.DEPT_TREE_VERSION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
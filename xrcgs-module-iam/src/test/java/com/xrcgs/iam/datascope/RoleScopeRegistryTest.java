@@ -0,0 +1,89 @@
+package com.xrcgs.iam.datascope;
+
+import com.xrcgs.iam.entity.SysRole;
+import com.xrcgs.iam.enums.DataScope;
+import com.xrcgs.iam.mapper.SysRoleMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleScopeRegistryTest {
+
+    @Mock
+    private SysRoleMapper roleMapper;
+
+    private RoleScopeRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new RoleScopeRegistry(roleMapper);
+    }
+
+    @Test
+    void shouldLoadMissingRolesOnceAndServeFromCache() {
+        when(roleMapper.selectBatchIds(anyCollection())).thenReturn(List.of(
+                role(1L, DataScope.CUSTOM, "[3,4]", 1), role(2L, DataScope.DEPT, null, 1)));
+
+        List<ScopeDescriptor> first = registry.get(List.of(1L, 2L));
+        List<ScopeDescriptor> second = registry.get(List.of(2L, 1L));
+
+        assertEquals(2, first.size());
+        assertArrayEquals(new long[]{3L, 4L}, first.get(0).customDeptIds());
+        assertEquals(List.of(2L, 1L), second.stream().map(ScopeDescriptor::getId).toList());
+        verify(roleMapper, times(1)).selectBatchIds(anyCollection());
+    }
+
+    @Test
+    void shouldSkipDisabledAndMissingRolesWithoutReloading() {
+        when(roleMapper.selectBatchIds(anyCollection())).thenReturn(List.of(role(5L, DataScope.ALL, null, 0)));
+
+        assertTrue(registry.get(List.of(5L, 6L)).isEmpty());
+        assertTrue(registry.get(List.of(5L, 6L)).isEmpty());
+
+        verify(roleMapper, times(1)).selectBatchIds(Set.of(5L, 6L));
+    }
+
+    @Test
+    void invalidateShouldReloadRole() {
+        when(roleMapper.selectBatchIds(anyCollection()))
+                .thenReturn(List.of(role(1L, DataScope.SELF, null, 1)))
+                .thenReturn(List.of(role(1L, DataScope.ALL, null, 1)));
+
+        assertEquals(DataScope.SELF, registry.get(List.of(1L)).get(0).getKind());
+        registry.invalidate(1L);
+        assertEquals(DataScope.ALL, registry.get(List.of(1L)).get(0).getKind());
+
+        verify(roleMapper, times(2)).selectBatchIds(anyCollection());
+    }
+
+    @Test
+    void descriptorShouldOnlyParseColumnsUsedByItsKind() {
+        SysRole role = role(1L, DataScope.DEPT_AND_CHILD, "[9]", 1);
+        role.setExtraDeptIds("[7,8]");
+
+        ScopeDescriptor descriptor = ScopeDescriptor.ofRole(role);
+
+        assertArrayEquals(new long[]{7L, 8L}, descriptor.extraDeptIds());
+        assertEquals(0, descriptor.customDeptIds().length);
+    }
+
+    private static SysRole role(Long id, DataScope scope, String customJson, int status) {
+        SysRole role = new SysRole();
+        role.setId(id);
+        role.setStatus(status);
+        role.setDelFlag(0);
+        role.setDataScope(scope);
+        role.setDataScopeExt(customJson);
+        return role;
+    }
+}
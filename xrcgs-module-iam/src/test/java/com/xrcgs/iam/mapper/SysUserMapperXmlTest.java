@@ -0,0 +1,97 @@
+package com.xrcgs.iam.mapper;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.xrcgs.iam.model.query.UserPageQuery;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.apache.ibatis.mapping.BoundSql;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SysUserMapperXmlTest {
+
+    private static final String RESOURCE = "mapper/iam/SysUserMapper.xml";
+
+    @Test
+    void listQueriesShouldNeverReadPassword() throws Exception {
+        MybatisConfiguration configuration = load(null);
+
+        String page = sql(configuration, "selectPage", pageParam("alice", null));
+        String suffix = sql(configuration, "selectByNicknameSuffix", Map.of("nickname", "Ni"));
+
+        assertFalse(page.contains("password"));
+        assertFalse(suffix.contains("password"));
+    }
+
+    @Test
+    void postgresqlShouldBindLikePatternForTrigramIndex() throws Exception {
+        MybatisConfiguration configuration = load("postgresql");
+
+        BoundSql bound = bound(configuration, "selectPage", pageParam("alice", null));
+
+        assertTrue(bound.getSql().contains("username LIKE ?"));
+        assertFalse(bound.getSql().contains("MATCH"));
+        assertEquals("%alice%", bound.getAdditionalParameter("usernamePattern"));
+    }
+
+    @Test
+    void mysqlShouldNarrowWithFulltextOnlyForTwoCharsOrMore() throws Exception {
+        MybatisConfiguration configuration = load("mysql");
+
+        String twoChars = sql(configuration, "selectPage", pageParam(null, "张三"));
+        String oneChar = sql(configuration, "selectPage", pageParam(null, "张"));
+
+        assertTrue(twoChars.contains("MATCH(nickname) AGAINST"));
+        assertTrue(twoChars.contains("nickname LIKE ?"));
+        assertFalse(oneChar.contains("MATCH"));
+        assertTrue(oneChar.contains("nickname LIKE ?"));
+    }
+
+    @Test
+    void generatedSqlShouldParseWithJsqlParser() throws Exception {
+        // 数据权限等插件经 JSqlParser 改写 SQL，方言写法必须能被解析
+        for (String databaseId : new String[]{"mysql", "postgresql"}) {
+            MybatisConfiguration configuration = load(databaseId);
+            BoundSql bound = bound(configuration, "selectPage", pageParam("alice", "张三"));
+
+            assertDoesNotThrow(() -> CCJSqlParserUtil.parse(bound.getSql()), databaseId);
+            if ("mysql".equals(databaseId)) {
+                assertTrue(bound.getSql().contains("AGAINST(? IN BOOLEAN MODE)"));
+                assertEquals("\"张三\"", bound.getAdditionalParameter("nicknamePhrase"));
+            }
+        }
+        String suffix = bound(load(null), "selectByNicknameSuffix", Map.of("nickname", "Ni")).getSql();
+        assertDoesNotThrow(() -> CCJSqlParserUtil.parse(suffix));
+    }
+
+    private static MybatisConfiguration load(String databaseId) throws Exception {
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setDatabaseId(databaseId);
+        try (InputStream in = SysUserMapperXmlTest.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            new XMLMapperBuilder(in, configuration, RESOURCE, configuration.getSqlFragments()).parse();
+        }
+        return configuration;
+    }
+
+    private static Map<String, Object> pageParam(String username, String nickname) {
+        UserPageQuery q = new UserPageQuery();
+        q.setUsername(username);
+        q.setNickname(nickname);
+        Map<String, Object> param = new HashMap<>();
+        param.put("q", q);
+        return param;
+    }
+
+    private static BoundSql bound(MybatisConfiguration configuration, String id, Object param) {
+        return configuration.getMappedStatement(SysUserMapper.class.getName() + "." + id).getBoundSql(param);
+    }
+
+    private static String sql(MybatisConfiguration configuration, String id, Object param) {
+        return bound(configuration, id, param).getSql().replaceAll("\\s+", " ");
+    }
+}
@@ -1,24 +1,33 @@
 package com.xrcgs.iam.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xrcgs.common.constants.IamCacheKeys;
+import com.xrcgs.common.core.R;
+import com.xrcgs.iam.datascope.DeptTreeSnapshotHolder;
+import com.xrcgs.iam.datascope.DeptTreeVersionWatermark;
 import com.xrcgs.iam.entity.SysDept;
 import com.xrcgs.iam.entity.SysUser;
 import com.xrcgs.iam.mapper.SysDeptMapper;
 import com.xrcgs.iam.mapper.SysUserMapper;
 import com.xrcgs.iam.model.dto.DeptUpsertDTO;
+import com.xrcgs.iam.model.vo.DeptTreeJson;
 import com.xrcgs.iam.model.vo.DeptTreeVO;
 import com.xrcgs.iam.model.vo.DeptVO;
+import com.xrcgs.iam.task.AuthRematerializer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -45,14 +54,24 @@ class DeptServiceImplTest {
     @Mock
     private ValueOperations<String, String> valueOperations;
 
+    @Mock
+    private AuthRematerializer rematerializer;
+
+    @Mock
+    private DeptTreeSnapshotHolder deptTreeHolder;
+
+    private DeptTreeVersionWatermark watermark;
     private DeptServiceImpl deptService;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
 
     @BeforeEach
     void setUp() {
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
         when(valueOperations.increment(anyString())).thenReturn(1L);
         when(redisTemplate.delete(ArgumentMatchers.<Collection<String>>any())).thenReturn(1L);
-        deptService = new DeptServiceImpl(deptMapper, userMapper, redisTemplate);
+        watermark = new DeptTreeVersionWatermark(redisTemplate);
+        deptService = new DeptServiceImpl(deptMapper, userMapper, redisTemplate,
+                watermark, rematerializer, objectMapper, deptTreeHolder);
     }
 
     @Test
@@ -83,8 +102,10 @@ class DeptServiceImplTest {
         assertEquals("/1/10/", updated.getPath());
         assertEquals("研发中心", updated.getName());
         assertEquals(1L, updated.getParentId());
+        verify(deptMapper).insertClosureForNew(10L, 1L);
 
         verify(valueOperations).increment(IamCacheKeys.DEPT_TREE_VERSION);
+        verify(rematerializer).submitAllScopes();
         verify(redisTemplate).delete(ArgumentMatchers.<Collection<String>>argThat(keys -> keys.contains(IamCacheKeys.DEPT_SCOPE + "10")));
     }
 
@@ -109,11 +130,16 @@ class DeptServiceImplTest {
         when(deptMapper.selectById(2L)).thenReturn(current);
         when(deptMapper.selectById(3L)).thenReturn(newParent);
         when(deptMapper.selectCount(any())).thenReturn(0L);
-        when(deptMapper.selectIdsByPathPrefix("/1/2/")).thenReturn(Arrays.asList(2L, 5L));
+        when(deptMapper.selectDescendantIds(2L)).thenReturn(Arrays.asList(2L, 5L));
+        when(deptMapper.selectAncestorIds(2L)).thenReturn(Collections.singletonList(1L));
 
         deptService.update(2L, dto);
 
-        verify(deptMapper).updatePathPrefix("/1/2/", "/1/3/2/");
+        InOrder closure = inOrder(deptMapper);
+        closure.verify(deptMapper).updateSubtreePath(2L, "/1/2/", "/1/3/2/");
+        // 子树已改写为新 path，按新前缀定位并断开与原祖先的链接
+        closure.verify(deptMapper).deleteClosureAboveSubtree(Collections.singletonList(1L), "/1/3/2/");
+        closure.verify(deptMapper).insertClosureAboveSubtree(2L, 3L);
 
         ArgumentCaptor<SysDept> updateCaptor = ArgumentCaptor.forClass(SysDept.class);
         verify(deptMapper).updateById(updateCaptor.capture());
@@ -128,6 +154,35 @@ class DeptServiceImplTest {
                         keys.contains(IamCacheKeys.DEPT_SCOPE + "5")));
     }
 
+    @Test
+    void deleteShouldBumpVersionOnlyAfterCommit() {
+        SysDept current = new SysDept();
+        current.setId(4L);
+        current.setPath("/1/4/");
+        when(deptMapper.selectById(4L)).thenReturn(current);
+        when(deptMapper.countChildren(4L)).thenReturn(0L);
+        when(deptMapper.selectDescendantIds(4L)).thenReturn(Collections.singletonList(4L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            deptService.delete(4L);
+
+            verify(valueOperations, never()).increment(IamCacheKeys.DEPT_TREE_VERSION);
+            verify(deptTreeHolder, never()).invalidate();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        InOrder order = inOrder(valueOperations, deptTreeHolder);
+        order.verify(valueOperations).increment(IamCacheKeys.DEPT_TREE_VERSION);
+        order.verify(deptTreeHolder).invalidate();
+        verify(redisTemplate).delete(ArgumentMatchers.<Collection<String>>argThat(keys -> keys.contains(IamCacheKeys.DEPT_SCOPE + "4")));
+        // 闭包表只保留在用部门，数据范围子查询依赖这一点
+        verify(deptMapper).deleteClosureOfDept(4L);
+    }
+
     @Test
     void updateShouldRejectCycle() {
         SysDept current = new SysDept();
@@ -169,7 +224,7 @@ class DeptServiceImplTest {
 
         when(deptMapper.selectById(4L)).thenReturn(current);
         when(deptMapper.countChildren(4L)).thenReturn(0L);
-        when(deptMapper.selectIdsByPathPrefix("/1/4/")).thenReturn(Collections.singletonList(4L));
+        when(deptMapper.selectDescendantIds(4L)).thenReturn(Collections.singletonList(4L));
 
         deptService.delete(4L);
 
@@ -219,6 +274,29 @@ class DeptServiceImplTest {
         assertEquals("李四", childNode.getLeaderUser().getName());
     }
 
+    @Test
+    void cachedTreeShouldReuseSerializedTreeUntilVersionBumps() throws Exception {
+        SysDept root = new SysDept();
+        root.setId(1L);
+        root.setParentId(0L);
+        root.setName("根");
+        when(deptMapper.selectList(any())).thenReturn(List.of(root));
+
+        DeptTreeJson first = deptService.cachedTree(null);
+        DeptTreeJson second = deptService.cachedTree(null);
+        assertSame(first, second);
+        verify(deptMapper, times(1)).selectList(any());
+        assertTrue(objectMapper.writeValueAsString(R.ok(first)).contains("\"data\":[{\"id\":1,"));
+
+        watermark.bump();
+        DeptTreeJson third = deptService.cachedTree(null);
+        assertNotEquals(first.getEtag(), third.getEtag());
+        verify(deptMapper, times(2)).selectList(any());
+
+        deptService.cachedTree(1);
+        verify(deptMapper, times(3)).selectList(any());
+    }
+
     @Test
     void detailShouldReturnDeptVo() {
         SysDept dept = new SysDept();
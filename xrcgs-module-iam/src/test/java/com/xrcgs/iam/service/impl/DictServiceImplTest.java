@@ -0,0 +1,177 @@
+package com.xrcgs.iam.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.iam.datascope.DataScopeManager;
+import com.xrcgs.iam.datascope.EffectiveDataScope;
+import com.xrcgs.iam.entity.SysDept;
+import com.xrcgs.iam.entity.SysDictItem;
+import com.xrcgs.iam.entity.SysDictType;
+import com.xrcgs.iam.mapper.SysDeptMapper;
+import com.xrcgs.iam.mapper.SysDictItemMapper;
+import com.xrcgs.iam.mapper.SysDictTypeMapper;
+import com.xrcgs.iam.mapper.SysUserMapper;
+import com.xrcgs.iam.model.vo.DictVO;
+import com.xrcgs.infrastructure.audit.UserIdProvider;
+import com.xrcgs.infrastructure.cache.SingleFlightLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DictServiceImplTest {
+
+    @Mock
+    private SysDictTypeMapper typeMapper;
+    @Mock
+    private SysDictItemMapper itemMapper;
+    @Mock
+    private SysDeptMapper deptMapper;
+    @Mock
+    private AuthCacheService cache;
+    @Mock
+    private DataScopeManager dataScopeManager;
+    @Mock
+    private UserIdProvider userIdProvider;
+    @Mock
+    private SysUserMapper userMapper;
+    @Mock
+    private SingleFlightLoader singleFlightLoader;
+
+    @InjectMocks
+    private DictServiceImpl dictService;
+
+    private final Map<String, Long> versions = Map.of("gender", 3L, "level", 0L, "missing", 0L);
+
+    private void givenDeptScopedUser() {
+        when(userIdProvider.getCurrentUserId()).thenReturn(1L);
+        when(dataScopeManager.getEffectiveDataScope(1L))
+                .thenReturn(EffectiveDataScope.ofDepartments(List.of(5L), false));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void scopedUserShouldLoadAllTypesInOneQueryAndCacheByFingerprint() {
+        givenDeptScopedUser();
+        when(cache.multiGetDictVersions(List.of("gender", "level", "missing"))).thenReturn(versions);
+        when(cache.multiGetScopedDicts(eq(versions), anyString())).thenReturn(Map.of());
+        when(typeMapper.selectList(any())).thenReturn(List.of(type("gender"), type("level")));
+        when(itemMapper.selectList(any())).thenReturn(List.of(
+                item(1L, "gender", "M", 5L), item(2L, "level", "L1", null), item(3L, "gender", "F", 5L)));
+        SysDept dept = new SysDept();
+        dept.setId(5L);
+        dept.setName("一中队");
+        when(deptMapper.selectBatchIds(List.of(5L))).thenReturn(List.of(dept));
+
+        Map<String, DictVO> result = dictService.getByTypes(List.of(" gender", "level", "gender", "missing"), null);
+
+        assertEquals(List.of("gender", "level", "missing"), List.copyOf(result.keySet()));
+        assertEquals(List.of("M", "F"), result.get("gender").getItems().stream().map(DictVO.Item::getValue).toList());
+        assertEquals("一中队", result.get("gender").getItems().get(0).getDept().getName());
+        assertNull(result.get("missing"));
+        verify(typeMapper, times(1)).selectList(any());
+        verify(itemMapper, times(1)).selectList(any());
+        verify(deptMapper, times(1)).selectBatchIds(any());
+
+        ArgumentCaptor<Map<String, String>> cached = ArgumentCaptor.forClass(Map.class);
+        verify(cache).cacheScopedDicts(eq(versions), anyString(), cached.capture());
+        assertEquals(Set.of("gender", "level", "missing"), cached.getValue().keySet());
+        assertEquals(AuthCacheService.DICT_ABSENT, cached.getValue().get("missing"));
+        verify(cache, never()).multiGetDicts(any());
+    }
+
+    @Test
+    void scopedAbsentMarkerShouldSkipDatabase() {
+        givenDeptScopedUser();
+        Map<String, Long> missingVersions = Map.of("missing", 0L);
+        when(cache.multiGetDictVersions(List.of("missing"))).thenReturn(missingVersions);
+        when(cache.multiGetScopedDicts(eq(missingVersions), anyString()))
+                .thenReturn(Map.of("missing", AuthCacheService.DICT_ABSENT));
+
+        Map<String, DictVO> result = dictService.getByTypes(List.of("missing"), null);
+
+        assertTrue(result.containsKey("missing"));
+        assertNull(result.get("missing"));
+        verifyNoInteractions(typeMapper, itemMapper, deptMapper);
+        verify(cache, never()).cacheScopedDicts(any(), any(), any());
+    }
+
+    @Test
+    void globalLookupShouldCacheAbsentTypeAndHonourMarker() {
+        when(userIdProvider.getCurrentUserId()).thenReturn(1L);
+        when(singleFlightLoader.load(anyString(), any(), any()))
+                .thenAnswer(inv -> inv.<Supplier<?>>getArgument(2).get());
+
+        assertNull(dictService.getByType("missing"));
+        verify(cache).cacheDict("missing", AuthCacheService.DICT_ABSENT);
+
+        when(cache.getCachedDict("missing")).thenReturn(AuthCacheService.DICT_ABSENT);
+        assertNull(dictService.getByType("missing"));
+        verify(typeMapper, times(1)).selectOne(any());
+        verify(singleFlightLoader, times(1)).load(anyString(), any(), any());
+    }
+
+    @Test
+    void scopedCacheHitShouldSkipDatabase() throws Exception {
+        givenDeptScopedUser();
+        ObjectMapper om = new ObjectMapper();
+        DictVO gender = new DictVO();
+        gender.setType("gender");
+        gender.setItems(List.of());
+        Map<String, Long> hitVersions = Map.of("gender", 3L);
+        when(cache.multiGetDictVersions(List.of("gender"))).thenReturn(hitVersions);
+        when(cache.multiGetScopedDicts(eq(hitVersions), anyString()))
+                .thenReturn(Map.of("gender", om.writeValueAsString(gender)));
+
+        Map<String, DictVO> result = dictService.getByTypes(List.of("gender"), null);
+
+        assertEquals("gender", result.get("gender").getType());
+        verifyNoInteractions(typeMapper, itemMapper, deptMapper);
+        verify(cache, never()).cacheScopedDicts(any(), any(), any());
+    }
+
+    @Test
+    void itemWriteShouldBumpVersionOfOldAndNewType() {
+        SysDictItem origin = item(9L, "old", "x", null);
+        when(itemMapper.selectById(9L)).thenReturn(origin);
+        SysDictItem changed = item(9L, "new", "x", null);
+
+        dictService.updateItem(changed);
+
+        verify(cache).bumpDictVersions(List.of("old"));
+        verify(cache).bumpDictVersions(List.of("new"));
+    }
+
+    private static SysDictType type(String code) {
+        SysDictType t = new SysDictType();
+        t.setCode(code);
+        t.setStatus(1);
+        return t;
+    }
+
+    private static SysDictItem item(Long id, String typeCode, String value, Long deptId) {
+        SysDictItem i = new SysDictItem();
+        i.setId(id);
+        i.setTypeCode(typeCode);
+        i.setValue(value);
+        i.setLabel(value);
+        i.setStatus(1);
+        i.setSort(id.intValue());
+        i.setDeptId(deptId);
+        return i;
+    }
+}
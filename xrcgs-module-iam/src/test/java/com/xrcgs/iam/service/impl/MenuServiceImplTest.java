@@ -0,0 +1,104 @@
+package com.xrcgs.iam.service.impl;
+
+import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.iam.entity.SysMenu;
+import com.xrcgs.iam.entity.SysRoleMenu;
+import com.xrcgs.iam.mapper.SysMenuMapper;
+import com.xrcgs.iam.mapper.SysRoleMapper;
+import com.xrcgs.iam.mapper.SysRoleMenuMapper;
+import com.xrcgs.iam.service.RoleService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MenuServiceImplTest {
+
+    @Mock
+    private SysMenuMapper menuMapper;
+    @Mock
+    private SysRoleMapper roleMapper;
+    @Mock
+    private SysRoleMenuMapper roleMenuMapper;
+    @Mock
+    private AuthCacheService cacheService;
+    @Mock
+    private RoleService roleService;
+
+    private MenuServiceImpl menuService;
+
+    @BeforeEach
+    void setUp() {
+        menuService = new MenuServiceImpl(menuMapper, roleMapper, roleMenuMapper, cacheService, roleService);
+    }
+
+    @Test
+    void changingPermsShouldEvictLinkedRoles() {
+        when(menuMapper.selectById(10L)).thenReturn(menu(10L, "sys:user:list", 1));
+        when(roleMenuMapper.selectList(any())).thenReturn(List.of(link(3L, 10L), link(4L, 10L)));
+
+        menuService.update(menu(10L, "sys:user:query", null));
+
+        verify(roleService).onRolePermsChanged(List.of(3L, 4L));
+    }
+
+    @Test
+    void disablingMenuWithPermsShouldEvictLinkedRoles() {
+        when(menuMapper.selectById(10L)).thenReturn(menu(10L, "sys:user:list", 1));
+        when(roleMenuMapper.selectList(any())).thenReturn(List.of(link(3L, 10L)));
+
+        menuService.update(menu(10L, null, 0));
+
+        verify(roleService).onRolePermsChanged(List.of(3L));
+    }
+
+    @Test
+    void editingTitleShouldNotTouchRolePerms() {
+        when(menuMapper.selectById(10L)).thenReturn(menu(10L, "sys:user:list", 1));
+        SysMenu update = menu(10L, null, null);
+        update.setTitle("用户管理");
+
+        menuService.update(update);
+
+        verify(roleService, never()).onRolePermsChanged(anyList());
+        verify(roleMenuMapper, never()).selectList(any());
+    }
+
+    @Test
+    void removeShouldCollectRolesBeforeDroppingLinks() {
+        when(menuMapper.selectCount(any())).thenReturn(0L);
+        when(menuMapper.selectById(10L)).thenReturn(menu(10L, "sys:user:list", 1));
+        when(roleMenuMapper.selectList(any())).thenReturn(List.of(link(3L, 10L)));
+
+        menuService.remove(10L);
+
+        InOrder order = inOrder(roleMenuMapper, roleService);
+        order.verify(roleMenuMapper).selectList(any());
+        order.verify(roleMenuMapper).delete(any());
+        order.verify(roleService).onRolePermsChanged(List.of(3L));
+    }
+
+    private static SysMenu menu(Long id, String perms, Integer status) {
+        SysMenu menu = new SysMenu();
+        menu.setId(id);
+        menu.setPerms(perms);
+        menu.setStatus(status);
+        return menu;
+    }
+
+    private static SysRoleMenu link(Long roleId, Long menuId) {
+        SysRoleMenu rm = new SysRoleMenu();
+        rm.setRoleId(roleId);
+        rm.setMenuId(menuId);
+        return rm;
+    }
+}
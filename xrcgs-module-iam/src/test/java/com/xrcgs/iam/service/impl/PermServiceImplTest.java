@@ -0,0 +1,76 @@
+package com.xrcgs.iam.service.impl;
+
+import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.iam.datascope.DataScopeManager;
+import com.xrcgs.iam.mapper.SysRoleMapper;
+import com.xrcgs.iam.mapper.SysUserRoleMapper;
+import com.xrcgs.iam.model.vo.RolePermRow;
+import com.xrcgs.infrastructure.cache.SingleFlightLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PermServiceImplTest {
+
+    @Mock
+    private SysUserRoleMapper userRoleMapper;
+    @Mock
+    private SysRoleMapper roleMapper;
+    @Mock
+    private AuthCacheService cache;
+    @Mock
+    private DataScopeManager dataScopeManager;
+    @Mock
+    private SingleFlightLoader singleFlightLoader;
+
+    @InjectMocks
+    private PermServiceImpl permService;
+
+    @Test
+    void shouldUnionCachedRoleSetsWithoutQuerying() {
+        when(cache.multiGetRolePerms(Set.of(1L, 2L))).thenReturn(Map.of(
+                1L, Set.of("iam:user:list"),
+                2L, Set.of("iam:user:list", "iam:role:list")));
+
+        Set<String> perms = permService.aggregatePermsByRoles(Set.of(1L, 2L));
+
+        assertEquals(Set.of("iam:user:list", "iam:role:list"), perms);
+        verifyNoInteractions(roleMapper);
+        verify(cache, never()).cacheRolePerms(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldLoadMissingRolesInOneQueryAndCacheEmptySets() {
+        when(cache.multiGetRolePerms(Set.of(1L, 2L, 3L))).thenReturn(Map.of(1L, Set.of("a")));
+        when(roleMapper.selectPermsByRoleIds(any())).thenReturn(List.of(row(2L, " b "), row(2L, "")));
+
+        Set<String> perms = permService.aggregatePermsByRoles(Set.of(1L, 2L, 3L));
+
+        assertEquals(Set.of("a", "b"), perms);
+        ArgumentCaptor<Collection<Long>> queried = ArgumentCaptor.forClass(Collection.class);
+        verify(roleMapper, times(1)).selectPermsByRoleIds(queried.capture());
+        assertEquals(Set.of(2L, 3L), Set.copyOf(queried.getValue()));
+        verify(cache).cacheRolePerms(Map.of(2L, Set.of("b"), 3L, Set.of()));
+    }
+
+    private static RolePermRow row(Long roleId, String perm) {
+        RolePermRow row = new RolePermRow();
+        row.setRoleId(roleId);
+        row.setPerm(perm);
+        return row;
+    }
+}
@@ -0,0 +1,95 @@
+package com.xrcgs.iam.service.impl;
+
+import com.xrcgs.iam.entity.SysPermission;
+import com.xrcgs.iam.entity.SysRolePerm;
+import com.xrcgs.iam.mapper.SysPermissionMapper;
+import com.xrcgs.iam.mapper.SysRolePermMapper;
+import com.xrcgs.iam.model.dto.PermissionUpsertDTO;
+import com.xrcgs.iam.service.RoleService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionServiceImplTest {
+
+    @Mock
+    private SysPermissionMapper permissionMapper;
+    @Mock
+    private SysRolePermMapper rolePermMapper;
+    @Mock
+    private RoleService roleService;
+
+    private PermissionServiceImpl permissionService;
+
+    @BeforeEach
+    void setUp() {
+        permissionService = new PermissionServiceImpl(permissionMapper, rolePermMapper, roleService);
+    }
+
+    @Test
+    void renamingCodeShouldEvictLinkedRoles() {
+        when(permissionMapper.selectById(7L)).thenReturn(permission(7L, 3L, "file:read"));
+        when(permissionMapper.selectCount(any())).thenReturn(0L);
+        when(rolePermMapper.selectList(any())).thenReturn(List.of(link(2L, 7L), link(5L, 7L)));
+
+        permissionService.update(7L, dto("file:view", "查看文件"));
+
+        verify(roleService).onRolePermsChanged(List.of(2L, 5L));
+    }
+
+    @Test
+    void renamingOnlyTheLabelShouldNotTouchRolePerms() {
+        when(permissionMapper.selectById(7L)).thenReturn(permission(7L, 3L, "file:read"));
+        when(permissionMapper.selectCount(any())).thenReturn(0L);
+
+        permissionService.update(7L, dto("file:read", "读取文件"));
+
+        verify(roleService, never()).onRolePermsChanged(anyList());
+        verify(rolePermMapper, never()).selectList(any());
+    }
+
+    @Test
+    void removeShouldCollectRolesBeforeDroppingLinks() {
+        when(permissionMapper.selectBatchIds(List.of(7L))).thenReturn(List.of(permission(7L, 3L, "file:read")));
+        when(rolePermMapper.selectList(any())).thenReturn(List.of(link(2L, 7L)));
+
+        permissionService.remove(List.of(7L));
+
+        InOrder order = inOrder(rolePermMapper, roleService);
+        order.verify(rolePermMapper).selectList(any());
+        order.verify(rolePermMapper).delete(any());
+        order.verify(roleService).onRolePermsChanged(List.of(2L));
+    }
+
+    private static PermissionUpsertDTO dto(String code, String name) {
+        PermissionUpsertDTO dto = new PermissionUpsertDTO();
+        dto.setCode(code);
+        dto.setName(name);
+        return dto;
+    }
+
+    private static SysPermission permission(Long id, Long parentId, String code) {
+        SysPermission permission = new SysPermission();
+        permission.setId(id);
+        permission.setParentId(parentId);
+        permission.setCode(code);
+        return permission;
+    }
+
+    private static SysRolePerm link(Long roleId, Long permId) {
+        SysRolePerm rp = new SysRolePerm();
+        rp.setRoleId(roleId);
+        rp.setPermId(permId);
+        return rp;
+    }
+}
@@ -0,0 +1,274 @@
+package com.xrcgs.iam.service.impl;
+
+import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.common.cache.TokenEpochService;
+import com.xrcgs.iam.datascope.RoleScopeRegistry;
+import com.xrcgs.iam.entity.SysRole;
+import com.xrcgs.iam.entity.SysRoleMenu;
+import com.xrcgs.iam.entity.SysRolePerm;
+import com.xrcgs.iam.entity.SysUserRole;
+import com.xrcgs.iam.mapper.SysDeptMapper;
+import com.xrcgs.iam.mapper.SysRoleMapper;
+import com.xrcgs.iam.mapper.SysRoleMenuMapper;
+import com.xrcgs.iam.mapper.SysRolePermMapper;
+import com.xrcgs.iam.mapper.SysUserRoleMapper;
+import com.xrcgs.iam.model.dto.RoleGrantMenuDTO;
+import com.xrcgs.iam.model.dto.RoleGrantPermDTO;
+import com.xrcgs.iam.model.dto.RoleUpsertDTO;
+import com.xrcgs.iam.model.vo.RolePermRow;
+import com.xrcgs.iam.task.AuthRematerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoleServiceImplTest {
+
+    @Mock
+    private SysRoleMapper roleMapper;
+    @Mock
+    private SysRoleMenuMapper roleMenuMapper;
+    @Mock
+    private SysRolePermMapper rolePermMapper;
+    @Mock
+    private SysUserRoleMapper userRoleMapper;
+    @Mock
+    private SysDeptMapper deptMapper;
+    @Mock
+    private AuthCacheService authCacheService;
+    @Mock
+    private TokenEpochService tokenEpochService;
+    @Mock
+    private RoleScopeRegistry roleScopeRegistry;
+    @Mock
+    private AuthRematerializer rematerializer;
+
+    private RoleServiceImpl roleService;
+
+    @BeforeEach
+    void setUp() {
+        roleService = new RoleServiceImpl(roleMapper, roleMenuMapper, rolePermMapper, userRoleMapper,
+                deptMapper, authCacheService, tokenEpochService, roleScopeRegistry, rematerializer);
+    }
+
+    @Test
+    void grantPermsShouldInvalidateAllRoleUsersInOneBatch() {
+        List<SysUserRole> relations = new ArrayList<>();
+        LongStream.rangeClosed(1, 5000).forEach(uid -> {
+            SysUserRole ur = new SysUserRole();
+            ur.setRoleId(7L);
+            ur.setUserId(uid);
+            relations.add(ur);
+        });
+        when(userRoleMapper.selectList(any())).thenReturn(relations);
+
+        when(roleMapper.selectPermsByRoleIds(List.of(7L)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(permRow(7L, "iam:user:list")));
+
+        RoleGrantPermDTO dto = new RoleGrantPermDTO();
+        dto.setRoleId(7L);
+        dto.setPermIds(List.of(3L));
+        roleService.grantPerms(dto);
+
+        verify(authCacheService, times(1)).evictUserAuth(argThat(ids -> ids.size() == 5000));
+        verify(authCacheService, never()).evictUserPerms(anyLong());
+        verify(authCacheService, never()).evictUserDataScope(anyLong());
+        verify(tokenEpochService, times(1)).revokeAll(argThat(ids -> ids.size() == 5000));
+        verify(rematerializer, times(1)).submitUsers(argThat(ids -> ids.size() == 5000));
+    }
+
+    @Test
+    void removeShouldInvalidateRoleScope() {
+        when(userRoleMapper.selectList(any())).thenReturn(List.of());
+
+        roleService.remove(9L);
+
+        verify(roleMapper).deleteById(9L);
+        verify(roleScopeRegistry).invalidate(9L);
+        verify(authCacheService).evictUserAuth(List.of());
+    }
+
+    @Test
+    void removeShouldRevokeRoleUsersOnlyAfterCommit() {
+        when(userRoleMapper.selectList(any())).thenReturn(List.of(userRole(9L, 1L), userRole(9L, 2L)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            roleService.remove(9L);
+            verify(tokenEpochService, never()).revokeAll(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(tokenEpochService).revokeAll(List.of(1L, 2L));
+    }
+
+    @Test
+    void rolePermsChangedElsewhereShouldEvictRolesAndUsers() {
+        when(userRoleMapper.selectList(any())).thenReturn(
+                List.of(userRole(3L, 1L), userRole(4L, 1L), userRole(4L, 2L)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            roleService.onRolePermsChanged(List.of(3L, 4L, 3L));
+
+            verify(authCacheService).evictRolePerms(List.of(3L, 4L));
+            verify(tokenEpochService, never()).revokeAll(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // 立即删除一次，提交后再删除一次
+        verify(authCacheService, times(2)).evictRolePerms(List.of(3L, 4L));
+        verify(authCacheService).evictUserAuth(List.of(1L, 2L));
+        verify(rematerializer).submitUsers(List.of(1L, 2L));
+        verify(tokenEpochService).revokeAll(List.of(1L, 2L));
+    }
+
+    @Test
+    void rolePermsChangedWithoutRolesShouldDoNothing() {
+        roleService.onRolePermsChanged(List.of());
+
+        verifyNoInteractions(authCacheService, userRoleMapper, tokenEpochService, rematerializer);
+    }
+
+    @Test
+    void disablingRoleShouldRevokeRoleUsers() {
+        SysRole origin = new SysRole();
+        origin.setId(6L);
+        origin.setCode("OPS");
+        origin.setStatus(1);
+        origin.setSortNo(3);
+        when(roleMapper.selectCount(any())).thenReturn(0L);
+        when(roleMapper.selectById(6L)).thenReturn(origin);
+        when(userRoleMapper.selectList(any())).thenReturn(List.of(userRole(6L, 4L)));
+
+        RoleUpsertDTO dto = new RoleUpsertDTO();
+        dto.setId(6L);
+        dto.setCode("OPS");
+        dto.setName("运维");
+        dto.setStatus(0);
+        roleService.upsert(dto);
+
+        verify(tokenEpochService).revokeAll(List.of(4L));
+    }
+
+    @Test
+    void renamingRoleShouldNotRevokeTokens() {
+        SysRole origin = new SysRole();
+        origin.setId(6L);
+        origin.setCode("OPS");
+        origin.setStatus(1);
+        origin.setSortNo(3);
+        when(roleMapper.selectCount(any())).thenReturn(0L);
+        when(roleMapper.selectById(6L)).thenReturn(origin);
+        when(userRoleMapper.selectList(any())).thenReturn(List.of(userRole(6L, 4L)));
+
+        RoleUpsertDTO dto = new RoleUpsertDTO();
+        dto.setId(6L);
+        dto.setCode("OPS");
+        dto.setName("运维组");
+        roleService.upsert(dto);
+
+        verifyNoInteractions(tokenEpochService);
+    }
+
+    @Test
+    void grantMenusShouldWriteOnlyTheDeltaInBatches() {
+        when(roleMenuMapper.selectList(any())).thenReturn(List.of(menu(5L, 1L), menu(5L, 2L)));
+        when(roleMapper.selectPermsByRoleIds(List.of(5L)))
+                .thenReturn(List.of(permRow(5L, "a")))
+                .thenReturn(List.of(permRow(5L, "b")));
+        when(userRoleMapper.selectList(any())).thenReturn(List.of());
+        List<Long> menuIds = new ArrayList<>(List.of(2L));
+        LongStream.rangeClosed(100, 899).forEach(menuIds::add);
+
+        RoleGrantMenuDTO dto = new RoleGrantMenuDTO();
+        dto.setRoleId(5L);
+        dto.setMenuIds(menuIds);
+        roleService.grantMenus(dto);
+
+        verify(roleMenuMapper).deleteByRoleAndMenuIds(5L, List.of(1L));
+        verify(roleMenuMapper, times(2)).insertBatch(eq(5L), anyCollection());
+        verify(roleMenuMapper).insertBatch(eq(5L), argThat(ids -> ids.size() == 300));
+        verify(roleMenuMapper, never()).insert(any(SysRoleMenu.class));
+        verify(roleMenuMapper, never()).delete(any());
+        verify(authCacheService).evictMenuTreeByRole(5L);
+        verify(authCacheService).evictRolePerms(List.of(5L));
+        verify(rematerializer).submitUsers(List.of());
+    }
+
+    @Test
+    void unchangedGrantShouldSkipWritesAndInvalidation() {
+        when(rolePermMapper.selectList(any())).thenReturn(List.of(perm(7L, 3L), perm(7L, 4L)));
+
+        RoleGrantPermDTO dto = new RoleGrantPermDTO();
+        dto.setRoleId(7L);
+        dto.setPermIds(List.of(4L, 3L, 3L));
+        roleService.grantPerms(dto);
+
+        verify(rolePermMapper, never()).insertBatch(any());
+        verify(rolePermMapper, never()).deleteByRoleAndPermIds(any(), any());
+        verifyNoInteractions(authCacheService, tokenEpochService, rematerializer);
+    }
+
+    @Test
+    void grantMenusWithoutPermChangeShouldOnlyEvictMenuTree() {
+        when(roleMenuMapper.selectList(any())).thenReturn(List.of());
+        when(roleMapper.selectPermsByRoleIds(List.of(5L))).thenReturn(List.of(permRow(5L, "a")));
+
+        RoleGrantMenuDTO dto = new RoleGrantMenuDTO();
+        dto.setRoleId(5L);
+        dto.setMenuIds(List.of(10L));
+        roleService.grantMenus(dto);
+
+        verify(roleMenuMapper).insertBatch(5L, List.of(10L));
+        verify(authCacheService).evictMenuTreeByRole(5L);
+        verify(authCacheService, never()).evictUserAuth(any());
+        verifyNoInteractions(tokenEpochService, rematerializer);
+    }
+
+    private static SysUserRole userRole(Long roleId, Long userId) {
+        SysUserRole ur = new SysUserRole();
+        ur.setRoleId(roleId);
+        ur.setUserId(userId);
+        return ur;
+    }
+
+    private static SysRoleMenu menu(Long roleId, Long menuId) {
+        SysRoleMenu rm = new SysRoleMenu();
+        rm.setRoleId(roleId);
+        rm.setMenuId(menuId);
+        return rm;
+    }
+
+    private static SysRolePerm perm(Long roleId, Long permId) {
+        SysRolePerm rp = new SysRolePerm();
+        rp.setRoleId(roleId);
+        rp.setPermId(permId);
+        return rp;
+    }
+
+    private static RolePermRow permRow(Long roleId, String perm) {
+        RolePermRow row = new RolePermRow();
+        row.setRoleId(roleId);
+        row.setPerm(perm);
+        return row;
+    }
+}
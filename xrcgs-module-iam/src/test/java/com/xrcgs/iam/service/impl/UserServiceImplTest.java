@@ -3,6 +3,9 @@ package com.xrcgs.iam.service.impl;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.common.cache.TokenEpochService;
+import com.xrcgs.common.core.CursorPage;
+import com.xrcgs.common.core.KeysetCursor;
 import com.xrcgs.iam.datascope.DataScopeManager;
 import com.xrcgs.iam.entity.SysDept;
 import com.xrcgs.iam.entity.SysRole;
@@ -31,6 +34,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -57,11 +61,14 @@ class UserServiceImplTest {
     @Mock
     private SysUserRoleMapper userRoleMapper;
 
+    @Mock
+    private TokenEpochService tokenEpochService;
+
     private UserServiceImpl userService;
 
     @BeforeEach
     void setUp() {
-        userService = new UserServiceImpl(userMapper, sysDeptMapper, roleMapper, passwordEncoder, authCacheService, dataScopeManager, new ObjectMapper(), userRoleMapper);
+        userService = new UserServiceImpl(userMapper, sysDeptMapper, roleMapper, passwordEncoder, authCacheService, dataScopeManager, new ObjectMapper(), userRoleMapper, tokenEpochService);
     }
 
     @Test
@@ -171,6 +178,8 @@ class UserServiceImplTest {
 
         verify(authCacheService).evictUserPerms(10L);
         verify(dataScopeManager).evictUserDataScope(10L);
+        // 部门变化：令牌中的 did/sf 失效，需要换发
+        verify(tokenEpochService).revoke(10L);
     }
 
     @Test
@@ -239,6 +248,80 @@ class UserServiceImplTest {
 
         verify(authCacheService).evictUserPerms(15L);
         verify(dataScopeManager).evictUserDataScope(15L);
+        verify(tokenEpochService).revoke(15L);
+    }
+
+    @Test
+    void updateEnabledShouldNotRevokeTokensWhenEnabling() {
+        SysUser current = new SysUser();
+        current.setId(16L);
+        current.setEnabled(Boolean.FALSE);
+
+        when(userMapper.selectById(16L)).thenReturn(current);
+
+        userService.updateEnabled(16L, true);
+
+        verify(tokenEpochService, never()).revoke(anyLong());
+    }
+
+    @Test
+    void assignRolesShouldRevokeTokens() {
+        SysUser current = new SysUser();
+        current.setId(17L);
+
+        when(userMapper.selectById(17L)).thenReturn(current);
+
+        userService.assignRoles(17L, Collections.emptyList());
+
+        verify(authCacheService).evictUserPerms(17L);
+        verify(tokenEpochService).revoke(17L);
+    }
+
+    @Test
+    void updateShouldNotRevokeTokensWhenDeptUnchanged() {
+        SysUser current = new SysUser();
+        current.setId(18L);
+        current.setDeptId(4L);
+        current.setDataScope(DataScope.SELF);
+
+        when(userMapper.selectById(18L)).thenReturn(current);
+        when(userMapper.selectCount(any())).thenReturn(0L);
+
+        UserUpsertDTO dto = new UserUpsertDTO();
+        dto.setUsername("same");
+        dto.setNickname("同部门");
+        dto.setDeptId(4L);
+
+        userService.update(18L, dto);
+
+        verify(dataScopeManager).evictUserDataScope(18L);
+        verify(tokenEpochService, never()).revoke(anyLong());
+    }
+
+    @Test
+    void updateShouldRevokeTokensWhenRolesChange() {
+        SysUser current = new SysUser();
+        current.setId(19L);
+        current.setDeptId(4L);
+        current.setEnabled(Boolean.TRUE);
+        current.setDataScope(DataScope.SELF);
+        SysUserRole relation = new SysUserRole();
+        relation.setUserId(19L);
+        relation.setRoleId(2L);
+
+        when(userMapper.selectById(19L)).thenReturn(current);
+        when(userMapper.selectCount(any())).thenReturn(0L);
+        when(userRoleMapper.selectList(any())).thenReturn(List.of(relation));
+
+        UserUpsertDTO dto = new UserUpsertDTO();
+        dto.setUsername("same");
+        dto.setNickname("换角色");
+        dto.setDeptId(4L);
+        dto.setRoleIds(List.of(2L, 3L));
+
+        userService.update(19L, dto);
+
+        verify(tokenEpochService).revoke(19L);
     }
 
     @Test
@@ -363,11 +446,7 @@ class UserServiceImplTest {
         mpPage.setRecords(Collections.emptyList());
         when(userMapper.selectPage(any(Page.class), any(UserPageQuery.class))).thenReturn(mpPage);
 
-        SysDept dept = new SysDept();
-        dept.setId(2L);
-        dept.setPath("/1/2/");
-        when(sysDeptMapper.selectById(2L)).thenReturn(dept);
-        when(sysDeptMapper.selectIdsByPathPrefix("/1/2/")).thenReturn(List.of(2L, 3L));
+        when(sysDeptMapper.selectDescendantIds(2L)).thenReturn(List.of(2L, 3L));
 
         UserPageQuery query = new UserPageQuery();
         query.setDeptId(2L);
@@ -378,6 +457,36 @@ class UserServiceImplTest {
         assertEquals(List.of(2L, 3L), queryCaptor.getValue().getDeptIds());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void cursorShouldSeekAfterIdAndFetchOneExtraRowWithoutCount() {
+        Page<SysUser> mpPage = new Page<>(1, 3, false);
+        mpPage.setRecords(List.of(user(49L), user(48L), user(47L)));
+        when(userMapper.selectPage(any(Page.class), any(UserPageQuery.class))).thenReturn(mpPage);
+        when(userRoleMapper.selectList(any())).thenReturn(Collections.emptyList());
+
+        CursorPage<UserVO> result = userService.cursor(new UserPageQuery(), KeysetCursor.encode(50L, 50L), 2, true);
+
+        ArgumentCaptor<Page<SysUser>> pageCaptor = ArgumentCaptor.forClass(Page.class);
+        ArgumentCaptor<UserPageQuery> queryCaptor = ArgumentCaptor.forClass(UserPageQuery.class);
+        verify(userMapper).selectPage(pageCaptor.capture(), queryCaptor.capture());
+        assertEquals(3, pageCaptor.getValue().getSize());
+        assertFalse(pageCaptor.getValue().searchCount());
+        assertEquals(50L, queryCaptor.getValue().getCursorId());
+
+        assertEquals(List.of(49L, 48L), result.getRecords().stream().map(UserVO::getId).toList());
+        assertTrue(result.isHasMore());
+        assertEquals(48L, KeysetCursor.decode(result.getNextCursor()).id());
+        assertNull(result.getTotal());
+    }
+
+    private static SysUser user(Long id) {
+        SysUser user = new SysUser();
+        user.setId(id);
+        user.setUsername("u" + id);
+        return user;
+    }
+
     @Test
     void pageShouldFallbackToDeptIdWhenDeptMissing() {
         Page<SysUser> mpPage = new Page<>(1, 10);
@@ -385,7 +494,7 @@ class UserServiceImplTest {
         mpPage.setPages(0);
         mpPage.setRecords(Collections.emptyList());
         when(userMapper.selectPage(any(Page.class), any(UserPageQuery.class))).thenReturn(mpPage);
-        when(sysDeptMapper.selectById(99L)).thenReturn(null);
+        when(sysDeptMapper.selectDescendantIds(99L)).thenReturn(List.of());
 
         UserPageQuery query = new UserPageQuery();
         query.setDeptId(99L);
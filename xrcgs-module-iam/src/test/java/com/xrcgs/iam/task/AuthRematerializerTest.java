@@ -0,0 +1,172 @@
+package com.xrcgs.iam.task;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.xrcgs.common.cache.AuthCacheService;
+import com.xrcgs.common.constants.IamCacheKeys;
+import com.xrcgs.iam.datascope.DataScopeManager;
+import com.xrcgs.iam.datascope.DeptTreeVersionWatermark;
+import com.xrcgs.iam.datascope.EffectiveDataScope;
+import com.xrcgs.iam.entity.SysUser;
+import com.xrcgs.iam.entity.SysUserRole;
+import com.xrcgs.iam.mapper.SysUserMapper;
+import com.xrcgs.iam.mapper.SysUserRoleMapper;
+import com.xrcgs.iam.service.PermService;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AuthRematerializerTest {
+
+    @Mock
+    private SysUserMapper userMapper;
+    @Mock
+    private SysUserRoleMapper userRoleMapper;
+    @Mock
+    private PermService permService;
+    @Mock
+    private DataScopeManager dataScopeManager;
+    @Mock
+    private DeptTreeVersionWatermark versionWatermark;
+    @Mock
+    private AuthCacheService authCacheService;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private AuthRematerializer rematerializer;
+
+    @BeforeEach
+    void setUp() {
+        // 游标查询使用 select(SysUser::getId)，需要实体元数据
+        if (TableInfoHelper.getTableInfo(SysUser.class) == null) {
+            TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), SysUser.class);
+        }
+        RematerializeProperties props = new RematerializeProperties();
+        props.setParallelism(2);
+        props.setBatchSize(2);
+        rematerializer = new AuthRematerializer(props, userMapper, userRoleMapper, permService,
+                dataScopeManager, versionWatermark, authCacheService);
+        when(versionWatermark.current()).thenReturn(3L);
+        when(userMapper.selectBatchIds(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().map(AuthRematerializerTest::user).toList();
+        });
+        when(dataScopeManager.calculate(any(), anyCollection(), eq(3L))).thenReturn(EffectiveDataScope.selfOnly());
+    }
+
+    @AfterEach
+    void tearDown() {
+        rematerializer.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRecomputeUsersInBatchesAndShareRoleSetPerms() {
+        when(userRoleMapper.selectList(any())).thenReturn(List.of(
+                relation(1L, 7L), relation(2L, 7L), relation(3L, 7L)));
+        when(permService.aggregatePermsByRoles(Set.of(7L))).thenReturn(Set.of("iam:user:list"));
+
+        rematerializer.submitUsers(List.of(1L, 2L, 3L));
+
+        ArgumentCaptor<Map<Long, Set<String>>> perms = ArgumentCaptor.forClass(Map.class);
+        verify(authCacheService, timeout(2000).times(2)).cacheUserAuth(perms.capture(), anyMap());
+        Map<Long, Set<String>> written = new HashMap<>();
+        perms.getAllValues().forEach(written::putAll);
+        assertEquals(Set.of(1L, 2L, 3L), written.keySet());
+        assertEquals(Set.of("iam:user:list"), written.get(3L));
+        verify(permService, times(1)).aggregatePermsByRoles(Set.of(7L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void allScopesRunShouldPageThroughUsersWithoutTouchingPerms() {
+        when(userMapper.selectObjs(any()))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L))
+                .thenReturn(List.of());
+        when(userRoleMapper.selectList(any())).thenReturn(List.of());
+
+        rematerializer.submitAllScopes();
+
+        ArgumentCaptor<Map<Long, EffectiveDataScope>> scopes = ArgumentCaptor.forClass(Map.class);
+        verify(authCacheService, timeout(2000).times(2)).cacheUserAuth(eq(Map.of()), scopes.capture());
+        assertEquals(3, scopes.getAllValues().stream().mapToInt(Map::size).sum());
+        verify(permService, never()).aggregatePermsByRoles(any());
+    }
+
+    @Test
+    void disabledShouldDropSubmissions() {
+        rematerializer.setEnabled(false);
+
+        rematerializer.submitUsers(List.of(1L));
+        rematerializer.submitAllScopes();
+
+        verify(authCacheService, after(200).never()).cacheUserAuth(anyMap(), anyMap());
+        assertEquals(false, rematerializer.stats().get("enabled"));
+    }
+
+    @Test
+    void switchShouldBeSharedThroughRedisAndBroadcast() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        RematerializeProperties props = new RematerializeProperties();
+        AuthRematerializer shared = new AuthRematerializer(props, userMapper, userRoleMapper, permService,
+                dataScopeManager, versionWatermark, authCacheService, redisTemplate, null);
+        try {
+            shared.setEnabled(false);
+
+            verify(valueOperations).set(IamCacheKeys.REMATERIALIZE_ENABLED, "0");
+            verify(redisTemplate).convertAndSend(IamCacheKeys.REMATERIALIZE_SWITCH_CHANNEL, "0");
+            assertFalse(shared.isEnabled());
+
+            // 其它节点打开开关：收到广播后本节点同步
+            shared.onMessage(new DefaultMessage(IamCacheKeys.REMATERIALIZE_SWITCH_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    "1".getBytes(StandardCharsets.UTF_8)), null);
+            assertTrue(shared.isEnabled());
+
+            // 广播丢失：对账以 Redis 为准
+            when(valueOperations.get(IamCacheKeys.REMATERIALIZE_ENABLED)).thenReturn("0");
+            shared.reconcile();
+            assertFalse(shared.isEnabled());
+        } finally {
+            shared.shutdown();
+        }
+    }
+
+    private static SysUser user(Long id) {
+        SysUser user = new SysUser();
+        user.setId(id);
+        return user;
+    }
+
+    private static SysUserRole relation(Long userId, Long roleId) {
+        SysUserRole ur = new SysUserRole();
+        ur.setUserId(userId);
+        ur.setRoleId(roleId);
+        return ur;
+    }
+}
@@ -5,6 +5,8 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xrcgs.common.core.CursorPage;
+import com.xrcgs.common.core.KeysetCursor;
 import com.xrcgs.roadsafety.inspection.domain.model.InspectionLogEchoView;
 import com.xrcgs.roadsafety.inspection.domain.model.InspectionRecord;
 import com.xrcgs.roadsafety.inspection.infrastructure.mapper.InspectionLogEchoViewMapper;
@@ -12,6 +14,7 @@ import com.xrcgs.roadsafety.inspection.infrastructure.mapper.InspectionRecordMap
 import com.xrcgs.roadsafety.inspection.interfaces.dto.InspectionLogDetailVO;
 import com.xrcgs.roadsafety.inspection.interfaces.dto.InspectionLogPageItemVO;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -28,6 +31,50 @@ public class InspectionLogQueryService {
 
     @Transactional(readOnly = true)
     public Page<InspectionLogPageItemVO> page(LocalDate recordDate, String squadCode, long pageNo, long pageSize) {
+        LambdaQueryWrapper<InspectionRecord> query = buildPageQuery(recordDate, squadCode);
+        query.orderByDesc(InspectionRecord::getCreatedAt)
+                .orderByDesc(InspectionRecord::getId);
+
+        Page<InspectionRecord> entityPage = recordMapper.selectPage(Page.of(pageNo, pageSize), query);
+        List<InspectionLogPageItemVO> records = entityPage.getRecords().stream()
+                .map(this::toPageItem)
+                .toList();
+
+        Page<InspectionLogPageItemVO> result = Page.of(entityPage.getCurrent(), entityPage.getSize(), entityPage.getTotal());
+        result.setRecords(records);
+        return result;
+    }
+
+    /**
+     * 游标分页：按 (created_at, id) 倒序做 keyset 续读，深翻页不再 OFFSET 扫描；
+     * total 仅在首页且 withTotal 时统计一次。
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<InspectionLogPageItemVO> cursor(LocalDate recordDate, String squadCode,
+                                                      String cursor, long size, boolean withTotal) {
+        int limit = CursorPage.normalizeSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        LambdaQueryWrapper<InspectionRecord> query = buildPageQuery(recordDate, squadCode);
+        if (after != null) {
+            LocalDateTime at = after.sortKeyAsDateTime();
+            query.and(w -> w.lt(InspectionRecord::getCreatedAt, at)
+                    .or(o -> o.eq(InspectionRecord::getCreatedAt, at).lt(InspectionRecord::getId, after.id())));
+        }
+        query.orderByDesc(InspectionRecord::getCreatedAt)
+                .orderByDesc(InspectionRecord::getId);
+
+        Page<InspectionRecord> entityPage = Page.of(1, limit + 1, withTotal && after == null);
+        recordMapper.selectPage(entityPage, query);
+        CursorPage<InspectionLogPageItemVO> result = CursorPage
+                .of(entityPage.getRecords(), limit, record -> KeysetCursor.encode(record.getCreatedAt(), record.getId()))
+                .map(this::toPageItem);
+        if (entityPage.searchCount()) {
+            result.setTotal(entityPage.getTotal());
+        }
+        return result;
+    }
+
+    private LambdaQueryWrapper<InspectionRecord> buildPageQuery(LocalDate recordDate, String squadCode) {
         LambdaQueryWrapper<InspectionRecord> query = new LambdaQueryWrapper<InspectionRecord>()
                 .select(
                         InspectionRecord::getId,
@@ -43,24 +90,17 @@ public class InspectionLogQueryService {
         if (StringUtils.hasText(squadCode)) {
             query.eq(InspectionRecord::getSquadCode, squadCode.trim());
         }
+        return query;
+    }
 
-        query.orderByDesc(InspectionRecord::getCreatedAt)
-                .orderByDesc(InspectionRecord::getId);
-
-        Page<InspectionRecord> entityPage = recordMapper.selectPage(Page.of(pageNo, pageSize), query);
-        List<InspectionLogPageItemVO> records = entityPage.getRecords().stream()
-                .map(record -> InspectionLogPageItemVO.builder()
-                        .id(record.getId() == null ? null : record.getId().toString())
-                        .recordDate(record.getDate())
-                        .squadCode(record.getSquadCode())
-                        .createdAt(record.getCreatedAt())
-                        .approvalStatus(record.getApprovalStatus())
-                        .build())
-                .toList();
-
-        Page<InspectionLogPageItemVO> result = Page.of(entityPage.getCurrent(), entityPage.getSize(), entityPage.getTotal());
-        result.setRecords(records);
-        return result;
+    private InspectionLogPageItemVO toPageItem(InspectionRecord record) {
+        return InspectionLogPageItemVO.builder()
+                .id(record.getId() == null ? null : record.getId().toString())
+                .recordDate(record.getDate())
+                .squadCode(record.getSquadCode())
+                .createdAt(record.getCreatedAt())
+                .approvalStatus(record.getApprovalStatus())
+                .build();
     }
 
     @Transactional(readOnly = true)
@@ -841,7 +841,7 @@ public class InspectionLogSubmitExportService {
             return null;
         }
         String cached = authCacheService.getCachedDict(typeCode);
-        if (!StringUtils.hasText(cached)) {
+        if (!StringUtils.hasText(cached) || AuthCacheService.DICT_ABSENT.equals(cached)) {
             return null;
         }
         try {
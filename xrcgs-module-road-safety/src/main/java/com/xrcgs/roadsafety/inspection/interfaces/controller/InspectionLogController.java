@@ -3,6 +3,7 @@ package com.xrcgs.roadsafety.inspection.interfaces.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xrcgs.common.core.CursorPage;
 import com.xrcgs.common.core.R;
 import com.xrcgs.roadsafety.inspection.application.service.InspectionLogImportService;
 import com.xrcgs.roadsafety.inspection.application.service.InspectionLogQueryService;
@@ -80,6 +81,26 @@ public class InspectionLogController {
         return R.ok(queryService.page(recordDate, squadCode, pageNo, pageSize));
     }
 
+    /**
+     * 游标分页查询巡查日志（深翻页不退化）
+     * @param recordDate 日志日期
+     * @param squadCode 所属中队
+     * @param cursor 上一页返回的 nextCursor，首页不传
+     * @param size 每页条数
+     * @param withTotal 是否在首页统计总数
+     * @return
+     */
+    @GetMapping("/cursor")
+    public R<CursorPage<InspectionLogPageItemVO>> cursor(
+            @RequestParam(name = "record_date", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate recordDate,
+            @RequestParam(name = "squad_code", required = false) String squadCode,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "15") @Min(1) long size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        return R.ok(queryService.cursor(recordDate, squadCode, cursor, size, withTotal));
+    }
+
     /**
      * 获取日志详细信息
      * @param id 日志ID
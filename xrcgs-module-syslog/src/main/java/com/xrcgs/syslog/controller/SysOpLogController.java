@@ -1,6 +1,7 @@
 package com.xrcgs.syslog.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xrcgs.common.core.CursorPage;
 import com.xrcgs.common.core.R;
 import com.xrcgs.syslog.annotation.OpLog;
 import com.xrcgs.syslog.entity.SysOpLog;
@@ -44,6 +45,18 @@ public class SysOpLogController {
         return R.ok(sysOpLogService.page(query, pageNo, pageSize));
     }
 
+    /**
+     * 游标分页查询操作日志（深翻页不退化）；cursor 取上一页返回的 nextCursor，首页不传
+     */
+    @GetMapping("/cursor")
+    @PreAuthorize("@permChecker.hasPerm(authentication, 'sys:op-log:list')")
+    public R<CursorPage<SysOpLog>> cursor(@Valid SysOpLogPageQuery query,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "10") long size,
+                                          @RequestParam(defaultValue = "false") boolean withTotal) {
+        return R.ok(sysOpLogService.cursor(query, cursor, size, withTotal));
+    }
+
     /**
      * 查询操作日志详情
      */
@@ -1,6 +1,7 @@
 package com.xrcgs.syslog.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xrcgs.common.core.CursorPage;
 import com.xrcgs.syslog.entity.SysOpLog;
 import com.xrcgs.syslog.model.query.SysOpLogPageQuery;
 
@@ -12,6 +13,9 @@ public interface SysOpLogService {
 
     Page<SysOpLog> page(SysOpLogPageQuery query, long pageNo, long pageSize);
 
+    /** 游标分页：按 (createdAt, id) 倒序，不做 OFFSET 与 COUNT */
+    CursorPage<SysOpLog> cursor(SysOpLogPageQuery query, String cursor, long size, boolean withTotal);
+
     SysOpLog get(Long id);
 
     boolean deleteByIds(List<Long> ids);
@@ -3,6 +3,8 @@ package com.xrcgs.syslog.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xrcgs.common.core.CursorPage;
+import com.xrcgs.common.core.KeysetCursor;
 import com.xrcgs.syslog.entity.SysOpLog;
 import com.xrcgs.syslog.mapper.SysOpLogMapper;
 import com.xrcgs.syslog.model.query.SysOpLogPageQuery;
@@ -15,6 +17,7 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Slf4j
@@ -37,6 +40,61 @@ public class SysOpLogServiceImpl implements SysOpLogService {
     @Override
     @Transactional(readOnly = true)
     public Page<SysOpLog> page(SysOpLogPageQuery query, long pageNo, long pageSize) {
+        LambdaQueryWrapper<SysOpLog> wrapper = buildWrapper(query);
+        wrapper.orderByDesc(SysOpLog::getCreatedAt);
+        Page<SysOpLog> page = Page.of(pageNo, pageSize);
+        return mapper.selectPage(page, wrapper);
+    }
+
+    /**
+     * createdAt 可为空，而 DESC 排序中空值的位置 MySQL（最后）与 PostgreSQL（最前）不一致，
+     * 因此统一为“空值在最后”，分两段查询：先按 (createdAt, id) 翻完非空行，再只按 id 翻 createdAt 为空的行。
+     * 两段都是简单的范围 + 排序，仍走 (createdAt, id) 索引；游标排序键为空即表示已进入第二段。
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<SysOpLog> cursor(SysOpLogPageQuery query, String cursor, long size, boolean withTotal) {
+        int limit = CursorPage.normalizeSize(size);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        boolean nullSegment = after != null && !after.hasSortKey();
+
+        // 多取一行判断 hasMore
+        List<SysOpLog> rows = new ArrayList<>(limit + 1);
+        if (!nullSegment) {
+            LambdaQueryWrapper<SysOpLog> wrapper = buildWrapper(query).isNotNull(SysOpLog::getCreatedAt);
+            if (after != null) {
+                LocalDateTime at = after.sortKeyAsDateTime();
+                wrapper.and(w -> w.lt(SysOpLog::getCreatedAt, at)
+                        .or(o -> o.eq(SysOpLog::getCreatedAt, at).lt(SysOpLog::getId, after.id())));
+            }
+            wrapper.orderByDesc(SysOpLog::getCreatedAt).orderByDesc(SysOpLog::getId);
+            rows.addAll(selectRows(wrapper, limit + 1));
+        }
+        if (rows.size() <= limit) {
+            LambdaQueryWrapper<SysOpLog> wrapper = buildWrapper(query).isNull(SysOpLog::getCreatedAt);
+            if (nullSegment) {
+                wrapper.lt(SysOpLog::getId, after.id());
+            }
+            wrapper.orderByDesc(SysOpLog::getId);
+            rows.addAll(selectRows(wrapper, limit + 1 - rows.size()));
+        }
+
+        CursorPage<SysOpLog> result = CursorPage.of(rows, limit,
+                row -> KeysetCursor.encode(row.getCreatedAt(), row.getId()));
+        // 只有首页且显式请求时才 COUNT（包含 createdAt 为空的行）
+        if (withTotal && after == null) {
+            result.setTotal(mapper.selectCount(buildWrapper(query)));
+        }
+        return result;
+    }
+
+    private List<SysOpLog> selectRows(LambdaQueryWrapper<SysOpLog> wrapper, int limit) {
+        Page<SysOpLog> page = Page.of(1, limit, false);
+        mapper.selectPage(page, wrapper);
+        return page.getRecords();
+    }
+
+    private LambdaQueryWrapper<SysOpLog> buildWrapper(SysOpLogPageQuery query) {
         SysOpLogPageQuery actualQuery = query == null ? new SysOpLogPageQuery() : query;
         LambdaQueryWrapper<SysOpLog> wrapper = Wrappers.lambdaQuery();
 
@@ -57,10 +115,7 @@ public class SysOpLogServiceImpl implements SysOpLogService {
         if (end != null) {
             wrapper.le(SysOpLog::getCreatedAt, end);
         }
-
-        wrapper.orderByDesc(SysOpLog::getCreatedAt);
-        Page<SysOpLog> page = Page.of(pageNo, pageSize);
-        return mapper.selectPage(page, wrapper);
+        return wrapper;
     }
 
     @Override